@@ -0,0 +1,369 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import geometries.Intersectable.Intersection;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy over a collection of intersectables, built with the
+ * surface area heuristic (SAH).<br/>
+ * Objects without a bounding box (planes, infinite tubes) can't be put in the tree,
+ * so they are kept in a separate list which is tested by every ray.
+ */
+final class BVH {
+    /** A node with more objects than that is always split */
+    private static final int MAX_LEAF_SIZE = 8;
+
+    /**
+     * A node of the tree - either an inner node with two children or a leaf with its objects
+     */
+    static final class Node {
+        final BoundingBox box;
+        Node left;
+        Node right;
+        Intersectable[] items;
+        /** The positions of the leaf objects in the original collection */
+        int[] indices;
+
+        private Node(BoundingBox box) {
+            this.box = box;
+        }
+    }
+
+    /** Root of the tree, null if there are no bounded objects */
+    final Node root;
+    /** The objects that have no bounding box */
+    final Intersectable[] unbounded;
+    /** The positions of the unbounded objects in the original collection */
+    final int[] unboundedIndices;
+    /** Depth of the tree - the size of the traversal stack */
+    final int depth;
+
+    /**
+     * Builds the hierarchy over the given objects
+     *
+     * @param intersectables the objects
+     */
+    BVH(List<Intersectable> intersectables) {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<Intersectable> others = new ArrayList<>();
+        List<Integer> boundedIndices = new ArrayList<>();
+        List<Integer> otherIndices = new ArrayList<>();
+        int index = 0;
+        for (Intersectable item : intersectables) {
+            if (item.getBoundingBox() == null) {
+                others.add(item);
+                otherIndices.add(index++);
+            } else {
+                bounded.add(item);
+                boundedIndices.add(index++);
+            }
+        }
+
+        unbounded = others.toArray(new Intersectable[0]);
+        unboundedIndices = otherIndices.stream().mapToInt(Integer::intValue).toArray();
+        int n = bounded.size();
+        Intersectable[] items = bounded.toArray(new Intersectable[n]);
+        int[] indices = boundedIndices.stream().mapToInt(Integer::intValue).toArray();
+        double[] boxes = new double[6 * n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; ++i) {
+            BoundingBox box = items[i].getBoundingBox();
+            for (int axis = 0; axis < 3; ++axis) {
+                boxes[6 * i + axis] = box.min(axis);
+                boxes[6 * i + 3 + axis] = box.max(axis);
+            }
+            order[i] = i;
+        }
+
+        SahHierarchy hierarchy = new SahHierarchy(boxes, order, MAX_LEAF_SIZE);
+        root = n == 0 ? null : node(hierarchy, 0, order, items, indices);
+        depth = hierarchy.depth;
+    }
+
+    /**
+     * Recursively creates the tree nodes of a sub-tree of the packed hierarchy
+     *
+     * @param hierarchy the packed hierarchy
+     * @param index     the index of the root of the sub-tree in the hierarchy
+     * @param order     the positions of the objects in the order of the leaves
+     * @param items     the objects
+     * @param indices   the positions of the objects in the original collection
+     * @return the node
+     */
+    private static Node node(SahHierarchy hierarchy, int index, int[] order, Intersectable[] items, int[] indices) {
+        double[] b = hierarchy.bounds;
+        Node node = new Node(new BoundingBox(b[6 * index], b[6 * index + 1], b[6 * index + 2], b[6 * index + 3],
+                b[6 * index + 4], b[6 * index + 5]));
+        int first = hierarchy.nodes[2 * index], count = hierarchy.nodes[2 * index + 1];
+        if (count == 0) {
+            node.left = node(hierarchy, index + 1, order, items, indices);
+            node.right = node(hierarchy, first, order, items, indices);
+            return node;
+        }
+        node.items = new Intersectable[count];
+        node.indices = new int[count];
+        for (int i = 0; i < count; ++i) {
+            node.items[i] = items[order[first + i]];
+            node.indices[i] = indices[order[first + i]];
+        }
+        return node;
+    }
+
+    /**
+     * Finds all the intersections of a ray with the objects in the hierarchy
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance of the intersections from the ray head
+     * @return list of the intersections, or null if there are none
+     */
+    List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance) {
+        List<GeoPoint> result = null;
+        for (Intersectable item : unbounded)
+            result = addAll(result, item.findGeoIntersectionsHelper(ray, maxDistance));
+        if (root == null) return result;
+
+        double ox = ray.getP0().getX(), oy = ray.getP0().getY(), oz = ray.getP0().getZ();
+        Vector dir = ray.getDir();
+        double invX = 1 / dir.getX(), invY = 1 / dir.getY(), invZ = 1 / dir.getZ();
+
+        Node[] stack = new Node[depth];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (node.box.intersect(ox, oy, oz, invX, invY, invZ, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+            if (node.items != null) {
+                for (Intersectable item : node.items)
+                    result = addAll(result, item.findGeoIntersectionsHelper(ray, maxDistance));
+            } else {
+                stack[top++] = node.right;
+                stack[top++] = node.left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the objects in the hierarchy.<br/>
+     * The nodes are visited front to back, and a node is skipped when the ray enters its box farther than the
+     * closest intersection found so far. The intersections are ranked by their ray parameter t, and on equal
+     * distances the object that is first in the original collection wins, so that the result is the same as of
+     * a linear search.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance of the intersection from the ray head
+     * @return the closest intersection, or null if there is none
+     */
+    Intersection findClosestIntersection(Ray ray, double maxDistance) {
+        Intersection closest = null;
+        int closestIndex = Integer.MAX_VALUE;
+        for (int i = 0; i < unbounded.length; ++i) {
+            Intersection intersection = unbounded[i].findClosestIntersectionHelper(ray, maxDistance);
+            if (intersection != null && (closest == null || intersection.t < closest.t)) {
+                closest = intersection;
+                closestIndex = unboundedIndices[i];
+                maxDistance = intersection.t;
+            }
+        }
+        return root == null ? closest : findClosestIntersection(root, ray, maxDistance, closest, closestIndex);
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the objects in a sub-tree, front to back.
+     *
+     * @param start        the root of the sub-tree
+     * @param ray          the ray
+     * @param maxDistance  the maximal distance of the intersection from the ray head
+     * @param closest      the closest intersection found so far, or null
+     * @param closestIndex the position of the geometry of that intersection in the original collection
+     * @return the closest intersection, or null if there is none
+     */
+    private Intersection findClosestIntersection(Node start, Ray ray, double maxDistance,
+                                                 Intersection closest, int closestIndex) {
+        Point p0 = ray.getP0();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        Vector dir = ray.getDir();
+        double invX = 1 / dir.getX(), invY = 1 / dir.getY(), invZ = 1 / dir.getZ();
+
+        double entry = start.box.intersect(ox, oy, oz, invX, invY, invZ, maxDistance);
+        if (entry == Double.POSITIVE_INFINITY) return closest;
+        Node[] stack = new Node[depth];
+        double[] entries = new double[depth];
+        int top = 0;
+        stack[top] = start;
+        entries[top++] = entry;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (entries[top] > maxDistance * BoundingBox.ROUNDING) continue;
+            if (node.items != null) {
+                for (int i = 0; i < node.items.length; ++i) {
+                    Intersection intersection = node.items[i].findClosestIntersectionHelper(ray, maxDistance);
+                    if (intersection == null) continue;
+                    if (closest == null || intersection.t < closest.t
+                            || intersection.t == closest.t && node.indices[i] < closestIndex) {
+                        closest = intersection;
+                        closestIndex = node.indices[i];
+                        maxDistance = intersection.t;
+                    }
+                }
+            } else {
+                // push the farther child first, so that the nearer one is visited first
+                double leftEntry = node.left.box.intersect(ox, oy, oz, invX, invY, invZ, maxDistance);
+                double rightEntry = node.right.box.intersect(ox, oy, oz, invX, invY, invZ, maxDistance);
+                Node near = node.left, far = node.right;
+                if (rightEntry < leftEntry) {
+                    near = node.right;
+                    far = node.left;
+                    double tmp = leftEntry;
+                    leftEntry = rightEntry;
+                    rightEntry = tmp;
+                }
+                if (rightEntry != Double.POSITIVE_INFINITY) {
+                    stack[top] = far;
+                    entries[top++] = rightEntry;
+                }
+                if (leftEntry != Double.POSITIVE_INFINITY) {
+                    stack[top] = near;
+                    entries[top++] = leftEntry;
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Finds the closest intersections of some rays of a packet with the objects in the hierarchy.<br/>
+     * The rays traverse the tree together: each node is tested against the boxes of the rays that reached its
+     * parent, and only the rays that enter it go on to its children and objects. The children are visited in
+     * the order of the first of these rays. The packet falls back to single rays when it diverges - when its
+     * directions are not in the same octant, and in every sub-tree that only one of its rays enters.
+     *
+     * @param packet the packet of rays
+     * @param lanes  the lanes of the rays to intersect
+     * @param count  the number of the lanes to intersect
+     */
+    void findClosestIntersections(RayPacket packet, int[] lanes, int count) {
+        for (Intersectable item : unbounded)
+            item.findClosestIntersections(packet, lanes, count);
+        if (root == null) return;
+        if (!packet.coherent) {
+            for (int i = 0; i < count; ++i) findClosestIntersection(root, packet, lanes[i]);
+            return;
+        }
+
+        // Each stack entry has its own lanes buffer - the lanes that entered the parent of the node
+        Node[] stack = new Node[depth];
+        int[][] stackLanes = new int[depth][packet.size];
+        int[] stackCounts = new int[depth];
+        int[] active = new int[packet.size];
+        int top = 0;
+        stack[top] = root;
+        System.arraycopy(lanes, 0, stackLanes[top], 0, count);
+        stackCounts[top++] = count;
+        while (top > 0) {
+            Node node = stack[--top];
+            int[] nodeLanes = stackLanes[top];
+            int n = 0;
+            for (int i = 0; i < stackCounts[top]; ++i) {
+                int lane = nodeLanes[i];
+                if (node.box.intersect(packet.ox[lane], packet.oy[lane], packet.oz[lane], packet.invX[lane],
+                        packet.invY[lane], packet.invZ[lane], packet.distances[lane]) != Double.POSITIVE_INFINITY)
+                    active[n++] = lane;
+            }
+            if (n == 0) continue;
+            if (n == 1) {
+                findClosestIntersection(node, packet, active[0]);
+                continue;
+            }
+            if (node.items != null) {
+                for (Intersectable item : node.items)
+                    item.findClosestIntersections(packet, active, n);
+                continue;
+            }
+            // push the farther child first, so that the nearer one is visited first
+            int lane = active[0];
+            double leftEntry = node.left.box.intersect(packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                    packet.invX[lane], packet.invY[lane], packet.invZ[lane], Double.POSITIVE_INFINITY);
+            double rightEntry = node.right.box.intersect(packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                    packet.invX[lane], packet.invY[lane], packet.invZ[lane], Double.POSITIVE_INFINITY);
+            boolean rightFirst = rightEntry < leftEntry;
+            stack[top] = rightFirst ? node.left : node.right;
+            System.arraycopy(active, 0, stackLanes[top], 0, n);
+            stackCounts[top++] = n;
+            stack[top] = rightFirst ? node.right : node.left;
+            System.arraycopy(active, 0, stackLanes[top], 0, n);
+            stackCounts[top++] = n;
+        }
+    }
+
+    /**
+     * Continues the search of a packet ray alone in a sub-tree.
+     *
+     * @param start  the root of the sub-tree
+     * @param packet the packet of rays
+     * @param lane   the lane of the ray
+     */
+    private void findClosestIntersection(Node start, RayPacket packet, int lane) {
+        Intersection intersection = findClosestIntersection(start, packet.rays[lane], packet.distances[lane],
+                null, Integer.MAX_VALUE);
+        if (intersection != null) packet.offer(lane, intersection.geometry, intersection.t);
+    }
+
+    /**
+     * Computes the transparency of the objects in the hierarchy along a shadow ray,
+     * stopping as soon as the ray is blocked
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance along the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the threshold below which the ray is considered fully blocked
+     * @param blocker     an array to set its first element to the geometry that blocked the ray, or null
+     * @return the accumulated transparency, or {@link Double3#ZERO} if the ray is blocked
+     */
+    Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK, Geometry[] blocker) {
+        for (Intersectable item : unbounded) {
+            ktr = item.findTransparency(ray, maxDistance, ktr, minK, blocker);
+            if (ktr.lowerThan(minK)) return Double3.ZERO;
+        }
+        if (root == null) return ktr;
+
+        double ox = ray.getP0().getX(), oy = ray.getP0().getY(), oz = ray.getP0().getZ();
+        Vector dir = ray.getDir();
+        double invX = 1 / dir.getX(), invY = 1 / dir.getY(), invZ = 1 / dir.getZ();
+
+        Node[] stack = new Node[depth];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (node.box.intersect(ox, oy, oz, invX, invY, invZ, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+            if (node.items != null) {
+                for (Intersectable item : node.items) {
+                    ktr = item.findTransparency(ray, maxDistance, ktr, minK, blocker);
+                    if (ktr.lowerThan(minK)) return Double3.ZERO;
+                }
+            } else {
+                stack[top++] = node.right;
+                stack[top++] = node.left;
+            }
+        }
+        return ktr;
+    }
+
+    private static List<GeoPoint> addAll(List<GeoPoint> result, List<GeoPoint> itemList) {
+        if (itemList == null) return result;
+        if (result == null) result = new LinkedList<>();
+        result.addAll(itemList);
+        return result;
+    }
+}
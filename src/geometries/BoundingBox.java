@@ -0,0 +1,198 @@
+package geometries;
+
+import primitives.Point;
+
+/**
+ * The BoundingBox class represents an axis-aligned bounding box (AABB) in 3D space.
+ * It is used by the acceleration structures to cull rays that can't hit the bounded objects.
+ */
+public class BoundingBox {
+    /** Minimal corner coordinates of the box */
+    final double minX, minY, minZ;
+    /** Maximal corner coordinates of the box */
+    final double maxX, maxY, maxZ;
+
+    /** Conservative widening of the exit distance against rounding errors (flat boxes of axis aligned polygons) */
+    static final double ROUNDING = 1 + 1e-12;
+
+    /**
+     * Constructs a bounding box from its minimal and maximal coordinates.
+     *
+     * @param minX minimal X coordinate
+     * @param minY minimal Y coordinate
+     * @param minZ minimal Z coordinate
+     * @param maxX maximal X coordinate
+     * @param maxY maximal Y coordinate
+     * @param maxZ maximal Z coordinate
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Constructs the smallest bounding box that contains all the given points.
+     *
+     * @param points the points to bound
+     * @throws IllegalArgumentException if no points are given
+     */
+    public BoundingBox(Point... points) {
+        if (points.length == 0)
+            throw new IllegalArgumentException("A bounding box needs at least one point");
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            x0 = Math.min(x0, p.getX());
+            y0 = Math.min(y0, p.getY());
+            z0 = Math.min(z0, p.getZ());
+            x1 = Math.max(x1, p.getX());
+            y1 = Math.max(y1, p.getY());
+            z1 = Math.max(z1, p.getZ());
+        }
+        minX = x0;
+        minY = y0;
+        minZ = z0;
+        maxX = x1;
+        maxY = y1;
+        maxZ = z1;
+    }
+
+    /**
+     * Returns the smallest bounding box that contains both this box and another one.
+     *
+     * @param other the other box, may be null
+     * @return the union of the two boxes
+     */
+    public BoundingBox union(BoundingBox other) {
+        if (other == null) return this;
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Returns the surface area of the box, used by the surface area heuristic.
+     *
+     * @return the surface area
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Returns the center coordinate of the box along the given axis.
+     *
+     * @param axis 0 for X, 1 for Y, 2 for Z
+     * @return the center coordinate
+     */
+    public double center(int axis) {
+        return switch (axis) {
+            case 0 -> (minX + maxX) / 2;
+            case 1 -> (minY + maxY) / 2;
+            default -> (minZ + maxZ) / 2;
+        };
+    }
+
+    /**
+     * Returns the minimal coordinate of the box along the given axis.
+     *
+     * @param axis 0 for X, 1 for Y, 2 for Z
+     * @return the minimal coordinate
+     */
+    public double min(int axis) {
+        return switch (axis) {
+            case 0 -> minX;
+            case 1 -> minY;
+            default -> minZ;
+        };
+    }
+
+    /**
+     * Returns the maximal coordinate of the box along the given axis.
+     *
+     * @param axis 0 for X, 1 for Y, 2 for Z
+     * @return the maximal coordinate
+     */
+    public double max(int axis) {
+        return switch (axis) {
+            case 0 -> maxX;
+            case 1 -> maxY;
+            default -> maxZ;
+        };
+    }
+
+    /**
+     * Computes the parametric distance at which a ray enters the box (slab test).
+     * The ray is given by its head and the inverse of its direction components,
+     * so that a single traversal computes the divisions only once.
+     *
+     * @param ox          ray head X
+     * @param oy          ray head Y
+     * @param oz          ray head Z
+     * @param invX        1 / direction X
+     * @param invY        1 / direction Y
+     * @param invZ        1 / direction Z
+     * @param maxDistance the maximal distance along the ray
+     * @return the entry distance (0 if the head is inside), or positive infinity if the ray misses the box
+     */
+    public double intersect(double ox, double oy, double oz, double invX, double invY, double invZ, double maxDistance) {
+        return intersect(minX, minY, minZ, maxX, maxY, maxZ, ox, oy, oz, invX, invY, invZ, maxDistance);
+    }
+
+    /**
+     * The slab test of {@link #intersect(double, double, double, double, double, double, double)} on box
+     * coordinates, for the structures that keep their boxes packed in arrays.
+     *
+     * @param minX        minimal X coordinate of the box
+     * @param minY        minimal Y coordinate of the box
+     * @param minZ        minimal Z coordinate of the box
+     * @param maxX        maximal X coordinate of the box
+     * @param maxY        maximal Y coordinate of the box
+     * @param maxZ        maximal Z coordinate of the box
+     * @param ox          ray head X
+     * @param oy          ray head Y
+     * @param oz          ray head Z
+     * @param invX        1 / direction X
+     * @param invY        1 / direction Y
+     * @param invZ        1 / direction Z
+     * @param maxDistance the maximal distance along the ray
+     * @return the entry distance (0 if the head is inside), or positive infinity if the ray misses the box
+     */
+    static double intersect(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                            double ox, double oy, double oz, double invX, double invY, double invZ,
+                            double maxDistance) {
+        double t1 = (minX - ox) * invX, t2 = (maxX - ox) * invX;
+        double tNear = tNear(Double.NEGATIVE_INFINITY, t1, t2), tFar = tFar(Double.POSITIVE_INFINITY, t1, t2);
+        t1 = (minY - oy) * invY;
+        t2 = (maxY - oy) * invY;
+        tNear = tNear(tNear, t1, t2);
+        tFar = tFar(tFar, t1, t2);
+        t1 = (minZ - oz) * invZ;
+        t2 = (maxZ - oz) * invZ;
+        tNear = tNear(tNear, t1, t2);
+        tFar = tFar(tFar, t1, t2) * ROUNDING;
+        if (tFar < tNear || tFar < 0 || tNear > maxDistance * ROUNDING) return Double.POSITIVE_INFINITY;
+        return tNear > 0 ? tNear : 0;
+    }
+
+    // The comparisons below are written so that a NaN slab distance (a zero direction component
+    // with the ray head exactly on the slab) is ignored instead of poisoning the result
+    private static double tNear(double tNear, double t1, double t2) {
+        double t = t1 < t2 ? t1 : t2;
+        return t > tNear ? t : tNear;
+    }
+
+    private static double tFar(double tFar, double t1, double t2) {
+        double t = t1 < t2 ? t2 : t1;
+        return t < tFar ? t : tFar;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{(" + minX + "," + minY + "," + minZ + ")-(" + maxX + "," + maxY + "," + maxZ + ")}";
+    }
+}
@@ -4,8 +4,6 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
-import java.util.ArrayList;
-import java.util.List;
 import static primitives.Util.*;
 
 /**
@@ -58,20 +56,32 @@ public class Cylinder extends Tube {
         // Otherwise, delegate to the superclass to compute the normal vector
         return super.getNormal(point);
     }
+    /**
+     * Returns the bounding box of the cylinder - the box of its two base discs.
+     * A disc of radius r with unit normal v extends r*sqrt(1-v_i^2) along each axis i.
+     *
+     * @return the bounding box of the cylinder
+     */
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        List<GeoPoint> res = new ArrayList<>();
-        List<GeoPoint> lst = super.findGeoIntersectionsHelper(ray, maxDistance);
-        if (lst != null)
-            for (GeoPoint geoPoint : lst) {
-                double distance = alignZero(geoPoint.point.subtract(axisRay.getP0()).dotProduct(axisRay.getDir()));
-                if (distance > 0 && distance <= height)
-                    res.add(geoPoint);
-            }
-
-        if (res.size() == 0)
-            return null;
-        return res;
+    public BoundingBox getBoundingBox() {
+        Vector v = axisRay.getDir();
+        Point bottom = axisRay.getP0();
+        Point top = bottom.add(v.scale(height));
+        double ex = radius * Math.sqrt(Math.max(0, 1 - v.getX() * v.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - v.getY() * v.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - v.getZ() * v.getZ()));
+        return new BoundingBox(
+                Math.min(bottom.getX(), top.getX()) - ex,
+                Math.min(bottom.getY(), top.getY()) - ey,
+                Math.min(bottom.getZ(), top.getZ()) - ez,
+                Math.max(bottom.getX(), top.getX()) + ex,
+                Math.max(bottom.getY(), top.getY()) + ey,
+                Math.max(bottom.getZ(), top.getZ()) + ez);
     }
 
+    @Override
+    protected boolean isAlongAxis(double axisDistance) {
+        double distance = alignZero(axisDistance);
+        return distance > 0 && distance <= height;
+    }
 }
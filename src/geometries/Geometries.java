@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 
@@ -19,6 +20,18 @@ public class Geometries extends Intersectable {
      A list of intersectable geometries that make up this collection.
      */
     private List<Intersectable> intersectables;
+
+    /**
+
+     Whether the collection is searched through a bounding volume hierarchy instead of a linear scan.
+     */
+    private boolean bvhEnabled = false;
+
+    /**
+
+     The hierarchy over the collection, built lazily on the first search and dropped whenever the collection changes.
+     */
+    private volatile BVH bvh = null;
     /**
 
      Constructs an empty collection of geometries.
@@ -42,6 +55,55 @@ public class Geometries extends Intersectable {
      */
     public void add(Intersectable... intersectable) {
         Collections.addAll(intersectables, intersectable);
+        bvh = null;
+    }
+
+    /**
+
+     Turns on or off the bounding volume hierarchy (BVH) mode of the collection.
+     In BVH mode the geometries are organized in a tree of bounding boxes built with the surface area heuristic,
+     so a ray is tested only against the geometries whose boxes it passes through.
+     Unbounded geometries (planes, tubes) are tested by every ray.
+     @param enabled true for the BVH mode, false for the linear scan
+     @return this collection
+     */
+    public Geometries setBVH(boolean enabled) {
+        this.bvhEnabled = enabled;
+        bvh = null;
+        return this;
+    }
+
+    /**
+
+     Returns the hierarchy over the collection, building it if the collection was changed since the last search.
+     @return the hierarchy
+     */
+    private BVH getBVH() {
+        BVH result = bvh;
+        if (result == null) {
+            synchronized (this) {
+                result = bvh;
+                if (result == null)
+                    bvh = result = new BVH(intersectables);
+            }
+        }
+        return result;
+    }
+
+    /**
+
+     Returns the bounding box of the whole collection.
+     @return the box containing all the geometries, or null if the collection is empty or has an unbounded geometry
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = null;
+        for (Intersectable item : intersectables) {
+            BoundingBox itemBox = item.getBoundingBox();
+            if (itemBox == null) return null;
+            box = itemBox.union(box);
+        }
+        return box;
     }
     /**
 
@@ -51,6 +113,9 @@ public class Geometries extends Intersectable {
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray,double maxDistance) {
+        if (bvhEnabled) {
+            return getBVH().findGeoIntersections(ray, maxDistance);
+        }
         List<GeoPoint> result = null;
         for (Intersectable item : intersectables) {
             //Calls the findGeoIntersectionsHelper method on the current item
@@ -65,9 +130,53 @@ public class Geometries extends Intersectable {
         }
         return result;
     }
-}
-
 
+    /**
 
+     Finds the closest intersection of a given Ray with the geometries in this collection.
+     The distance of the closest intersection found so far is passed as the maximum distance to the next geometries.
+     The intersections are ranked by their ray parameter t, and on equal distances the geometry added first wins, as in a search of the list of all the intersections.
+     @param ray The Ray to intersect with the geometries.
+     @param maxDistance The maximum distance within which to search for the intersection.
+     @return The closest intersection, or null if there is none.
+     */
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double maxDistance) {
+        if (bvhEnabled) {
+            return getBVH().findClosestIntersection(ray, maxDistance);
+        }
+        Intersection closest = null;
+        for (Intersectable item : intersectables) {
+            Intersection intersection = item.findClosestIntersectionHelper(ray, maxDistance);
+            if (intersection != null && (closest == null || intersection.t < closest.t)) {
+                closest = intersection;
+                maxDistance = intersection.t;
+            }
+        }
+        return closest;
+    }
 
+    @Override
+    protected void findClosestIntersections(RayPacket packet, int[] lanes, int count) {
+        if (bvhEnabled) {
+            getBVH().findClosestIntersections(packet, lanes, count);
+            return;
+        }
+        for (Intersectable item : intersectables)
+            item.findClosestIntersections(packet, lanes, count);
+    }
 
+    @Override
+    public Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK, Geometry[] blocker) {
+        if (bvhEnabled) {
+            return getBVH().findTransparency(ray, maxDistance, ktr, minK, blocker);
+        }
+        for (Intersectable item : intersectables) {
+            ktr = item.findTransparency(ray, maxDistance, ktr, minK, blocker);
+            if (ktr.lowerThan(minK)) {
+                return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
+}
@@ -1,8 +1,11 @@
 package geometries;
 
 import primitives.Color;
+import primitives.Double3;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
+import primitives.Vec3;
 import primitives.Vector;
 
 /**
@@ -11,8 +14,27 @@ import primitives.Vector;
  * This class is abstract and should be subclassed to create specific types of geometry.
  */
 public abstract class Geometry extends Intersectable {
-    protected Color emission = Color.BLACK;
-    private Material material = new Material();
+    protected Color emission;
+    private Material material;
+
+    /**
+     * Constructs a geometry with a black emission and the default material.
+     */
+    protected Geometry() {
+        this(Color.BLACK, new Material());
+    }
+
+    /**
+     * Constructs a geometry with an emission and a material.
+     *
+     * @param emission The emission color.
+     * @param material The material.
+     */
+    protected Geometry(Color emission, Material material) {
+        this.emission = emission;
+        this.material = material;
+    }
+
     /**
      * Returns the emission color of the geometry.
      *
@@ -60,5 +82,70 @@ public abstract class Geometry extends Intersectable {
      * @return The normal vector at the given point.
      */
     public abstract Vector getNormal(Point point);
-}
 
+    /**
+     * Calculates the normal vector of a geometry at a given point into a scratch triad, for the shading that
+     * works without creating points and vectors. The default implementation delegates to
+     * {@link #getNormal(Point)}, geometries on the hot path of the shading override it.
+     *
+     * @param x      The x coordinate of the point on the geometry.
+     * @param y      The y coordinate of the point on the geometry.
+     * @param z      The z coordinate of the point on the geometry.
+     * @param normal The triad to set to the normal vector.
+     * @return The triad of the normal vector.
+     */
+    public Vec3 getNormal(double x, double y, double z, Vec3 normal) {
+        return normal.set(getNormal(new Point(x, y, z)));
+    }
+
+    /**
+     * Finds the distance of the closest intersection of a ray with the geometry up to a maximal distance,
+     * without creating the intersection point.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance along the ray
+     * @return the ray parameter t of the closest intersection, or positive infinity if there is none
+     */
+    protected abstract double findClosestDistance(Ray ray, double maxDistance);
+
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double maxDistance) {
+        double t = findClosestDistance(ray, maxDistance);
+        return t == Double.POSITIVE_INFINITY ? null : new Intersection(this, ray, t);
+    }
+
+    /**
+     * Counts the intersections of a ray with the geometry up to a maximal distance, without creating them.
+     * It must agree with {@link #findGeoIntersectionsHelper(Ray, double)} on the number of intersections.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance along the ray
+     * @return the number of intersections
+     */
+    protected abstract int countIntersections(Ray ray, double maxDistance);
+
+    /**
+     * Computes the transparency of the geometry along a shadow ray.
+     * The material transparency is applied once per intersection, and an opaque geometry blocks the ray at the first one.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance along the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the threshold below which the ray is considered fully blocked
+     * @param blocker     an array to set its first element to the geometry when it blocks the ray, or null
+     * @return the accumulated transparency, or {@link Double3#ZERO} if the ray is blocked
+     */
+    @Override
+    public Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK, Geometry[] blocker) {
+        int count = countIntersections(ray, maxDistance);
+        Double3 kt = getMaterial().getKt();
+        for (int i = 0; i < count; ++i) {
+            ktr = ktr.product(kt);
+            if (ktr.lowerThan(minK)) {
+                if (blocker != null) blocker[0] = this;
+                return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
+}
@@ -1,6 +1,8 @@
 package geometries;
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vector;
 import java.util.List;
 import java.util.Objects;
 
@@ -46,6 +48,69 @@ public abstract class Intersectable {
       }
    }
 
+   /**
+    * The Intersection class is a hit record of a ray with a geometry - the geometry and the ray parameter t.
+    * The intersection point and the normal at it are computed lazily, so that the closest hit search
+    * can rank and discard hits by t without creating any points.
+    */
+   public static class Intersection {
+      public final Geometry geometry;
+      public final Ray ray;
+      public final double t;
+      private Point point;
+      private Vector normal;
+
+      /**
+       * Constructs a hit record.
+       *
+       * @param geometry the intersected geometry
+       * @param ray      the intersecting ray
+       * @param t        the ray parameter of the intersection (the distance from the ray head)
+       */
+      public Intersection(Geometry geometry, Ray ray, double t) {
+         this.geometry = geometry;
+         this.ray = ray;
+         this.t = t;
+      }
+
+      /**
+       * Returns the intersection point, computing it on the first call.
+       *
+       * @return the intersection point
+       */
+      public Point getPoint() {
+         if (point == null) point = ray.getPoint(t);
+         return point;
+      }
+
+      /**
+       * Returns the normal of the geometry at the intersection point, computing it on the first call.
+       *
+       * @return the normal at the intersection point
+       */
+      public Vector getNormal() {
+         if (normal == null) normal = geometry.getNormal(getPoint());
+         return normal;
+      }
+
+      /**
+       * Converts the hit record to a GeoPoint.
+       *
+       * @return the GeoPoint of the intersection
+       */
+      public GeoPoint toGeoPoint() {
+         return new GeoPoint(geometry, getPoint());
+      }
+
+      @Override
+      public String toString() {
+         return "Intersection{" +
+                 "geometry=" + geometry +
+                 ", t=" + t +
+                 '}';
+      }
+   }
+
    /**
     * Finds the intersections between the intersectable object and a given ray.
     * Returns a list of intersection points.
@@ -80,5 +145,109 @@ public abstract class Intersectable {
     */
    protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance);
 
+   /**
+    * Finds the closest intersection between the intersectable object and a given ray.
+    *
+    * @param ray The ray to intersect with.
+    * @return The closest intersection, or null if there is none.
+    */
+   public final GeoPoint findClosestGeoIntersection(Ray ray) {
+      Intersection intersection = findClosestIntersection(ray);
+      return intersection == null ? null : intersection.toGeoPoint();
+   }
+
+   /**
+    * Finds the closest intersection between the intersectable object and a given ray as a hit record.
+    * No intersection point is created unless the caller asks the record for it.
+    *
+    * @param ray The ray to intersect with.
+    * @return The hit record of the closest intersection, or null if there is none.
+    */
+   public final Intersection findClosestIntersection(Ray ray) {
+      return findClosestIntersectionHelper(ray, Double.POSITIVE_INFINITY);
+   }
+
+   /**
+    * Finds the closest intersection between the intersectable object and a given ray within a maximum distance.
+    * Unlike {@link #findGeoIntersections(Ray, double)} it creates no lists - a collection passes the distance
+    * of the closest intersection found so far as the maximum distance of its next members, so they can
+    * reject their intersections early. The intersections are ranked by their ray parameter t.
+    *
+    * @param ray         The ray to intersect with.
+    * @param maxDistance The maximum distance within which to search for the intersection.
+    * @return The hit record of the closest intersection within the maximum distance, or null if there is none.
+    */
+   protected abstract Intersection findClosestIntersectionHelper(Ray ray, double maxDistance);
+
+   /**
+    * Finds the closest intersections of a packet of rays with the intersectable object.
+    * Each lane of the packet keeps its intersection unless a closer one is found.
+    *
+    * @param packet the packet of rays
+    */
+   public final void findClosestIntersections(RayPacket packet) {
+      int[] lanes = new int[packet.size];
+      for (int lane = 0; lane < packet.size; ++lane) lanes[lane] = lane;
+      findClosestIntersections(packet, lanes, packet.size);
+   }
+
+   /**
+    * Finds the closest intersections of some rays of a packet with the intersectable object.<br/>
+    * By default every ray is intersected on its own - the acceleration structures and the geometries with
+    * a cheap intersection kernel override it to handle the rays together.
+    *
+    * @param packet the packet of rays
+    * @param lanes  the lanes of the rays to intersect
+    * @param count  the number of the lanes to intersect (the beginning of the lanes array)
+    */
+   protected void findClosestIntersections(RayPacket packet, int[] lanes, int count) {
+      for (int i = 0; i < count; ++i) {
+         int lane = lanes[i];
+         Intersection intersection = findClosestIntersectionHelper(packet.rays[lane], packet.distances[lane]);
+         if (intersection != null) packet.offer(lane, intersection.geometry, intersection.t);
+      }
+   }
+
+   /**
+    * Computes the transparency of the object along a shadow ray - the product of the transparency
+    * coefficients (kT) of all the geometries the ray intersects up to the maximal distance.<br/>
+    * Unlike {@link #findGeoIntersections(Ray, double)} no intersection lists are created, and the search
+    * ends as soon as the accumulated transparency drops below the threshold, e.g. at the first opaque geometry.
+    *
+    * @param ray         the shadow ray
+    * @param maxDistance the maximal distance along the ray (the distance to the light source)
+    * @param ktr         the transparency accumulated so far
+    * @param minK        the threshold below which the ray is considered fully blocked
+    * @return the accumulated transparency, or {@link Double3#ZERO} if the ray is blocked
+    */
+   public final Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK) {
+      return findTransparency(ray, maxDistance, ktr, minK, null);
+   }
+
+   /**
+    * Computes the transparency of the object along a shadow ray as {@link #findTransparency(Ray, double, Double3,
+    * double)} does, and reports the geometry that blocked the ray - the one whose intersection dropped the
+    * accumulated transparency below the threshold (a face for a {@link TriangleMesh}).
+    *
+    * @param ray         the shadow ray
+    * @param maxDistance the maximal distance along the ray (the distance to the light source)
+    * @param ktr         the transparency accumulated so far
+    * @param minK        the threshold below which the ray is considered fully blocked
+    * @param blocker     an array to set its first element to the geometry that blocked the ray, or null
+    * @return the accumulated transparency, or {@link Double3#ZERO} if the ray is blocked
+    */
+   public abstract Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK,
+                                            Geometry[] blocker);
+
+   /**
+    * Returns the axis-aligned bounding box of the intersectable object.
+    * The acceleration structures use it to skip objects that a ray can't hit.
+    *
+    * @return the bounding box, or null if the object is unbounded (e.g. a plane or an infinite tube)
+    */
+   public BoundingBox getBoundingBox() {
+      return null;
+   }
+
 
 }
\ No newline at end of file
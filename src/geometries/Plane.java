@@ -2,6 +2,7 @@ package geometries;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3;
 import primitives.Vector;
 import static primitives.Util.*;
 import java.util.List;
@@ -77,6 +78,11 @@ public class Plane extends Geometry {
         return normal;
     }
 
+    @Override
+    public Vec3 getNormal(double x, double y, double z, Vec3 normal) {
+        return normal.set(this.normal);
+    }
+
     /**
      * Finds the intersections between a ray and the plane represented by this object within a maximum distance.
      *
@@ -85,40 +91,50 @@ public class Plane extends Geometry {
      * @return A list of geographic points that intersect with the ray within the specified maximum distance, or null if no intersections are found.
      */
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        // Get the starting point, direction, and normal vector of the ray and plane
-        Point P0 = ray.getP0();
-        Vector v = ray.getDir();
-        Vector n = normal;
+        double t = findClosestDistance(ray, maxDistance);
+        return t == Double.POSITIVE_INFINITY ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+    }
 
+    /**
+     * Finds the intersection between a ray and the plane within a maximum distance - there is at most one.
+     *
+     * @param ray         The ray representing the starting point and direction of the intersection search.
+     * @param maxDistance The maximum distance within which to search for the intersection.
+     * @return The distance of the intersection point from the ray head, or positive infinity if there is none.
+     */
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
         // Calculate the dot product between the normal vector and the direction vector of the ray
-        double nv = alignZero(n.dotProduct(v));
+        double nv = alignZero(normal.dotProduct(ray.getDir()));
 
         // If the ray is parallel to the plane, there are no intersections
         if (isZero(nv)) {
-            return null;
-        }
-
-        // If the starting point of the ray is equal to the reference point, there are no intersections
-        if (p0.equals(P0)) {
-            return null;
+            return Double.POSITIVE_INFINITY;
         }
 
-        // Calculate the dot product between the normal vector and the vector from the reference point to the starting point of the ray
-        Vector P0_Q0 = p0.subtract(P0);
-        double nP0Q0 = alignZero(n.dotProduct(P0_Q0));
+        // Calculate the dot product between the normal vector and the vector from the starting point of the ray
+        // to the reference point - on the coordinates, so that no zero vector is created when they coincide
+        Point P0 = ray.getP0();
+        double nP0Q0 = alignZero(normal.getX() * (p0.getX() - P0.getX())
+                + normal.getY() * (p0.getY() - P0.getY())
+                + normal.getZ() * (p0.getZ() - P0.getZ()));
+        // If the starting point of the ray is on the plane, there are no intersections
         if (isZero(nP0Q0)) {
-            return null;
+            return Double.POSITIVE_INFINITY;
         }
         // Calculate the parameter t for the intersection point
         double t = alignZero(nP0Q0 / nv);
 
-
         // If t is negative or greater than the maximum distance, there are no intersections
         if (t < 0 || alignZero(t - maxDistance) > 0) {
-            return null;
+            return Double.POSITIVE_INFINITY;
         }
 
-        // Return a list containing the intersection point as a GeoPoint
-        return List.of(new GeoPoint(this, ray.getPoint(t)));
+        return t;
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        return findClosestDistance(ray, maxDistance) == Double.POSITIVE_INFINITY ? 0 : 1;
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import java.util.List;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3;
 import primitives.Vector;
 
 /**
@@ -94,45 +95,93 @@ public class Polygon extends Geometry {
     }
 
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        List<GeoPoint> planeIntersections = plane.findGeoIntersections(ray);
+    public Vec3 getNormal(double x, double y, double z, Vec3 normal) {
+        return normal.set(plane.getNormal());
+    }
 
-        if (planeIntersections == null) {
-            return null;
-        }
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(vertices.toArray(new Point[size]));
+    }
 
-        Point P0 = ray.getP0();
-        Vector v = ray.getDir();
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double t = findClosestDistance(ray, maxDistance);
+        return t == Double.POSITIVE_INFINITY ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+    }
 
-        Point P1 = vertices.get(1);
-        Point P2 = vertices.get(0);
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
+        double t = plane.findClosestDistance(ray, maxDistance);
+        return t == Double.POSITIVE_INFINITY || !isInside(ray) ? Double.POSITIVE_INFINITY : t;
+    }
 
-        Vector v1 = P0.subtract(P1);
-        Vector v2 = P0.subtract(P2);
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        return plane.countIntersections(ray, maxDistance) == 1 && isInside(ray) ? 1 : 0;
+    }
 
-        double sign = alignZero(v.dotProduct(v1.crossProduct(v2)));
+    /**
+     * Checks whether a ray that intersects the plane of the polygon passes inside the polygon.
+     * The ray passes inside when it is on the same side of all the triangles formed by its head and the edges.
+     *
+     * @param ray the ray
+     * @return true if the intersection of the ray with the plane is inside the polygon (not on its edges)
+     */
+    protected boolean isInside(Ray ray) {
+        Point p0 = ray.getP0();
+        Vector v = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = v.getX(), dy = v.getY(), dz = v.getZ();
+
+        // The vectors from the vertices to the ray head are computed on the coordinates, so nothing is allocated
+        Point p = vertices.get(1);
+        double v1x = ox - p.getX(), v1y = oy - p.getY(), v1z = oz - p.getZ();
+        p = vertices.get(0);
+        double v2x = ox - p.getX(), v2y = oy - p.getY(), v2z = oz - p.getZ();
 
+        double sign = alignZero(side(dx, dy, dz, v1x, v1y, v1z, v2x, v2y, v2z));
         if (isZero(sign)) {
-            return null;
+            return false;
         }
 
         boolean positive = sign > 0;
-        for (int i = vertices.size() - 1; i > 0; --i) {
-            v1 = v2;
-            v2 = P0.subtract(vertices.get(i));
-
-            sign = alignZero(v.dotProduct(v1.crossProduct(v2)));
+        for (int i = size - 1; i > 0; --i) {
+            v1x = v2x;
+            v1y = v2y;
+            v1z = v2z;
+            p = vertices.get(i);
+            v2x = ox - p.getX();
+            v2y = oy - p.getY();
+            v2z = oz - p.getZ();
+
+            sign = alignZero(side(dx, dy, dz, v1x, v1y, v1z, v2x, v2y, v2z));
             if (isZero(sign)) {
-                return null;
+                return false;
             }
-
             if (positive != (sign > 0)) {
-                return null;
+                return false;
             }
         }
-        Point point = planeIntersections.get(0).point;
+        return true;
+    }
 
-        return List.of(new GeoPoint(this,point));
+    /**
+     * Computes the dot product of a direction with the cross product of two vectors.
+     *
+     * @param dx direction X
+     * @param dy direction Y
+     * @param dz direction Z
+     * @param ax first vector X
+     * @param ay first vector Y
+     * @param az first vector Z
+     * @param bx second vector X
+     * @param by second vector Y
+     * @param bz second vector Z
+     * @return d * (a x b)
+     */
+    private static double side(double dx, double dy, double dz,
+                               double ax, double ay, double az, double bx, double by, double bz) {
+        return dx * (ay * bz - by * az) + dy * (az * bx - bz * ax) + dz * (ax * by - bx * ay);
     }
 }
-
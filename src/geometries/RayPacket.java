@@ -0,0 +1,113 @@
+package geometries;
+
+import geometries.Intersectable.Intersection;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+/**
+ * A packet of rays that are traced together through the scene.<br/>
+ * The rays are kept in structure-of-arrays layout - an array per coordinate of the heads, the directions and
+ * their inverses - so that the acceleration structures test a node against all the rays of the packet at once,
+ * and the intersection kernels run a tight loop over the lanes. Each lane holds the closest intersection found
+ * so far for its ray.
+ */
+public class RayPacket {
+    /** The number of rays in the packet */
+    public final int size;
+    /** The rays of the packet */
+    final Ray[] rays;
+    /** Ray heads coordinates */
+    final double[] ox, oy, oz;
+    /** Ray directions coordinates */
+    final double[] dx, dy, dz;
+    /** Inverses of the ray directions coordinates, for the box tests */
+    final double[] invX, invY, invZ;
+    /** The distances of the closest intersections found so far - the maximal distances of the next ones */
+    final double[] distances;
+    /** The geometries of the closest intersections found so far, null for no intersection */
+    final Geometry[] geometries;
+    /**
+     * Whether the rays are coherent - all their directions are in the same octant, so that
+     * they visit the nodes of a hierarchy in the same order
+     */
+    final boolean coherent;
+
+    /**
+     * Constructs a packet of rays.
+     *
+     * @param rays the rays
+     * @throws IllegalArgumentException if there are no rays
+     */
+    public RayPacket(List<Ray> rays) {
+        size = rays.size();
+        if (size == 0)
+            throw new IllegalArgumentException("A packet must have rays");
+        this.rays = rays.toArray(new Ray[size]);
+        ox = new double[size];
+        oy = new double[size];
+        oz = new double[size];
+        dx = new double[size];
+        dy = new double[size];
+        dz = new double[size];
+        invX = new double[size];
+        invY = new double[size];
+        invZ = new double[size];
+        distances = new double[size];
+        geometries = new Geometry[size];
+        for (int lane = 0; lane < size; ++lane) {
+            Point p0 = this.rays[lane].getP0();
+            Vector dir = this.rays[lane].getDir();
+            ox[lane] = p0.getX();
+            oy[lane] = p0.getY();
+            oz[lane] = p0.getZ();
+            dx[lane] = dir.getX();
+            dy[lane] = dir.getY();
+            dz[lane] = dir.getZ();
+            invX[lane] = 1 / dx[lane];
+            invY[lane] = 1 / dy[lane];
+            invZ[lane] = 1 / dz[lane];
+            distances[lane] = Double.POSITIVE_INFINITY;
+        }
+        boolean sameOctant = true;
+        for (int lane = 1; lane < size && sameOctant; ++lane)
+            sameOctant = dx[lane] < 0 == dx[0] < 0 && dy[lane] < 0 == dy[0] < 0 && dz[lane] < 0 == dz[0] < 0;
+        coherent = sameOctant;
+    }
+
+    /**
+     * Returns a ray of the packet.
+     *
+     * @param lane the lane of the ray
+     * @return the ray
+     */
+    public Ray getRay(int lane) {
+        return rays[lane];
+    }
+
+    /**
+     * Returns the closest intersection found for a ray of the packet.
+     *
+     * @param lane the lane of the ray
+     * @return the hit record of the closest intersection, or null if there is none
+     */
+    public Intersection getIntersection(int lane) {
+        return geometries[lane] == null ? null : new Intersection(geometries[lane], rays[lane], distances[lane]);
+    }
+
+    /**
+     * Offers an intersection to a lane - it is kept if it is the first one or closer than the one found so far.
+     *
+     * @param lane     the lane of the ray
+     * @param geometry the intersected geometry
+     * @param t        the distance of the intersection, positive infinity for no intersection
+     */
+    void offer(int lane, Geometry geometry, double t) {
+        if (t != Double.POSITIVE_INFINITY && (geometries[lane] == null || t < distances[lane])) {
+            geometries[lane] = geometry;
+            distances[lane] = t;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package geometries;
+
+import java.util.Arrays;
+
+/**
+ * A bounding volume hierarchy packed in arrays, built with the surface area heuristic (SAH) - shared by the
+ * hierarchy of {@link Geometries} and the one of the faces of a {@link TriangleMesh}.<br/>
+ * The nodes are kept in depth-first order, so that a node is followed by its left child.
+ */
+final class SahHierarchy {
+    /** Number of buckets used for evaluating the split candidates on each axis */
+    private static final int BUCKETS = 12;
+    /** Cost of traversing a node relative to the cost of intersecting an item */
+    private static final double TRAVERSAL_COST = 0.125;
+
+    /** The boxes of the nodes - minX, minY, minZ, maxX, maxY, maxZ of each node */
+    final double[] bounds;
+    /**
+     * Two integers per node: the index of the right child and 0 for an inner node (the left child follows its
+     * parent), or the position of the first item in the order and the number of items for a leaf
+     */
+    final int[] nodes;
+    /** Depth of the hierarchy - the size of the traversal stack */
+    final int depth;
+
+    private final int[] order;
+    private final double[] itemBounds;
+    private final double[] centers;
+    private final int maxLeafSize;
+    private final double[] treeBounds;
+    private final int[] treeNodes;
+    private int count;
+    private int maxDepth;
+
+    /**
+     * Builds the hierarchy over items.
+     *
+     * @param itemBounds  the boxes of the items - minX, minY, minZ, maxX, maxY, maxZ of each item
+     * @param order       the indices of the items - reordered so that the items of each leaf are consecutive
+     * @param maxLeafSize a node with more items than that is always split
+     */
+    SahHierarchy(double[] itemBounds, int[] order, int maxLeafSize) {
+        this.order = order;
+        this.itemBounds = itemBounds;
+        this.maxLeafSize = maxLeafSize;
+        int n = order.length;
+        centers = new double[itemBounds.length / 2];
+        for (int item = 0; item < itemBounds.length / 6; ++item)
+            for (int axis = 0; axis < 3; ++axis)
+                centers[3 * item + axis] = (itemBounds[6 * item + axis] + itemBounds[6 * item + 3 + axis]) / 2;
+        int maxNodes = Math.max(1, 2 * n - 1);
+        treeBounds = new double[6 * maxNodes];
+        treeNodes = new int[2 * maxNodes];
+        if (n > 0) build(0, n, 1);
+        bounds = Arrays.copyOf(treeBounds, 6 * count);
+        nodes = Arrays.copyOf(treeNodes, 2 * count);
+        depth = maxDepth;
+    }
+
+    /**
+     * @return the number of the nodes
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Recursively builds the sub-tree over the items in the range [from, to) of the order
+     *
+     * @param from  the first position
+     * @param to    the position after the last one
+     * @param level the level of the built node
+     */
+    private void build(int from, int to, int level) {
+        maxDepth = Math.max(maxDepth, level);
+        int node = count++;
+        double[] centerBox = new double[6];
+        reset(centerBox, 0);
+        reset(treeBounds, 6 * node);
+        for (int i = from; i < to; ++i) {
+            include(treeBounds, 6 * node, itemBounds, 6 * order[i]);
+            includePoint(centerBox, centers, 3 * order[i]);
+        }
+        int n = to - from;
+        if (n == 1) {
+            leaf(node, from, n);
+            return;
+        }
+
+        // Find the cheapest split among the bucket borders of all three axes
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1, bestBucket = -1;
+        int[] counts = new int[BUCKETS];
+        double[] bucketBoxes = new double[6 * BUCKETS];
+        double[] rightArea = new double[BUCKETS];
+        int[] rightCount = new int[BUCKETS];
+        double[] acc = new double[6];
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = centerBox[axis], extent = centerBox[3 + axis] - min;
+            if (extent <= 0) continue;
+            Arrays.fill(counts, 0);
+            for (int b = 0; b < BUCKETS; ++b) reset(bucketBoxes, 6 * b);
+            for (int i = from; i < to; ++i) {
+                int b = bucket(centers[3 * order[i] + axis], min, extent);
+                ++counts[b];
+                include(bucketBoxes, 6 * b, itemBounds, 6 * order[i]);
+            }
+            // Sweep from the right to get the areas and counts of all the right-hand sides
+            reset(acc, 0);
+            int sum = 0;
+            for (int b = BUCKETS - 1; b > 0; --b) {
+                if (counts[b] > 0) include(acc, 0, bucketBoxes, 6 * b);
+                sum += counts[b];
+                rightArea[b] = sum == 0 ? 0 : surfaceArea(acc, 0);
+                rightCount[b] = sum;
+            }
+            reset(acc, 0);
+            sum = 0;
+            for (int b = 0; b < BUCKETS - 1; ++b) {
+                if (counts[b] > 0) include(acc, 0, bucketBoxes, 6 * b);
+                sum += counts[b];
+                if (sum == 0 || rightCount[b + 1] == 0) continue;
+                double cost = sum * surfaceArea(acc, 0) + rightCount[b + 1] * rightArea[b + 1];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBucket = b;
+                }
+            }
+        }
+
+        // All the centers coincide - nothing to split by
+        if (bestAxis < 0) {
+            leaf(node, from, n);
+            return;
+        }
+
+        double area = surfaceArea(treeBounds, 6 * node);
+        double splitCost = area > 0 ? TRAVERSAL_COST + bestCost / area : TRAVERSAL_COST + n;
+        if (n <= maxLeafSize && splitCost >= n) {
+            leaf(node, from, n);
+            return;
+        }
+
+        // Partition the items by the chosen bucket border
+        double min = centerBox[bestAxis], extent = centerBox[3 + bestAxis] - min;
+        int mid = from;
+        for (int i = from; i < to; ++i)
+            if (bucket(centers[3 * order[i] + bestAxis], min, extent) <= bestBucket) {
+                int item = order[i];
+                order[i] = order[mid];
+                order[mid++] = item;
+            }
+
+        build(from, mid, level + 1);
+        treeNodes[2 * node] = count;
+        treeNodes[2 * node + 1] = 0;
+        build(mid, to, level + 1);
+    }
+
+    private void leaf(int node, int first, int n) {
+        treeNodes[2 * node] = first;
+        treeNodes[2 * node + 1] = n;
+    }
+
+    private static int bucket(double center, double min, double extent) {
+        int b = (int) (BUCKETS * (center - min) / extent);
+        return b < BUCKETS ? b : BUCKETS - 1;
+    }
+
+    private static void reset(double[] box, int offset) {
+        Arrays.fill(box, offset, offset + 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(box, offset + 3, offset + 6, Double.NEGATIVE_INFINITY);
+    }
+
+    private static void include(double[] box, int offset, double[] other, int otherOffset) {
+        for (int axis = 0; axis < 3; ++axis) {
+            box[offset + axis] = Math.min(box[offset + axis], other[otherOffset + axis]);
+            box[offset + 3 + axis] = Math.max(box[offset + 3 + axis], other[otherOffset + 3 + axis]);
+        }
+    }
+
+    private static void includePoint(double[] box, double[] points, int offset) {
+        for (int axis = 0; axis < 3; ++axis) {
+            box[axis] = Math.min(box[axis], points[offset + axis]);
+            box[3 + axis] = Math.max(box[3 + axis], points[offset + axis]);
+        }
+    }
+
+    private static double surfaceArea(double[] box, int offset) {
+        double dx = box[offset + 3] - box[offset], dy = box[offset + 4] - box[offset + 1];
+        double dz = box[offset + 5] - box[offset + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+}
@@ -2,6 +2,7 @@ package geometries;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vec3;
 import primitives.Vector;
 import static primitives.Util.*;
 import java.util.List;
@@ -36,6 +37,12 @@ public class Sphere extends RadialGeometry {
         return center;
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
+
     /**
      * Calculates and returns the normal vector of the sphere at a given point.
      * Since a sphere is a symmetrical object, the normal at any point on the surface points directly outward.
@@ -48,6 +55,11 @@ public class Sphere extends RadialGeometry {
         Vector v = point.subtract(center);
         return v.normalize();
     }
+
+    @Override
+    public Vec3 getNormal(double x, double y, double z, Vec3 normal) {
+        return normal.set(x - center.getX(), y - center.getY(), z - center.getZ()).normalize();
+    }
     /**
      * Finds the intersections between a ray and the sphere represented by this object within a maximum distance.
      *
@@ -66,7 +78,8 @@ public class Sphere extends RadialGeometry {
             tm = ray.getDir().dotProduct(u);
 
             // Calculate the distance between the ray's start point and the point on the vector that is perpendicular to the ray's direction vector
-            d = Math.sqrt(u.dotProduct(u) - tm * tm);
+            double d2 = u.dotProduct(u) - tm * tm;
+            d = d2 > 0 ? Math.sqrt(d2) : 0;
         }
 
         // If the distance is greater than or equal to the sphere's radius, there are no intersections
@@ -95,4 +108,40 @@ public class Sphere extends RadialGeometry {
         // No intersections within the maximum distance
         return null;
     }
-}
\ No newline at end of file
+
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ux = center.getX() - p0.getX(), uy = center.getY() - p0.getY(), uz = center.getZ() - p0.getZ();
+        double tm = dir.getX() * ux + dir.getY() * uy + dir.getZ() * uz;
+        double d2 = ux * ux + uy * uy + uz * uz - tm * tm;
+        double d = d2 > 0 ? Math.sqrt(d2) : 0;
+        if (d >= radius) return Double.POSITIVE_INFINITY;
+
+        double th = Math.sqrt(radius * radius - d * d);
+        // t2 = tm - th is the nearer one - take it if it is in front of the ray head
+        double t = tm - th > 0 ? tm - th : tm + th;
+        return t > 0 && alignZero(t - maxDistance) <= 0 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        // u = center - p0, computed on the coordinates so that a ray from the center needs no special case
+        double ux = center.getX() - p0.getX(), uy = center.getY() - p0.getY(), uz = center.getZ() - p0.getZ();
+        double tm = dir.getX() * ux + dir.getY() * uy + dir.getZ() * uz;
+        double d2 = ux * ux + uy * uy + uz * uz - tm * tm;
+        double d = d2 > 0 ? Math.sqrt(d2) : 0;
+        if (d >= radius) return 0;
+
+        double th = Math.sqrt(radius * radius - d * d);
+        double t1 = tm + th;
+        double t2 = tm - th;
+        int count = 0;
+        if (t1 > 0 && alignZero(t1 - maxDistance) <= 0) ++count;
+        if (t2 > 0 && alignZero(t2 - maxDistance) <= 0) ++count;
+        return count;
+    }
+}
@@ -2,13 +2,19 @@ package geometries;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
-import java.util.List;
 import static primitives.Util.*;
 /**
  * The Triangle class represents a two-dimensional triangle in a 3D Cartesian coordinate system.
  * It extends the Polygon class, which is a collection of connected vertices.
  */
 public class Triangle extends Polygon {
+    /** The first vertex coordinates */
+    private final double v0x, v0y, v0z;
+    /** The edge from the first vertex to the second one */
+    private final double e1x, e1y, e1z;
+    /** The edge from the first vertex to the third one */
+    private final double e2x, e2y, e2z;
+
     @Override
     public String toString() {
         return "Triangle{" +
@@ -25,54 +31,83 @@ public class Triangle extends Polygon {
      */
     public Triangle(Point p1, Point p2, Point p3) {
         super(p1, p2, p3);
+        v0x = p1.getX();
+        v0y = p1.getY();
+        v0z = p1.getZ();
+        e1x = p2.getX() - v0x;
+        e1y = p2.getY() - v0y;
+        e1z = p2.getZ() - v0z;
+        e2x = p3.getX() - v0x;
+        e2y = p3.getY() - v0y;
+        e2z = p3.getZ() - v0z;
     }
 
-    /**
-     * Finds the intersections between a ray and the triangle represented by this object within a maximum distance.
-     *
-     * @param ray         The ray representing the starting point and direction of the intersection search.
-     * @param maxDistance The maximum distance within which to search for intersections.
-     * @return A list of geographic points that intersect with the ray within the specified maximum distance and lie on the triangle, or null if no intersections are found.
-     */
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        List<GeoPoint> intersections = plane.findGeoIntersections(ray, maxDistance);
-
-        // If there are no intersections with the plane, there can be no intersections with the triangle
-        if (intersections == null) {
-            return null;
-        }
-
-        Point P0 = ray.getP0();
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
         Vector v = ray.getDir();
+        return intersect(v0x, v0y, v0z, e1x, e1y, e1z, e2x, e2y, e2z,
+                p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ(), maxDistance);
+    }
 
-        Vector v1 = this.vertices.get(0).subtract(P0);
-        Vector v2 = this.vertices.get(1).subtract(P0);
-        Vector v3 = this.vertices.get(2).subtract(P0);
-
-        Vector n1 = v1.crossProduct(v2);
-        Vector n2 = v2.crossProduct(v3);
-        Vector n3 = v3.crossProduct(v1);
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        return findClosestDistance(ray, maxDistance) == Double.POSITIVE_INFINITY ? 0 : 1;
+    }
 
-        double s1 = v.dotProduct(n1);
-        if (isZero(s1)) {
-            return null;
-        }
-        double s2 = v.dotProduct(n2);
-        if (isZero(s2)) {
-            return null;
-        }
-        double s3 = v.dotProduct(n3);
-        if (isZero(s3)) {
-            return null;
+    @Override
+    protected void findClosestIntersections(RayPacket packet, int[] lanes, int count) {
+        for (int i = 0; i < count; ++i) {
+            int lane = lanes[i];
+            packet.offer(lane, this, intersect(v0x, v0y, v0z, e1x, e1y, e1z, e2x, e2y, e2z,
+                    packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                    packet.dx[lane], packet.dy[lane], packet.dz[lane], packet.distances[lane]));
         }
+    }
 
-        // If the dot products have the same sign, the ray intersects the triangle
-        if ((s1 > 0 && s2 > 0 && s3 > 0) || (s1 < 0 && s2 < 0 && s3 < 0)) {
-            Point point = intersections.get(0).point;
-            return List.of(new GeoPoint(this, point));
-        }
+    /**
+     * Intersects a ray with a triangle by the Möller–Trumbore algorithm - the barycentric coordinates of the
+     * intersection and its distance are solved together on the coordinates, so nothing is allocated.
+     * As with a polygon, an intersection on an edge or a vertex is not an intersection.
+     *
+     * @param v0x         first vertex X
+     * @param v0y         first vertex Y
+     * @param v0z         first vertex Z
+     * @param e1x         X of the edge from the first vertex to the second one
+     * @param e1y         Y of the edge from the first vertex to the second one
+     * @param e1z         Z of the edge from the first vertex to the second one
+     * @param e2x         X of the edge from the first vertex to the third one
+     * @param e2y         Y of the edge from the first vertex to the third one
+     * @param e2z         Z of the edge from the first vertex to the third one
+     * @param ox          ray head X
+     * @param oy          ray head Y
+     * @param oz          ray head Z
+     * @param dx          ray direction X
+     * @param dy          ray direction Y
+     * @param dz          ray direction Z
+     * @param maxDistance the maximal distance along the ray
+     * @return the distance of the intersection, or positive infinity if there is none
+     */
+    static double intersect(double v0x, double v0y, double v0z, double e1x, double e1y, double e1z,
+                            double e2x, double e2y, double e2z, double ox, double oy, double oz,
+                            double dx, double dy, double dz, double maxDistance) {
+        // p = d x e2
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        // the ray is parallel to the plane of the triangle
+        if (isZero(det)) return Double.POSITIVE_INFINITY;
+        double invDet = 1 / det;
+
+        double sx = ox - v0x, sy = oy - v0y, sz = oz - v0z;
+        double u = (sx * px + sy * py + sz * pz) * invDet;
+        if (u <= 0 || u >= 1) return Double.POSITIVE_INFINITY;
+
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double w = (dx * qx + dy * qy + dz * qz) * invDet;
+        if (w <= 0 || u + w >= 1) return Double.POSITIVE_INFINITY;
 
-        // No intersections with the triangle
-        return null;
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * invDet);
+        return t > 0 && alignZero(t - maxDistance) <= 0 ? t : Double.POSITIVE_INFINITY;
     }
 }
@@ -0,0 +1,552 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vec3;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.isZero;
+
+/**
+ * The TriangleMesh class represents a mesh of triangles that share their vertices and their appearance.<br/>
+ * The vertex coordinates are packed in a single array of doubles and the faces are triples of vertex indices,
+ * so a face takes a few dozens of bytes instead of the objects of a {@link Triangle}. The faces are kept
+ * in the order of the leaves of an internal bounding volume hierarchy, which is packed in arrays as well.<br/>
+ * The intersections of the mesh are reported on its {@link Face faces}, so that the normal at an
+ * intersection point is the one of the intersected face.
+ */
+public class TriangleMesh extends Geometry {
+    /** A node with more faces than that is always split */
+    private static final int MAX_LEAF_SIZE = 4;
+
+    /** The vertex coordinates - x, y, z of each vertex */
+    private final double[] vertices;
+    /** The vertex indices of the faces - three per face, in the order of the hierarchy leaves */
+    private final int[] faces;
+    /** The unit normals of the faces - x, y, z of each face */
+    private final double[] normals;
+    /** The boxes of the hierarchy nodes - minX, minY, minZ, maxX, maxY, maxZ of each node */
+    private final double[] bounds;
+    /**
+     * Two integers per hierarchy node: the index of the right child and 0 for an inner node (the left child
+     * follows its parent), or the first face and the number of faces for a leaf
+     */
+    private final int[] nodes;
+    /** Depth of the hierarchy - the size of the traversal stack */
+    private final int depth;
+
+    /**
+     * The scratch arrays of the traversals of a thread, shared by all the meshes - a traversal doesn't query
+     * another geometry, so they are never in use twice
+     */
+    private static final class Traversal {
+        /** The stack of the nodes to visit */
+        int[] stack = new int[0];
+        /** The entry distances of the nodes in the stack */
+        double[] entries = new double[0];
+        /** The faces intersected by the last traversal, when they are recorded */
+        int[] hits = new int[1];
+        /** The distances of the recorded intersections */
+        double[] distances = new double[1];
+
+        /**
+         * Grows the stack to a size.
+         *
+         * @param size the size of the stack
+         */
+        void reserve(int size) {
+            if (stack.length < size) {
+                stack = new int[size];
+                entries = new double[size];
+            }
+        }
+
+        /**
+         * Records an intersection, growing the arrays as needed.
+         *
+         * @param index    the index of the intersection in the traversal
+         * @param face     the intersected face
+         * @param distance the distance of the intersection
+         */
+        void record(int index, int face, double distance) {
+            if (index == hits.length) {
+                hits = Arrays.copyOf(hits, 2 * index);
+                distances = Arrays.copyOf(distances, 2 * index);
+            }
+            hits[index] = face;
+            distances[index] = distance;
+        }
+    }
+
+    private static final ThreadLocal<Traversal> TRAVERSAL = ThreadLocal.withInitial(Traversal::new);
+
+    /**
+     * A face of the mesh as a geometry of its own. The faces are created only for the intersections,
+     * and they read the emission and the material of the mesh until they are given their own - setting them
+     * on a face changes that face only, the appearance of the whole mesh is set on {@link #getMesh()}.
+     */
+    public final class Face extends Geometry {
+        private final int index;
+
+        private Face(int index) {
+            super(null, null); // the appearance of the mesh
+            this.index = index;
+        }
+
+        /**
+         * @return the mesh of the face
+         */
+        public TriangleMesh getMesh() {
+            return TriangleMesh.this;
+        }
+
+        @Override
+        public Color getEmission() {
+            Color emission = super.getEmission();
+            return emission != null ? emission : TriangleMesh.this.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            Material material = super.getMaterial();
+            return material != null ? material : TriangleMesh.this.getMaterial();
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return new Vector(normals[3 * index], normals[3 * index + 1], normals[3 * index + 2]);
+        }
+
+        @Override
+        public Vec3 getNormal(double x, double y, double z, Vec3 normal) {
+            return normal.set(normals[3 * index], normals[3 * index + 1], normals[3 * index + 2]);
+        }
+
+        @Override
+        public BoundingBox getBoundingBox() {
+            return new BoundingBox(getVertex(faces[3 * index]), getVertex(faces[3 * index + 1]),
+                    getVertex(faces[3 * index + 2]));
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            double t = findClosestDistance(ray, maxDistance);
+            return t == Double.POSITIVE_INFINITY ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+        }
+
+        @Override
+        protected double findClosestDistance(Ray ray, double maxDistance) {
+            Point p0 = ray.getP0();
+            Vector dir = ray.getDir();
+            return intersectFace(index, p0.getX(), p0.getY(), p0.getZ(), dir.getX(), dir.getY(), dir.getZ(),
+                    maxDistance);
+        }
+
+        @Override
+        protected int countIntersections(Ray ray, double maxDistance) {
+            return findClosestDistance(ray, maxDistance) == Double.POSITIVE_INFINITY ? 0 : 1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            return o instanceof Face face && face.getMesh() == getMesh() && face.index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(getMesh()) * 31 + index;
+        }
+
+        @Override
+        public String toString() {
+            return "Face{" + getVertex(faces[3 * index]) + ", " + getVertex(faces[3 * index + 1]) + ", "
+                    + getVertex(faces[3 * index + 2]) + '}';
+        }
+    }
+
+    /**
+     * Constructs a mesh from packed vertex coordinates and faces.
+     *
+     * @param vertices the vertex coordinates - x, y, z of each vertex
+     * @param faces    the faces - three vertex indices per face
+     * @throws IllegalArgumentException if the arrays are not of triples, a face refers to a vertex that doesn't
+     *                                  exist, or the vertices of a face lay on the same line
+     */
+    public TriangleMesh(double[] vertices, int... faces) {
+        if (vertices.length % 3 != 0)
+            throw new IllegalArgumentException("The vertex coordinates must be triples");
+        if (faces.length == 0 || faces.length % 3 != 0)
+            throw new IllegalArgumentException("A mesh must have faces of three vertices");
+        int vertexCount = vertices.length / 3;
+        for (int vertex : faces)
+            if (vertex < 0 || vertex >= vertexCount)
+                throw new IllegalArgumentException("A face refers to a vertex that doesn't exist: " + vertex);
+
+        this.vertices = vertices.clone();
+        int n = faces.length / 3;
+
+        // The boxes of the faces are needed only for building the hierarchy
+        double[] faceBounds = new double[6 * n];
+        for (int f = 0; f < n; ++f)
+            for (int axis = 0; axis < 3; ++axis) {
+                double a = vertices[3 * faces[3 * f] + axis];
+                double b = vertices[3 * faces[3 * f + 1] + axis];
+                double c = vertices[3 * faces[3 * f + 2] + axis];
+                faceBounds[6 * f + axis] = Math.min(a, Math.min(b, c));
+                faceBounds[6 * f + 3 + axis] = Math.max(a, Math.max(b, c));
+            }
+
+        int[] order = new int[n];
+        for (int f = 0; f < n; ++f) order[f] = f;
+        SahHierarchy hierarchy = new SahHierarchy(faceBounds, order, MAX_LEAF_SIZE);
+        bounds = hierarchy.bounds;
+        nodes = hierarchy.nodes;
+        depth = hierarchy.depth;
+
+        // Store the faces in the order of the leaves, together with their normals
+        this.faces = new int[3 * n];
+        normals = new double[3 * n];
+        for (int f = 0; f < n; ++f) {
+            System.arraycopy(faces, 3 * order[f], this.faces, 3 * f, 3);
+            computeNormal(f);
+        }
+    }
+
+    /**
+     * Constructs a mesh from vertex points and faces.
+     *
+     * @param vertices the vertices
+     * @param faces    the faces - three indices in the vertices array per face
+     * @throws IllegalArgumentException as {@link #TriangleMesh(double[], int...)}
+     */
+    public TriangleMesh(Point[] vertices, int... faces) {
+        this(pack(vertices), faces);
+    }
+
+    private static double[] pack(Point[] points) {
+        double[] coordinates = new double[3 * points.length];
+        for (int i = 0; i < points.length; ++i) {
+            // unused entries (e.g. a placeholder at index 0) are allowed as long as no face refers to them
+            if (points[i] == null) continue;
+            coordinates[3 * i] = points[i].getX();
+            coordinates[3 * i + 1] = points[i].getY();
+            coordinates[3 * i + 2] = points[i].getZ();
+        }
+        return coordinates;
+    }
+
+    /**
+     * Computes the normal of a face the way the {@link Plane} of a {@link Triangle} does.
+     *
+     * @param f the face
+     * @throws IllegalArgumentException if the vertices of the face lay on the same line
+     */
+    private void computeNormal(int f) {
+        int a = 3 * faces[3 * f], b = 3 * faces[3 * f + 1], c = 3 * faces[3 * f + 2];
+        double ux = vertices[a] - vertices[b], uy = vertices[a + 1] - vertices[b + 1], uz = vertices[a + 2] - vertices[b + 2];
+        double vx = vertices[a] - vertices[c], vy = vertices[a + 1] - vertices[c + 1], vz = vertices[a + 2] - vertices[c + 2];
+        double nx = uy * vz - vy * uz, ny = uz * vx - vz * ux, nz = ux * vy - vx * uy;
+        if (isZero(nx) && isZero(ny) && isZero(nz))
+            throw new IllegalArgumentException("The vertices of a face can't lay on the same line");
+        double scale = 1 / Math.sqrt(nx * nx + ny * ny + nz * nz);
+        normals[3 * f] = nx * scale;
+        normals[3 * f + 1] = ny * scale;
+        normals[3 * f + 2] = nz * scale;
+    }
+
+    /**
+     * @return the number of faces of the mesh
+     */
+    public int getFaceCount() {
+        return faces.length / 3;
+    }
+
+    /**
+     * Returns a vertex of the mesh.
+     *
+     * @param vertex the vertex index
+     * @return the vertex point
+     */
+    public Point getVertex(int vertex) {
+        return new Point(vertices[3 * vertex], vertices[3 * vertex + 1], vertices[3 * vertex + 2]);
+    }
+
+    /**
+     * Returns the normal of the face closest to the point - the normal of the mesh at a point on it.
+     * The search goes over all the faces, so the shading takes the normal from the {@link Face} of the
+     * intersection instead.
+     *
+     * @param point the point
+     * @return the unit normal of the closest face
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        int face = closestFace(point.getX(), point.getY(), point.getZ());
+        return new Vector(normals[3 * face], normals[3 * face + 1], normals[3 * face + 2]);
+    }
+
+    @Override
+    public Vec3 getNormal(double x, double y, double z, Vec3 normal) {
+        int face = closestFace(x, y, z);
+        return normal.set(normals[3 * face], normals[3 * face + 1], normals[3 * face + 2]);
+    }
+
+    /**
+     * Finds the face closest to a point.
+     *
+     * @param x the X coordinate of the point
+     * @param y the Y coordinate of the point
+     * @param z the Z coordinate of the point
+     * @return the index of the closest face
+     */
+    private int closestFace(double x, double y, double z) {
+        int closest = 0;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        for (int face = 0, n = faces.length / 3; face < n; ++face) {
+            double distance = distanceSquared(face, x, y, z);
+            if (distance < closestDistance) {
+                closestDistance = distance;
+                closest = face;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Calculates the squared distance of a point from a face, by the closest point of the triangle - in its
+     * interior, on an edge or at a vertex, according to the region of the point.
+     *
+     * @param face the face
+     * @param x    the X coordinate of the point
+     * @param y    the Y coordinate of the point
+     * @param z    the Z coordinate of the point
+     * @return the squared distance
+     */
+    private double distanceSquared(int face, double x, double y, double z) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        double ax = vertices[a], ay = vertices[a + 1], az = vertices[a + 2];
+        double abx = vertices[b] - ax, aby = vertices[b + 1] - ay, abz = vertices[b + 2] - az;
+        double acx = vertices[c] - ax, acy = vertices[c + 1] - ay, acz = vertices[c + 2] - az;
+        double apx = x - ax, apy = y - ay, apz = z - az;
+        double d1 = abx * apx + aby * apy + abz * apz, d2 = acx * apx + acy * apy + acz * apz;
+        double u, v; // the closest point is A + u * AB + v * AC
+        if (d1 <= 0 && d2 <= 0) {
+            u = v = 0;
+        } else {
+            double bpx = apx - abx, bpy = apy - aby, bpz = apz - abz;
+            double d3 = abx * bpx + aby * bpy + abz * bpz, d4 = acx * bpx + acy * bpy + acz * bpz;
+            double cpx = apx - acx, cpy = apy - acy, cpz = apz - acz;
+            double d5 = abx * cpx + aby * cpy + abz * cpz, d6 = acx * cpx + acy * cpy + acz * cpz;
+            double va = d3 * d6 - d5 * d4, vb = d5 * d2 - d1 * d6, vc = d1 * d4 - d3 * d2;
+            if (d3 >= 0 && d4 <= d3) { // vertex B
+                u = 1;
+                v = 0;
+            } else if (d6 >= 0 && d5 <= d6) { // vertex C
+                u = 0;
+                v = 1;
+            } else if (vc <= 0 && d1 >= 0 && d3 <= 0) { // edge AB
+                u = d1 / (d1 - d3);
+                v = 0;
+            } else if (vb <= 0 && d2 >= 0 && d6 <= 0) { // edge AC
+                u = 0;
+                v = d2 / (d2 - d6);
+            } else if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) { // edge BC
+                v = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+                u = 1 - v;
+            } else { // interior
+                double denominator = 1 / (va + vb + vc);
+                u = vb * denominator;
+                v = vc * denominator;
+            }
+        }
+        double dx = apx - u * abx - v * acx, dy = apy - u * aby - v * acy, dz = apz - u * abz - v * acz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+    }
+
+    /**
+     * Intersects a ray with a face by the kernel of {@link Triangle}, with the edges taken from the shared vertices.
+     *
+     * @param face        the face
+     * @param ox          ray head X
+     * @param oy          ray head Y
+     * @param oz          ray head Z
+     * @param dx          ray direction X
+     * @param dy          ray direction Y
+     * @param dz          ray direction Z
+     * @param maxDistance the maximal distance along the ray
+     * @return the distance of the intersection, or positive infinity if there is none
+     */
+    private double intersectFace(int face, double ox, double oy, double oz, double dx, double dy, double dz,
+                                 double maxDistance) {
+        int a = 3 * faces[3 * face], b = 3 * faces[3 * face + 1], c = 3 * faces[3 * face + 2];
+        double v0x = vertices[a], v0y = vertices[a + 1], v0z = vertices[a + 2];
+        return Triangle.intersect(v0x, v0y, v0z,
+                vertices[b] - v0x, vertices[b + 1] - v0y, vertices[b + 2] - v0z,
+                vertices[c] - v0x, vertices[c + 1] - v0y, vertices[c + 2] - v0z,
+                ox, oy, oz, dx, dy, dz, maxDistance);
+    }
+
+    /**
+     * Computes the entry distance of a ray into the box of a node.
+     */
+    private double enterNode(int node, double ox, double oy, double oz, double invX, double invY, double invZ,
+                             double maxDistance) {
+        int i = 6 * node;
+        return BoundingBox.intersect(bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3], bounds[i + 4],
+                bounds[i + 5], ox, oy, oz, invX, invY, invZ, maxDistance);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        int found = visitFaces(ray, maxDistance, true, Integer.MAX_VALUE);
+        if (found == 0) return null;
+        Traversal traversal = TRAVERSAL.get();
+        List<GeoPoint> result = new LinkedList<>();
+        for (int i = 0; i < found; ++i)
+            result.add(new GeoPoint(new Face(traversal.hits[i]), ray.getPoint(traversal.distances[i])));
+        return result;
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        return visitFaces(ray, maxDistance, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Computes the transparency of the mesh along a shadow ray. When the first intersection blocks the ray,
+     * the search stops at any intersection instead of counting all of them, and the intersected face is the
+     * blocker.
+     */
+    @Override
+    public Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK, Geometry[] blocker) {
+        if (!ktr.product(getMaterial().getKt()).lowerThan(minK))
+            return super.findTransparency(ray, maxDistance, ktr, minK, blocker);
+        if (visitFaces(ray, maxDistance, blocker != null, 1) == 0) return ktr;
+        if (blocker != null) blocker[0] = new Face(TRAVERSAL.get().hits[0]);
+        return Double3.ZERO;
+    }
+
+    /**
+     * Visits the faces intersected by a ray in the hierarchy.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance along the ray
+     * @param record      true for recording the intersected faces and their distances in the scratch of the
+     *                    thread, false for counting them only
+     * @param limit       the number of intersections after which the search stops
+     * @return the number of intersections found
+     */
+    private int visitFaces(Ray ray, double maxDistance, boolean record, int limit) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        int found = 0;
+        Traversal traversal = TRAVERSAL.get();
+        traversal.reserve(depth);
+        int[] stack = traversal.stack;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (enterNode(node, ox, oy, oz, invX, invY, invZ, maxDistance) == Double.POSITIVE_INFINITY) continue;
+            int count = nodes[2 * node + 1];
+            if (count == 0) {
+                stack[top++] = nodes[2 * node];
+                stack[top++] = node + 1;
+                continue;
+            }
+            for (int face = nodes[2 * node], end = face + count; face < end; ++face) {
+                double t = intersectFace(face, ox, oy, oz, dx, dy, dz, maxDistance);
+                if (t == Double.POSITIVE_INFINITY) continue;
+                if (record) traversal.record(found, face, t);
+                if (++found == limit) return found;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
+        Intersection intersection = findClosestIntersectionHelper(ray, maxDistance);
+        return intersection == null ? Double.POSITIVE_INFINITY : intersection.t;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the faces. The nodes are visited front to back,
+     * and a node is skipped when the ray enters its box farther than the closest intersection found so far.
+     * Only the closest face is given a {@link Face} object.
+     */
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        double entry = enterNode(0, ox, oy, oz, invX, invY, invZ, maxDistance);
+        if (entry == Double.POSITIVE_INFINITY) return null;
+        int closestFace = -1;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        Traversal traversal = TRAVERSAL.get();
+        traversal.reserve(depth);
+        int[] stack = traversal.stack;
+        double[] entries = traversal.entries;
+        int top = 0;
+        stack[top] = 0;
+        entries[top++] = entry;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entries[top] > maxDistance * BoundingBox.ROUNDING) continue;
+            int count = nodes[2 * node + 1];
+            if (count > 0) {
+                for (int face = nodes[2 * node], end = face + count; face < end; ++face) {
+                    double t = intersectFace(face, ox, oy, oz, dx, dy, dz, maxDistance);
+                    if (t < closestDistance) {
+                        closestFace = face;
+                        closestDistance = t;
+                        maxDistance = t;
+                    }
+                }
+                continue;
+            }
+            // push the farther child first, so that the nearer one is visited first
+            int near = node + 1, far = nodes[2 * node];
+            double nearEntry = enterNode(near, ox, oy, oz, invX, invY, invZ, maxDistance);
+            double farEntry = enterNode(far, ox, oy, oz, invX, invY, invZ, maxDistance);
+            if (farEntry < nearEntry) {
+                int tmp = near;
+                near = far;
+                far = tmp;
+                double tmpEntry = nearEntry;
+                nearEntry = farEntry;
+                farEntry = tmpEntry;
+            }
+            if (farEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = far;
+                entries[top++] = farEntry;
+            }
+            if (nearEntry != Double.POSITIVE_INFINITY) {
+                stack[top] = near;
+                entries[top++] = nearEntry;
+            }
+        }
+        return closestFace < 0 ? null : new Intersection(new Face(closestFace), ray, closestDistance);
+    }
+}
@@ -64,83 +64,90 @@ public class Tube extends RadialGeometry {
         return N.normalize();
     }
 
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray,double maxDistance){
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double first = findDistance(ray, maxDistance, 0);
+        if (Double.isNaN(first)) return null;
+        double second = findDistance(ray, maxDistance, 1);
+        if (Double.isNaN(second)) return List.of(new GeoPoint(this, ray.getPoint(first)));
+        return List.of(new GeoPoint(this, ray.getPoint(second)), new GeoPoint(this, ray.getPoint(first)));
+    }
+
+    @Override
+    protected double findClosestDistance(Ray ray, double maxDistance) {
+        double t = findDistance(ray, maxDistance, 0);
+        return Double.isNaN(t) ? Double.POSITIVE_INFINITY : t;
+    }
+
+    @Override
+    protected int countIntersections(Ray ray, double maxDistance) {
+        if (Double.isNaN(findDistance(ray, maxDistance, 0))) return 0;
+        return Double.isNaN(findDistance(ray, maxDistance, 1)) ? 1 : 2;
+    }
+
+    /**
+     * Finds the distance of an intersection of a ray with the geometry, without creating any objects - the
+     * closest intersection costs a single solution of the equation.
+     * The equation At^2+Bt+C=0 is built on the coordinates of the components of the ray direction and of the
+     * vector from the axis head to the ray head that are orthogonal to the axis, so that no zero vectors
+     * can be created on the way.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance along the ray
+     * @param index       0 for the closest intersection, 1 for the second one
+     * @return the distance of the intersection, or NaN if there is no such intersection (the others are behind
+     * the ray head, beyond the maximal distance or outside the geometry)
+     */
+    private double findDistance(Ray ray, double maxDistance, int index) {
         Vector vAxis = axisRay.getDir();
+        Point axisP0 = axisRay.getP0();
         Vector v = ray.getDir();
         Point p0 = ray.getP0();
 
-        // At^2+Bt+C=0
-        double a = 0;
-        double b = 0;
-        double c = 0;
-
-        double vVa = alignZero(v.dotProduct(vAxis));
-        Vector vVaVa;
-        Vector vMinusVVaVa;
-        if (vVa == 0) // the ray is orthogonal to the axis
-            vMinusVVaVa = v;
-        else {
-            vVaVa = vAxis.scale(vVa);
-            try {
-                vMinusVVaVa = v.subtract(vVaVa);
-            } catch (IllegalArgumentException e1) { // the rays is parallel to axis
-                return null;
-            }
-        }
         // A = (v-(v*va)*va)^2
-        a = vMinusVVaVa.lengthSquared();
-
-        Vector deltaP = null;
-        try {
-            deltaP = p0.subtract(axisRay.getP0());
-        } catch (IllegalArgumentException e1) { // the ray begins at axis P0
-            if (vVa == 0) // the ray is orthogonal to Axis
-                return List.of(new GeoPoint(this,ray.getPoint(radius)));
-
-            double t = alignZero(Math.sqrt(radius * radius / vMinusVVaVa.lengthSquared()));
-            return t == 0 ? null : List.of( new GeoPoint(this, ray.getPoint(t)));
-        }
+        double vVa = alignZero(v.dotProduct(vAxis));
+        double vx = v.getX() - vVa * vAxis.getX(), vy = v.getY() - vVa * vAxis.getY(), vz = v.getZ() - vVa * vAxis.getZ();
+        double a = vx * vx + vy * vy + vz * vz;
+        if (isZero(a)) return Double.NaN; // the ray is parallel to the axis
 
-        double dPVAxis = alignZero(deltaP.dotProduct(vAxis));
-        Vector dPVaVa;
-        Vector dPMinusdPVaVa;
-        if (dPVAxis == 0)
-            dPMinusdPVaVa = deltaP;
-        else {
-            try {
-                dPVaVa = vAxis.scale(dPVAxis);
-                dPMinusdPVaVa = deltaP.subtract(dPVaVa);
-            } catch (IllegalArgumentException e1) {
-                double t = alignZero(Math.sqrt(radius * radius / a));
-                return t == 0 ? null : List.of((new GeoPoint(this,ray.getPoint(t))));
-            }
-        }
+        double dx = p0.getX() - axisP0.getX(), dy = p0.getY() - axisP0.getY(), dz = p0.getZ() - axisP0.getZ();
+        double dPVAxis = alignZero(dx * vAxis.getX() + dy * vAxis.getY() + dz * vAxis.getZ());
+        dx -= dPVAxis * vAxis.getX();
+        dy -= dPVAxis * vAxis.getY();
+        dz -= dPVAxis * vAxis.getZ();
 
         // B = 2(v - (v*va)*va) * (dp - (dp*va)*va))
-        b = 2 * alignZero(vMinusVVaVa.dotProduct(dPMinusdPVaVa));
-        c = dPMinusdPVaVa.lengthSquared() - radius * radius;
+        double b = 2 * alignZero(vx * dx + vy * dy + vz * dz);
+        double c = dx * dx + dy * dy + dz * dz - radius * radius;
 
         // A*t^2 + B*t + C = 0 - lets resolve it
         double discr = alignZero(b * b - 4 * a * c);
-        if (discr <= 0) return null; // the ray is outside or tangent to the tube
+        if (discr <= 0) return Double.NaN; // the ray is outside or tangent to the tube
 
         double doubleA = 2 * a;
         double tm = alignZero(-b / doubleA);
         double th = Math.sqrt(discr) / doubleA;
-        if (isZero(th)) return null; // the ray is tangent to the tube
+        if (isZero(th)) return Double.NaN; // the ray is tangent to the tube
 
         double t1 = alignZero(tm + th);
-        if (t1 <= 0) // t1 is behind the head
-            return null; // since th must be positive (sqrt), t2 must be non-positive as t1
+        if (t1 <= 0) return Double.NaN; // t1 is behind the head, and t2 is before it
 
         double t2 = alignZero(tm - th);
+        boolean near = t2 > 0 && alignZero(t2 - maxDistance) <= 0 && isAlongAxis(dPVAxis + t2 * vVa);
+        if (near && index == 0) return t2;
+        boolean far = alignZero(t1 - maxDistance) <= 0 && isAlongAxis(dPVAxis + t1 * vVa);
+        // the far intersection is the first one when the near one is missing, and the second one otherwise
+        return far && index == (near ? 1 : 0) ? t1 : Double.NaN;
+    }
 
-        // if both t1 and t2 are positive
-        if (t2 > 0)
-            return List.of(new GeoPoint(this,ray.getPoint(t1)), (new GeoPoint(this,ray.getPoint(t2))));
-        else // t2 is behind the head
-            return List.of((new GeoPoint(this,ray.getPoint(t1))));
-
-//        return null;
+    /**
+     * Checks whether a point of the tube surface belongs to the geometry, by its projection on the axis.
+     * A tube is infinite, so every point belongs to it.
+     *
+     * @param axisDistance the signed distance of the point projection on the axis from the axis head
+     * @return true if the point belongs to the geometry
+     */
+    protected boolean isAlongAxis(double axisDistance) {
+        return true;
     }
 }
\ No newline at end of file
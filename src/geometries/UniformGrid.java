@@ -0,0 +1,419 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * This class represents a collection of intersectable geometries organized in a uniform grid.<br/>
+ * It has the same contract as {@link Geometries}, but a ray visits only the grid cells it passes through
+ * (3D digital differential analyzer traversal), which suits dense and evenly spread scenes such as
+ * tessellated floors and walls. The resolution of the grid is chosen automatically from the number of
+ * geometries and the bounds of the scene. Unbounded geometries (planes, tubes) are kept out of the grid
+ * and tested by every ray.
+ */
+public class UniformGrid extends Intersectable {
+    /** Desired average number of cells per geometry */
+    private static final double DENSITY = 3;
+    /** Maximal number of cells along each axis */
+    private static final int MAX_RESOLUTION = 128;
+
+    /**
+     * The geometries of the grid
+     */
+    private final List<Intersectable> intersectables = new LinkedList<>();
+
+    /**
+     * The cells, built lazily on the first search and dropped whenever the collection changes
+     */
+    private volatile Cells cells = null;
+
+    /**
+     * Per thread "mailboxes" - the stamp of the last search in which each geometry was tested,
+     * so that a geometry overlapping several cells is tested only once per ray
+     */
+    private final ThreadLocal<Mailbox> mailbox = new ThreadLocal<>();
+
+    /**
+     * Constructs an empty grid
+     */
+    public UniformGrid() {
+    }
+
+    /**
+     * Constructs a grid of the given geometries
+     *
+     * @param intersectable the geometries
+     */
+    public UniformGrid(Intersectable... intersectable) {
+        add(intersectable);
+    }
+
+    /**
+     * Adds geometries to the grid
+     *
+     * @param intersectable the geometries to add
+     */
+    public void add(Intersectable... intersectable) {
+        Collections.addAll(intersectables, intersectable);
+        cells = null;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = null;
+        for (Intersectable item : intersectables) {
+            BoundingBox itemBox = item.getBoundingBox();
+            if (itemBox == null) return null;
+            box = itemBox.union(box);
+        }
+        return box;
+    }
+
+    /**
+     * Returns the cells of the grid, building them if the collection was changed since the last search
+     *
+     * @return the cells
+     */
+    private Cells getCells() {
+        Cells result = cells;
+        if (result == null) {
+            synchronized (this) {
+                result = cells;
+                if (result == null)
+                    cells = result = new Cells(intersectables);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the mailbox of the current thread for the given cells, with a new stamp for a new search
+     *
+     * @param grid the cells searched
+     * @return the mailbox
+     */
+    private Mailbox getMailbox(Cells grid) {
+        Mailbox box = mailbox.get();
+        if (box == null || box.stamps.length != grid.items.length) {
+            box = new Mailbox(grid.items.length);
+            mailbox.set(box);
+        }
+        if (++box.stamp == 0) { // wrapped around - forget the old stamps
+            Arrays.fill(box.stamps, 0);
+            box.stamp = 1;
+        }
+        return box;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        Cells grid = getCells();
+        List<GeoPoint> result = null;
+        for (Intersectable item : grid.unbounded)
+            result = addAll(result, item.findGeoIntersectionsHelper(ray, maxDistance));
+
+        Traversal walk = grid.traverse(ray, maxDistance);
+        if (walk == null) return result;
+        Mailbox box = getMailbox(grid);
+        do {
+            for (int k = grid.cellStart[walk.cell]; k < grid.cellStart[walk.cell + 1]; ++k) {
+                int index = grid.cellItems[k];
+                if (box.stamps[index] == box.stamp) continue;
+                box.stamps[index] = box.stamp;
+                result = addAll(result, grid.items[index].findGeoIntersectionsHelper(ray, maxDistance));
+            }
+        } while (walk.next());
+        return result;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the geometries of the grid.<br/>
+     * The cells are visited in the order the ray passes through them, and the traversal stops as soon as
+     * the closest intersection found is closer than the boundary of the next cell.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance of the intersection from the ray head
+     * @return the closest intersection, or null if there is none
+     */
+    @Override
+    protected Intersection findClosestIntersectionHelper(Ray ray, double maxDistance) {
+        Cells grid = getCells();
+        Intersection closest = null;
+        for (Intersectable item : grid.unbounded) {
+            Intersection intersection = item.findClosestIntersectionHelper(ray, maxDistance);
+            if (intersection != null && (closest == null || intersection.t < closest.t)) {
+                closest = intersection;
+                maxDistance = intersection.t;
+            }
+        }
+
+        Traversal walk = grid.traverse(ray, maxDistance);
+        if (walk == null) return closest;
+        Mailbox box = getMailbox(grid);
+        do {
+            for (int k = grid.cellStart[walk.cell]; k < grid.cellStart[walk.cell + 1]; ++k) {
+                int index = grid.cellItems[k];
+                if (box.stamps[index] == box.stamp) continue;
+                box.stamps[index] = box.stamp;
+                Intersection intersection = grid.items[index].findClosestIntersectionHelper(ray, maxDistance);
+                if (intersection != null && (closest == null || intersection.t < closest.t)) {
+                    closest = intersection;
+                    maxDistance = intersection.t;
+                }
+            }
+            // no geometry in the following cells can be closer than the boundary of the current cell
+            if (maxDistance <= walk.exitDistance()) break;
+        } while (walk.next());
+        return closest;
+    }
+
+    @Override
+    public Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK, Geometry[] blocker) {
+        Cells grid = getCells();
+        for (Intersectable item : grid.unbounded) {
+            ktr = item.findTransparency(ray, maxDistance, ktr, minK, blocker);
+            if (ktr.lowerThan(minK)) return Double3.ZERO;
+        }
+
+        Traversal walk = grid.traverse(ray, maxDistance);
+        if (walk == null) return ktr;
+        Mailbox box = getMailbox(grid);
+        do {
+            for (int k = grid.cellStart[walk.cell]; k < grid.cellStart[walk.cell + 1]; ++k) {
+                int index = grid.cellItems[k];
+                if (box.stamps[index] == box.stamp) continue;
+                box.stamps[index] = box.stamp;
+                ktr = grid.items[index].findTransparency(ray, maxDistance, ktr, minK, blocker);
+                if (ktr.lowerThan(minK)) return Double3.ZERO;
+            }
+        } while (walk.next());
+        return ktr;
+    }
+
+    private static List<GeoPoint> addAll(List<GeoPoint> result, List<GeoPoint> itemList) {
+        if (itemList == null) return result;
+        if (result == null) result = new LinkedList<>();
+        result.addAll(itemList);
+        return result;
+    }
+
+    /**
+     * Per thread stamps of the geometries tested in the current search
+     */
+    private static final class Mailbox {
+        final int[] stamps;
+        int stamp = 0;
+
+        Mailbox(int size) {
+            stamps = new int[size];
+        }
+    }
+
+    /**
+     * The immutable cell structure of the grid. The geometry indices of cell c are stored in
+     * cellItems[cellStart[c]] .. cellItems[cellStart[c + 1] - 1].
+     */
+    private static final class Cells {
+        final Intersectable[] unbounded;
+        final Intersectable[] items;
+        final int[] cellStart;
+        final int[] cellItems;
+        final BoundingBox box;
+        final int nX, nY, nZ;
+        final double sizeX, sizeY, sizeZ;
+        /** Widening of the geometry boxes, so that rounding errors of the walk can't skip a geometry */
+        final double pad;
+
+        Cells(List<Intersectable> intersectables) {
+            List<Intersectable> bounded = new ArrayList<>();
+            List<Intersectable> others = new ArrayList<>();
+            List<BoundingBox> boxes = new ArrayList<>();
+            BoundingBox sceneBox = null;
+            for (Intersectable item : intersectables) {
+                BoundingBox itemBox = item.getBoundingBox();
+                if (itemBox == null) {
+                    others.add(item);
+                } else {
+                    bounded.add(item);
+                    boxes.add(itemBox);
+                    sceneBox = itemBox.union(sceneBox);
+                }
+            }
+            unbounded = others.toArray(new Intersectable[0]);
+            items = bounded.toArray(new Intersectable[0]);
+            int n = items.length;
+
+            if (n == 0) {
+                box = null;
+                nX = nY = nZ = 0;
+                sizeX = sizeY = sizeZ = 0;
+                pad = 0;
+                cellStart = new int[1];
+                cellItems = new int[0];
+                return;
+            }
+
+            // Flat scenes (e.g. a single axis aligned floor) still need a positive thickness in each axis
+            double dx = sceneBox.maxX - sceneBox.minX, dy = sceneBox.maxY - sceneBox.minY, dz = sceneBox.maxZ - sceneBox.minZ;
+            pad = Math.max(Math.max(dx, dy), Math.max(dz, 1)) * 1e-6;
+            box = new BoundingBox(sceneBox.minX - pad, sceneBox.minY - pad, sceneBox.minZ - pad,
+                    sceneBox.maxX + pad, sceneBox.maxY + pad, sceneBox.maxZ + pad);
+            dx += 2 * pad;
+            dy += 2 * pad;
+            dz += 2 * pad;
+
+            // Cleary's rule: cells along each axis proportional to its extent, DENSITY * n cells in total
+            double factor = Math.cbrt(DENSITY * n / (dx * dy * dz));
+            nX = resolution(dx * factor);
+            nY = resolution(dy * factor);
+            nZ = resolution(dz * factor);
+            sizeX = dx / nX;
+            sizeY = dy / nY;
+            sizeZ = dz / nZ;
+
+            // Two passes over the overlapped cells - counting, then filling
+            int cellCount = nX * nY * nZ;
+            cellStart = new int[cellCount + 1];
+            int[][] ranges = new int[n][];
+            for (int i = 0; i < n; ++i) {
+                int[] r = ranges[i] = cellRange(boxes.get(i));
+                for (int z = r[2]; z <= r[5]; ++z)
+                    for (int y = r[1]; y <= r[4]; ++y)
+                        for (int x = r[0]; x <= r[3]; ++x)
+                            ++cellStart[cellIndex(x, y, z) + 1];
+            }
+            for (int c = 0; c < cellCount; ++c)
+                cellStart[c + 1] += cellStart[c];
+            cellItems = new int[cellStart[cellCount]];
+            int[] fill = new int[cellCount];
+            for (int i = 0; i < n; ++i) {
+                int[] r = ranges[i];
+                for (int z = r[2]; z <= r[5]; ++z)
+                    for (int y = r[1]; y <= r[4]; ++y)
+                        for (int x = r[0]; x <= r[3]; ++x) {
+                            int c = cellIndex(x, y, z);
+                            cellItems[cellStart[c] + fill[c]++] = i;
+                        }
+            }
+        }
+
+        private static int resolution(double cells) {
+            return Math.max(1, Math.min(MAX_RESOLUTION, (int) Math.round(cells)));
+        }
+
+        int cellIndex(int x, int y, int z) {
+            return (z * nY + y) * nX + x;
+        }
+
+        private int clamp(int value, int n) {
+            return value < 0 ? 0 : value >= n ? n - 1 : value;
+        }
+
+        /**
+         * Returns the range of the cells overlapped by a box: {x0, y0, z0, x1, y1, z1}
+         */
+        private int[] cellRange(BoundingBox b) {
+            return new int[]{
+                    clamp((int) ((b.minX - pad - box.minX) / sizeX), nX),
+                    clamp((int) ((b.minY - pad - box.minY) / sizeY), nY),
+                    clamp((int) ((b.minZ - pad - box.minZ) / sizeZ), nZ),
+                    clamp((int) ((b.maxX + pad - box.minX) / sizeX), nX),
+                    clamp((int) ((b.maxY + pad - box.minY) / sizeY), nY),
+                    clamp((int) ((b.maxZ + pad - box.minZ) / sizeZ), nZ)};
+        }
+
+        /**
+         * Starts a traversal of the cells along a ray
+         *
+         * @param ray         the ray
+         * @param maxDistance the maximal distance along the ray
+         * @return the traversal positioned at the first cell, or null if the ray misses the grid
+         */
+        Traversal traverse(Ray ray, double maxDistance) {
+            if (box == null) return null;
+            Point p0 = ray.getP0();
+            Vector dir = ray.getDir();
+            double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+            double vx = dir.getX(), vy = dir.getY(), vz = dir.getZ();
+            double tEntry = box.intersect(ox, oy, oz, 1 / vx, 1 / vy, 1 / vz, maxDistance);
+            if (tEntry == Double.POSITIVE_INFINITY) return null;
+            return new Traversal(this, ox + vx * tEntry, oy + vy * tEntry, oz + vz * tEntry, vx, vy, vz,
+                    tEntry, maxDistance);
+        }
+    }
+
+    /**
+     * The state of a 3D-DDA walk through the cells (Amanatides & Woo)
+     */
+    private static final class Traversal {
+        private final Cells grid;
+        private int x, y, z;
+        private final int stepX, stepY, stepZ;
+        private double tMaxX, tMaxY, tMaxZ;
+        private final double tDeltaX, tDeltaY, tDeltaZ;
+        private final double maxDistance;
+        int cell;
+
+        Traversal(Cells grid, double px, double py, double pz, double vx, double vy, double vz,
+                  double tEntry, double maxDistance) {
+            this.grid = grid;
+            this.maxDistance = maxDistance;
+            x = grid.clamp((int) ((px - grid.box.minX) / grid.sizeX), grid.nX);
+            y = grid.clamp((int) ((py - grid.box.minY) / grid.sizeY), grid.nY);
+            z = grid.clamp((int) ((pz - grid.box.minZ) / grid.sizeZ), grid.nZ);
+
+            stepX = vx > 0 ? 1 : vx < 0 ? -1 : 0;
+            stepY = vy > 0 ? 1 : vy < 0 ? -1 : 0;
+            stepZ = vz > 0 ? 1 : vz < 0 ? -1 : 0;
+            tDeltaX = stepX == 0 ? Double.POSITIVE_INFINITY : grid.sizeX / Math.abs(vx);
+            tDeltaY = stepY == 0 ? Double.POSITIVE_INFINITY : grid.sizeY / Math.abs(vy);
+            tDeltaZ = stepZ == 0 ? Double.POSITIVE_INFINITY : grid.sizeZ / Math.abs(vz);
+            tMaxX = stepX == 0 ? Double.POSITIVE_INFINITY
+                    : tEntry + (grid.box.minX + (x + (stepX > 0 ? 1 : 0)) * grid.sizeX - px) / vx;
+            tMaxY = stepY == 0 ? Double.POSITIVE_INFINITY
+                    : tEntry + (grid.box.minY + (y + (stepY > 0 ? 1 : 0)) * grid.sizeY - py) / vy;
+            tMaxZ = stepZ == 0 ? Double.POSITIVE_INFINITY
+                    : tEntry + (grid.box.minZ + (z + (stepZ > 0 ? 1 : 0)) * grid.sizeZ - pz) / vz;
+            cell = grid.cellIndex(x, y, z);
+        }
+
+        /**
+         * @return the distance along the ray at which it leaves the current cell
+         */
+        double exitDistance() {
+            return Math.min(tMaxX, Math.min(tMaxY, tMaxZ));
+        }
+
+        /**
+         * Steps to the next cell along the ray
+         *
+         * @return false if the ray left the grid or passed the maximal distance
+         */
+        boolean next() {
+            if (exitDistance() > maxDistance) return false;
+            if (tMaxX < tMaxY && tMaxX < tMaxZ) {
+                x += stepX;
+                if (x < 0 || x >= grid.nX) return false;
+                tMaxX += tDeltaX;
+            } else if (tMaxY < tMaxZ) {
+                y += stepY;
+                if (y < 0 || y >= grid.nY) return false;
+                tMaxY += tDeltaY;
+            } else {
+                z += stepZ;
+                if (z < 0 || z >= grid.nZ) return false;
+                tMaxZ += tDeltaZ;
+            }
+            cell = grid.cellIndex(x, y, z);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package lighting;
+
+import primitives.*;
+import primitives.Point;
+import sampling.Sampler;
+import sampling.SobolSampler;
+
+/**
+ * The AreaLight class represents a light source with an emitting surface, which casts soft shadows.
+ * It lights like a point light at the center of its surface, and its shadows are sampled with shadow rays to
+ * points on the surface.<br/>
+ * The sampling is adaptive: a few probe rays are cast first, and the whole budget of shadow rays is cast only
+ * in the penumbra, where the probes disagree - a fully lit or a fully shadowed point costs the probes only.
+ */
+public abstract class AreaLight extends PointLight {
+    private int shadowRays = 16;
+    private int probeRays = 4;
+    private Sampler sampler = new SobolSampler();
+
+    /**
+     * Constructs an AreaLight object with the specified intensity and the center of its surface.
+     *
+     * @param intensity The color intensity of the light.
+     * @param position  The center of the surface of the light.
+     */
+    protected AreaLight(Color intensity, Point position) {
+        super(intensity, position);
+    }
+
+    /**
+     * Sets the budget of shadow rays of a point in the penumbra.
+     *
+     * @param shadowRays The number of shadow rays, including the probes.
+     * @return The modified AreaLight object.
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    public AreaLight setShadowRays(int shadowRays) {
+        if (shadowRays <= 0)
+            throw new IllegalArgumentException("The number of shadow rays must be positive");
+        this.shadowRays = shadowRays;
+        return this;
+    }
+
+    /**
+     * Sets the number of the probe rays, which decide whether a point is in the penumbra.
+     *
+     * @param probeRays The number of probe rays - the number of shadow rays when it is larger.
+     * @return The modified AreaLight object.
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    public AreaLight setProbeRays(int probeRays) {
+        if (probeRays <= 0)
+            throw new IllegalArgumentException("The number of probe rays must be positive");
+        this.probeRays = probeRays;
+        return this;
+    }
+
+    /**
+     * Sets the sampler of the points on the surface. The probes are the first samples of a point, so a sampler
+     * whose prefixes are stratified (the default Sobol sampler) spreads them over the whole surface.
+     *
+     * @param sampler The sampler.
+     * @return The modified AreaLight object.
+     * @throws IllegalArgumentException if the sampler is null
+     */
+    public AreaLight setSampler(Sampler sampler) {
+        if (sampler == null)
+            throw new IllegalArgumentException("The sampler must not be null");
+        this.sampler = sampler;
+        return this;
+    }
+
+    /**
+     * Returns the budget of shadow rays of a point in the penumbra.
+     *
+     * @return The number of shadow rays.
+     */
+    public int getShadowRays() {
+        return shadowRays;
+    }
+
+    /**
+     * Returns the number of the probe rays.
+     *
+     * @return The number of probe rays, at most the number of shadow rays.
+     */
+    public int getProbeRays() {
+        return Math.min(probeRays, shadowRays);
+    }
+
+    /**
+     * Returns the sampler of the points on the surface.
+     *
+     * @return The sampler.
+     */
+    public Sampler getSampler() {
+        return sampler;
+    }
+
+    /**
+     * Maps a sample of the unit square to a point on the surface of the light.
+     *
+     * @param points The samples, as pairs of coordinates in the range [0, 1) - the mapping may change them.
+     * @param index  The index of the sample.
+     * @param point  The triad to set to the point on the surface.
+     * @return The triad of the point.
+     */
+    public abstract Vec3 getSamplePoint(double[] points, int index, Vec3 point);
+}
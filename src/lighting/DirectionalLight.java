@@ -2,6 +2,7 @@ package lighting;
 
 import primitives.Color;
 import primitives.Point;
+import primitives.Vec3;
 import primitives.Vector;
 
 /**
@@ -42,6 +43,21 @@ public class DirectionalLight extends Light implements LightSource {
     public Vector getL(Point point) {
         return direction;
     }
+
+    @Override
+    public Vec3 getL(double x, double y, double z, Vec3 l) {
+        return l.set(direction);
+    }
+
+    @Override
+    public Color getIntensity(double x, double y, double z) {
+        return getIntensity();
+    }
+
+    @Override
+    public double getDistance(double x, double y, double z) {
+        return Double.POSITIVE_INFINITY;
+    }
     @Override
     public double getDistance(Point point){
         return Double.POSITIVE_INFINITY;
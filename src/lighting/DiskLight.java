@@ -0,0 +1,43 @@
+package lighting;
+
+import primitives.*;
+import primitives.Point;
+import primitives.Vector;
+import sampling.Sampler;
+
+/**
+ * The DiskLight class represents a round area light source in a scene, like a lamp shade or the sun in the sky.
+ */
+public class DiskLight extends AreaLight {
+    private final Vector u;
+    private final Vector v;
+
+    /**
+     * Constructs a DiskLight object with the specified intensity, center, orientation and radius.
+     *
+     * @param intensity The color intensity of the light.
+     * @param position  The center of the disk.
+     * @param normal    The normal of the disk.
+     * @param radius    The radius of the disk.
+     * @throws IllegalArgumentException if the radius is not positive
+     */
+    public DiskLight(Color intensity, Point position, Vector normal, double radius) {
+        super(intensity, position);
+        if (radius <= 0)
+            throw new IllegalArgumentException("The radius of a disk must be positive");
+        normal = normal.normalize();
+        // any axis that isn't parallel to the normal spans the plane of the disk with it
+        Vector axis = Math.abs(normal.getX()) < 0.9 ? new Vector(1, 0, 0) : new Vector(0, 1, 0);
+        this.u = normal.crossProduct(axis).normalize().scale(radius);
+        this.v = normal.crossProduct(u);
+    }
+
+    @Override
+    public Vec3 getSamplePoint(double[] points, int index, Vec3 point) {
+        Sampler.toDisk(points, index);
+        double a = points[2 * index], b = points[2 * index + 1];
+        return point.set(position.getX() + u.getX() * a + v.getX() * b,
+                position.getY() + u.getY() * a + v.getY() * b,
+                position.getZ() + u.getZ() * a + v.getZ() * b);
+    }
+}
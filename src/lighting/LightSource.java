@@ -29,4 +29,54 @@ public interface LightSource {
      * @return the distance between the light source and the given point
      */
     public double getDistance(Point point);
+
+    /**
+     * Returns the color intensity of the light at the given point, for the shading that works on coordinates.
+     *
+     * @param x The x coordinate of the point in the scene.
+     * @param y The y coordinate of the point in the scene.
+     * @param z The z coordinate of the point in the scene.
+     * @return The color intensity of the light.
+     */
+    default Color getIntensity(double x, double y, double z) {
+        return getIntensity(new Point(x, y, z));
+    }
+
+    /**
+     * Sets a scratch triad to the direction vector of the light at the given point, for the shading that works
+     * without creating points and vectors.
+     *
+     * @param x The x coordinate of the point in the scene.
+     * @param y The y coordinate of the point in the scene.
+     * @param z The z coordinate of the point in the scene.
+     * @param l The triad to set to the direction vector.
+     * @return The triad of the direction vector.
+     */
+    default Vec3 getL(double x, double y, double z, Vec3 l) {
+        return l.set(getL(new Point(x, y, z)));
+    }
+
+    /**
+     * Returns the distance between the light source and the given point, for the shading that works on
+     * coordinates.
+     *
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @param z The z coordinate of the point.
+     * @return the distance between the light source and the given point
+     */
+    default double getDistance(double x, double y, double z) {
+        return getDistance(new Point(x, y, z));
+    }
+
+    /**
+     * Returns the radius of the influence of the light - beyond it the intensity of the light is below a cutoff
+     * in every channel, so the light can't contribute visibly to the points there.
+     *
+     * @param cutoff The intensity below which a light is invisible.
+     * @return The radius, or infinity for a light that may be visible at any distance.
+     */
+    default double getInfluenceRadius(double cutoff) {
+        return Double.POSITIVE_INFINITY;
+    }
 }
@@ -8,8 +8,10 @@ import primitives.Point;
  * It extends the Light class and implements the LightSource interface.
  */
 public class PointLight extends Light implements LightSource {
+    /** The radius beyond which a light that is still visible is taken as visible at any distance */
+    private static final double MAX_INFLUENCE_RADIUS = 1E12;
 
-    private Point position;
+    protected Point position;
     private Double3 Kc = Double3.ONE;
     private Double3 Kl = Double3.ZERO;
     private Double3 Kq = Double3.ZERO;
@@ -81,9 +83,14 @@ public class PointLight extends Light implements LightSource {
      */
     @Override
     public Color getIntensity(Point point) {
+        return getIntensity(point.getX(), point.getY(), point.getZ());
+    }
+
+    @Override
+    public Color getIntensity(double x, double y, double z) {
         Color Ic = getIntensity();
-        double distance = point.distance(position);
-        double distanceSquared = point.distanceSquared(position);
+        double distanceSquared = distanceSquared(x, y, z);
+        double distance = Math.sqrt(distanceSquared);
         Double3 factor = Kc.add(Kl.scale(distance).add(Kq.scale(distanceSquared)));
         return Ic.reduce(factor);
     }
@@ -98,8 +105,78 @@ public class PointLight extends Light implements LightSource {
     public Vector getL(Point point) {
         return point.subtract(position).normalize();
     }
+
+    @Override
+    public Vec3 getL(double x, double y, double z, Vec3 l) {
+        return l.set(x - position.getX(), y - position.getY(), z - position.getZ()).normalize();
+    }
+
+    /**
+     * Returns the position of the light source.
+     *
+     * @return The position.
+     */
+    public Point getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the distance at which the attenuated intensity falls below the cutoff in every channel, found by
+     * bisection - the attenuation grows with the distance as long as its factors are not negative.
+     *
+     * @param cutoff The intensity below which a light is invisible.
+     * @return The radius, 0 for a light that is invisible everywhere, or infinity for a light that isn't
+     * attenuated below the cutoff.
+     */
+    @Override
+    public double getInfluenceRadius(double cutoff) {
+        if (!isVisible(0, cutoff)) return 0;
+        double near = 0, far = 1;
+        while (isVisible(far, cutoff)) {
+            if (far > MAX_INFLUENCE_RADIUS) return Double.POSITIVE_INFINITY;
+            near = far;
+            far *= 2;
+        }
+        for (int i = 0; i < 50 && far - near > far * 1E-9; ++i) {
+            double middle = (near + far) / 2;
+            if (isVisible(middle, cutoff)) near = middle;
+            else far = middle;
+        }
+        return far;
+    }
+
+    /**
+     * Checks whether the attenuated intensity of the light at a distance reaches a cutoff in any channel.
+     *
+     * @param distance The distance from the light.
+     * @param cutoff   The intensity below which a light is invisible.
+     * @return true if the light is visible at the distance
+     */
+    private boolean isVisible(double distance, double cutoff) {
+        Color intensity = getIntensity().reduce(Kc.add(Kl.scale(distance).add(Kq.scale(distance * distance))));
+        return Math.max(intensity.getRed(), Math.max(intensity.getGreen(), intensity.getBlue())) >= cutoff;
+    }
+
     @Override
     public double getDistance(Point point){
         return point.distance(this.position);
     }
+
+    @Override
+    public double getDistance(double x, double y, double z) {
+        return Math.sqrt(distanceSquared(x, y, z));
+    }
+
+    /**
+     * Calculates the squared distance of a point from the light, as {@link Point#distanceSquared(Point)} does.
+     *
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @param z The z coordinate of the point.
+     * @return The squared distance.
+     */
+    private double distanceSquared(double x, double y, double z) {
+        double dx = x - position.getX(), dy = y - position.getY(), dz = z - position.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
 }
@@ -0,0 +1,40 @@
+package lighting;
+
+import primitives.*;
+import primitives.Point;
+import primitives.Vector;
+
+import static primitives.Util.isZero;
+
+/**
+ * The RectangleLight class represents a rectangular area light source in a scene, like a ceiling panel or a window.
+ */
+public class RectangleLight extends AreaLight {
+    private final Vector width;
+    private final Vector height;
+
+    /**
+     * Constructs a RectangleLight object with the specified intensity, center and edges.
+     *
+     * @param intensity The color intensity of the light.
+     * @param position  The center of the rectangle.
+     * @param width     The vector of the first edge of the rectangle - its length is the width.
+     * @param height    The vector of the second edge of the rectangle - its length is the height.
+     * @throws IllegalArgumentException if the edges are not orthogonal
+     */
+    public RectangleLight(Color intensity, Point position, Vector width, Vector height) {
+        super(intensity, position);
+        if (!isZero(width.dotProduct(height)))
+            throw new IllegalArgumentException("The edges of a rectangle must be orthogonal");
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public Vec3 getSamplePoint(double[] points, int index, Vec3 point) {
+        double u = points[2 * index] - 0.5, v = points[2 * index + 1] - 0.5;
+        return point.set(position.getX() + width.getX() * u + height.getX() * v,
+                position.getY() + width.getY() * u + height.getY() * v,
+                position.getZ() + width.getZ() * u + height.getZ() * v);
+    }
+}
@@ -46,8 +46,16 @@ public class SpotLight extends PointLight {
      */
     @Override
     public Color getIntensity(Point point) {
-        Color Ic = super.getIntensity(point);
-        double lDir = getL(point).dotProduct(direction);
+        return getIntensity(point.getX(), point.getY(), point.getZ());
+    }
+
+    @Override
+    public Color getIntensity(double x, double y, double z) {
+        Color Ic = super.getIntensity(x, y, z);
+        // the direction to the point, normalized as getL does
+        double lx = x - position.getX(), ly = y - position.getY(), lz = z - position.getZ();
+        double scale = 1 / Math.sqrt(lx * lx + ly * ly + lz * lz);
+        double lDir = lx * scale * direction.getX() + ly * scale * direction.getY() + lz * scale * direction.getZ();
         double max = Math.max(0, lDir);
         // For the bonus of getting a spotlight source with a narrower skin beam
         max = Math.pow(max, narrowBeam);
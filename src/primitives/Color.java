@@ -8,7 +8,7 @@ package primitives;
 public class Color {
    /** The internal fields maintain RGB components as double numbers from 0 to
     * whatever... */
-   private final Double3 rgb;
+   final Double3 rgb;
 
    /** Black color = (0,0,0) */
    public static final Color BLACK = new Color();
@@ -53,6 +53,37 @@ public class Color {
       return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
    }
 
+   /** Color getter - returns the color packed into an int, as {@link java.awt.Color#getRGB()} of
+    * {@link #getColor()} does, without creating a java.awt.Color object. Any component bigger than 255 is set
+    * to 255
+    * @return the packed alpha (opaque) and RGB components */
+   public int getRGB() {
+      int ir = (int) rgb.d1;
+      int ig = (int) rgb.d2;
+      int ib = (int) rgb.d3;
+      return 0xFF000000 | (ir > 255 ? 255 : ir) << 16 | (ig > 255 ? 255 : ig) << 8 | (ib > 255 ? 255 : ib);
+   }
+
+   /** Red component getter
+    * @return the red component, without upper limit */
+   public double getRed() { return rgb.d1; }
+
+   /** Green component getter
+    * @return the green component, without upper limit */
+   public double getGreen() { return rgb.d2; }
+
+   /** Blue component getter
+    * @return the blue component, without upper limit */
+   public double getBlue() { return rgb.d3; }
+
+   /** Operation of adding this and another color (by component), without the array of
+    * {@link #add(Color...)}
+    * @param  color the other color to add
+    * @return       new Color object which is a result of the operation */
+   public Color add(Color color) {
+      return new Color(rgb.d1 + color.rgb.d1, rgb.d2 + color.rgb.d2, rgb.d3 + color.rgb.d3);
+   }
+
    /** Operation of adding this and one or more other colors (by component)
     * @param  colors one or more other colors to add
     * @return        new Color object which is a result of the operation */
@@ -0,0 +1,117 @@
+package primitives;
+
+/**
+ * A mutable color for the inner loops of the renderer - averaging samples, summing the contributions of the
+ * lights and adaptive super sampling.<br/>
+ * Every operation of {@link Color} creates a new triad and a new color, and checks the components again. An
+ * accumulator is updated in place, and the components are validated once, when the result is turned into a
+ * color. An accumulator must be confined to a single thread.<br/>
+ * The operations use the same arithmetic as the ones of {@link Color}, so the results are identical to theirs.
+ */
+public final class ColorAccumulator {
+    /** The accumulated RGB components */
+    private double r, g, b;
+
+    /**
+     * Sets the accumulator to black.
+     *
+     * @return this accumulator - for chaining
+     */
+    public ColorAccumulator reset() {
+        r = g = b = 0;
+        return this;
+    }
+
+    /**
+     * Sets the accumulator to a color.
+     *
+     * @param color the color
+     * @return this accumulator - for chaining
+     */
+    public ColorAccumulator set(Color color) {
+        r = color.rgb.d1;
+        g = color.rgb.d2;
+        b = color.rgb.d3;
+        return this;
+    }
+
+    /**
+     * Adds a color, as {@link Color#add(Color...)} does.
+     *
+     * @param color the color to add
+     * @return this accumulator - for chaining
+     */
+    public ColorAccumulator add(Color color) {
+        r += color.rgb.d1;
+        g += color.rgb.d2;
+        b += color.rgb.d3;
+        return this;
+    }
+
+    /**
+     * Adds a color reduced by a factor, as adding {@link Color#reduce(double)} does - the share of a sample
+     * in an average.
+     *
+     * @param color the color to add
+     * @param k     the reduction factor
+     * @return this accumulator - for chaining
+     */
+    public ColorAccumulator add(Color color, double k) {
+        r += color.rgb.d1 / k;
+        g += color.rgb.d2 / k;
+        b += color.rgb.d3 / k;
+        return this;
+    }
+
+    /**
+     * Adds another accumulated color scaled by a triad that is scaled by a scalar - the diffuse or specular
+     * contribution of a light, as adding {@code color.scale(k.scale(s))} does.
+     *
+     * @param color the accumulated color to add
+     * @param k     the scale factor per rgb
+     * @param s     the scale factor of the triad
+     * @return this accumulator - for chaining
+     */
+    public ColorAccumulator add(ColorAccumulator color, Double3 k, double s) {
+        r += color.r * (k.d1 * s);
+        g += color.g * (k.d2 * s);
+        b += color.b * (k.d3 * s);
+        return this;
+    }
+
+    /**
+     * Scales the accumulated color by a triad per rgb, as {@link Color#scale(Double3)} does.
+     *
+     * @param k the scale factor per rgb
+     * @return this accumulator - for chaining
+     */
+    public ColorAccumulator scale(Double3 k) {
+        r *= k.d1;
+        g *= k.d2;
+        b *= k.d3;
+        return this;
+    }
+
+    /**
+     * Scales the accumulated color by (1 / reduction factor), as {@link Color#reduce(double)} does.
+     *
+     * @param k the reduction factor
+     * @return this accumulator - for chaining
+     */
+    public ColorAccumulator reduce(double k) {
+        r /= k;
+        g /= k;
+        b /= k;
+        return this;
+    }
+
+    /**
+     * Returns the accumulated color.
+     *
+     * @return the color
+     * @throws IllegalArgumentException if a component of the accumulated color is negative
+     */
+    public Color toColor() {
+        return new Color(r, g, b);
+    }
+}
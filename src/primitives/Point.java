@@ -4,7 +4,6 @@ import primitives.*;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Random;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
@@ -147,7 +146,6 @@ public class Point {
     public Double3 getXYZ(){
         return xyz;
     }
-    private static Random rnd = new Random();
     /**
      * Generates a list of points within the target area for super sampling.
      *
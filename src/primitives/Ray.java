@@ -51,6 +51,30 @@ public class Ray {
         p0 = p.add(delta);
     }
 
+    /**
+     * Constructs a ray as {@link #Ray(Point, Vector, Vector)} does, from the scratch triads of the shading,
+     * without creating intermediate points and vectors.
+     *
+     * @param p  The starting point of the ray.
+     * @param n  The normal vector of the surface intersected by the ray.
+     * @param dx The x coordinate of the direction vector of the ray.
+     * @param dy The y coordinate of the direction vector of the ray.
+     * @param dz The z coordinate of the direction vector of the ray.
+     */
+    public Ray(Vec3 p, Vec3 n, double dx, double dy, double dz) {
+        double scale = 1 / Math.sqrt(dx * dx + dy * dy + dz * dz);
+        this.dir = new Vector(dx * scale, dy * scale, dz * scale);
+        double nv = n.x * dx + n.y * dy + n.z * dz;
+        double deltaX = n.x * DELTA, deltaY = n.y * DELTA, deltaZ = n.z * DELTA;
+        // Adjust the starting point along the normal vector to avoid self-intersections
+        if (nv < 0) {
+            deltaX *= -1;
+            deltaY *= -1;
+            deltaZ *= -1;
+        }
+        p0 = new Point(p.x + deltaX, p.y + deltaY, p.z + deltaZ);
+    }
+
 
     /**
      * Returns the starting point of the ray.
@@ -79,7 +103,23 @@ public class Ray {
         if (isZero(delta)) {
             return p0;
         }
-        return p0.add(dir.scale(delta));
+        return new Point(p0.xyz.d1 + dir.xyz.d1 * delta, p0.xyz.d2 + dir.xyz.d2 * delta,
+                p0.xyz.d3 + dir.xyz.d3 * delta);
+    }
+
+    /**
+     * Calculates a point on the ray into a scratch triad, as {@link #getPoint(double)} does.
+     *
+     * @param delta the "t" in the formula P = P0 + t*v
+     * @param point the triad to set to the point
+     * @return the triad of the point
+     */
+    public Vec3 getPoint(double delta, Vec3 point) {
+        if (isZero(delta)) {
+            return point.set(p0);
+        }
+        return point.set(p0.xyz.d1 + dir.xyz.d1 * delta, p0.xyz.d2 + dir.xyz.d2 * delta,
+                p0.xyz.d3 + dir.xyz.d3 * delta);
     }
     /**
 
@@ -104,14 +144,17 @@ public class Ray {
         if (points.size() == 0) {
             return null;
         }
-        GeoPoint closest = points.get(0);
+        GeoPoint closest = null;
+        double closestDistance = Double.POSITIVE_INFINITY;
         for (GeoPoint item : points) {
             // Checks which distance is smaller and if smaller, switches between them
-            if (item.point.distanceSquared(p0) < closest.point.distanceSquared(p0)) {
+            double distance = item.point.distanceSquared(p0);
+            if (distance < closestDistance) {
                 closest = item;
+                closestDistance = distance;
             }
         }
-        return closest;
+        return closest == null ? points.get(0) : closest;
     }
 
 
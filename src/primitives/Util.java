@@ -58,15 +58,4 @@ public abstract class Util {
         return (n1 < 0 && n2 < 0) || (n1 > 0 && n2 > 0);
     }
 
-    /**
-     * Provide a real random number in range between min and max
-     *
-     * @param min value (included)
-     * @param max value (excluded)
-     * @return the random value
-     */
-    public static double random(double min, double max) {
-        return Math.random() * (max - min) + min;
-    }
-
 }
@@ -0,0 +1,79 @@
+package primitives;
+
+/**
+ * A mutable triad of coordinates for the hot paths of the renderer.<br/>
+ * {@link Point} and {@link Vector} are immutable, so every operation on them creates new objects. The shading
+ * of a ray evaluates normals, light directions and reflections for every light at every hit, so it works on
+ * scratch Vec3 objects instead, which are overwritten in place. A scratch object must be confined to a single
+ * thread and must not be kept after the computation that uses it - the immutable types remain the API for
+ * building scenes.<br/>
+ * The operations use the same arithmetic as the ones of {@link Point} and {@link Vector}, so the results are
+ * identical to theirs.
+ */
+public final class Vec3 {
+    /** The coordinates */
+    public double x, y, z;
+
+    /**
+     * Sets the coordinates.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return this triad - for chaining
+     */
+    public Vec3 set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    /**
+     * Sets the coordinates to the ones of a point or a vector.
+     *
+     * @param point the point or the vector
+     * @return this triad - for chaining
+     */
+    public Vec3 set(Point point) {
+        return set(point.xyz.d1, point.xyz.d2, point.xyz.d3);
+    }
+
+    /**
+     * Normalizes the triad as a vector, as {@link Vector#normalize()} does.
+     *
+     * @return this triad - for chaining
+     */
+    public Vec3 normalize() {
+        double scale = 1 / Math.sqrt(x * x + y * y + z * z);
+        x *= scale;
+        y *= scale;
+        z *= scale;
+        return this;
+    }
+
+    /**
+     * Calculates the dot product of the triad with a vector.
+     *
+     * @param vector the vector
+     * @return the dot product
+     */
+    public double dotProduct(Vector vector) {
+        return x * vector.xyz.d1 + y * vector.xyz.d2 + z * vector.xyz.d3;
+    }
+
+    /**
+     * Calculates the dot product of the triad with another one.
+     *
+     * @param other the other triad
+     * @return the dot product
+     */
+    public double dotProduct(Vec3 other) {
+        return x * other.x + y * other.y + z * other.z;
+    }
+
+    @Override
+    public String toString() {
+        return "Vec3(" + x + "," + y + "," + z + ")";
+    }
+}
@@ -0,0 +1,71 @@
+package renderer;
+
+import primitives.Color;
+
+/**
+ * An accumulation buffer of a progressive rendering - the sums of the samples of each pixel and their counts,
+ * so that the rendering may be refined pass after pass, and resolved into an image at any point between the
+ * passes.<br/>
+ * Each pixel is accumulated by a single thread in a pass, the passes are separated by the joins of their jobs.
+ */
+class AccumulationBuffer {
+    private final int nX;
+    private final int nY;
+    /** The sums of the samples, 3 components per pixel */
+    private final double[] sums;
+    private final int[] counts;
+
+    /**
+     * Constructs an empty accumulation buffer.
+     *
+     * @param nX amount of pixels by width
+     * @param nY amount of pixels by height
+     */
+    AccumulationBuffer(int nX, int nY) {
+        this.nX = nX;
+        this.nY = nY;
+        this.sums = new double[3 * nX * nY];
+        this.counts = new int[nX * nY];
+    }
+
+    /**
+     * Adds a sample to a pixel.
+     *
+     * @param x     the column of the pixel
+     * @param y     the row of the pixel
+     * @param color the color of the sample
+     */
+    void add(int x, int y, Color color) {
+        int i = y * nX + x;
+        sums[3 * i] += color.getRed();
+        sums[3 * i + 1] += color.getGreen();
+        sums[3 * i + 2] += color.getBlue();
+        ++counts[i];
+    }
+
+    /**
+     * Returns the number of the samples of a pixel.
+     *
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the number of the samples
+     */
+    int getSamples(int x, int y) {
+        return counts[y * nX + x];
+    }
+
+    /**
+     * Writes the mean color of each pixel that has samples into an image writer.
+     *
+     * @param writer the image writer
+     */
+    void resolve(ImageWriter writer) {
+        for (int y = 0; y < nY; ++y)
+            for (int x = 0; x < nX; ++x) {
+                int i = y * nX + x, count = counts[i];
+                if (count != 0)
+                    writer.writePixel(x, y, new Color(sums[3 * i] / count, sums[3 * i + 1] / count,
+                            sums[3 * i + 2] / count));
+            }
+    }
+}
@@ -5,7 +5,16 @@ import primitives.Vector;
 import primitives.Ray;
 import static primitives.Util.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import primitives.Color;
+import primitives.ColorAccumulator;
+import sampling.HaltonSampler;
+import sampling.Sampler;
 
 
 /**
@@ -33,12 +42,158 @@ public class Camera {
     //Distance between the view plane to focal plane.
     private double focalLength = 0;
     private int threadsCount =1; //number of rays to the superSampling
+    private int tileSize = TileScheduler.DEFAULT_TILE_SIZE;
+    private ExecutorService renderExecutor = null;
+    private boolean virtualThreads = false;
+    private double printInterval = 1;
     private boolean adaptive = false;
     private final int maxLevelAdaptiveSS = 3;
+    private int progressiveSamples = 0;
+    private int varianceSamples = 0;
+    private double varianceThreshold = 1;
+    private double timeBudget = 0;
+    private double snapshotInterval = 0;
+    private Sampler sampler = new HaltonSampler();
+    private boolean gridSampling = true;
     public Camera setMultiThreading(int threadsCount) {
         this.threadsCount = threadsCount;
         return this;
     }
+
+    /**
+     * Sets the size of the square tiles the image is divided into for the worker threads - small tiles balance
+     * expensive pixels better, large tiles have less scheduling overhead.
+     *
+     * @param tileSize the size of the side of a tile in pixels
+     * @return the camera itself - for chaining
+     * @throws IllegalArgumentException if the tile size is not positive
+     */
+    public Camera setTileSize(int tileSize) {
+        if (tileSize <= 0)
+            throw new IllegalArgumentException("The tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets an executor to render on - a fixed pool, virtual threads, a work stealing
+     * {@link java.util.concurrent.ForkJoinPool} - that may be shared by several render jobs that run at the same
+     * time. Without it each render job has an executor of its own. The render jobs don't shut the executor down.
+     *
+     * @param renderExecutor the executor, or null for an executor of each job's own
+     * @return the camera itself - for chaining
+     */
+    public Camera setRenderExecutor(ExecutorService renderExecutor) {
+        this.renderExecutor = renderExecutor;
+        return this;
+    }
+
+    /**
+     * Sets whether each render job with an executor of its own renders each tile on a virtual thread, instead of
+     * a work stealing pool with the threads set by {@link #setMultiThreading(int)}.
+     *
+     * @param virtualThreads true for virtual threads
+     * @return the camera itself - for chaining
+     */
+    public Camera setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * Sets the time interval of printing the progress of the rendering.
+     *
+     * @param printInterval the print interval in seconds, 0 if printing is not required
+     * @return the camera itself - for chaining
+     */
+    public Camera setPrintInterval(double printInterval) {
+        this.printInterval = printInterval;
+        return this;
+    }
+    /**
+     * Sets progressive rendering - {@link #renderImage()} renders a single sample per pixel first, and then
+     * refines the image with a sample per pixel in each pass, into an accumulation buffer, until the target
+     * number of samples or the time budget is reached. The first pass is the image without super sampling, the
+     * other passes sample the area of the pixel and the aperture of the depth of field. Progressive rendering
+     * replaces the super sampling of {@link #setSuperSampling(int)} and {@link #setAdaptive(boolean)}.
+     *
+     * @param samples the target number of samples per pixel, 0 for rendering that is not progressive
+     * @return the camera itself - for chaining
+     * @throws IllegalArgumentException if the number of samples is negative
+     */
+    public Camera setProgressive(int samples) {
+        if (samples < 0)
+            throw new IllegalArgumentException("The number of samples must not be negative");
+        this.progressiveSamples = samples;
+        return this;
+    }
+
+    /**
+     * Sets the wall clock time budget of progressive rendering - the pass that runs when the time is up is
+     * stopped, and the image has the samples rendered so far. The first pass is always completed.
+     *
+     * @param timeBudget the time budget in seconds, 0 for rendering all the passes
+     * @return the camera itself - for chaining
+     */
+    public Camera setTimeBudget(double timeBudget) {
+        this.timeBudget = timeBudget;
+        return this;
+    }
+
+    /**
+     * Sets the time interval of writing intermediate images of progressive rendering - after a pass, if the
+     * interval has passed since the last image, the image so far is written to the file of the image writer,
+     * in the background while the next pass renders.
+     *
+     * @param snapshotInterval the interval in seconds, 0 if intermediate images are not required
+     * @return the camera itself - for chaining
+     */
+    public Camera setSnapshotInterval(double snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+        return this;
+    }
+
+    /**
+     * Sets variance driven adaptive sampling - each pixel is sampled until the estimated error of its mean is
+     * below a threshold, or it has the maximal number of samples, so that the rays are spent on the noisy pixels.
+     * The samples are spread over the area of the pixel (and the aperture) as in progressive rendering. The
+     * number of samples of each pixel is given by {@link RenderJob#getSampleCounts()}. Variance sampling
+     * replaces the super sampling of {@link #setSuperSampling(int)} and {@link #setAdaptive(boolean)}.
+     *
+     * @param maxSamples the maximal number of samples of a pixel, 0 for sampling that is not variance driven
+     * @param threshold  the maximal error of a converged pixel, in display levels (1 of 255) - the half width of
+     *                   the 95% confidence interval of the luminance of the pixel
+     * @return the camera itself - for chaining
+     * @throws IllegalArgumentException if the number of samples is negative or the threshold is not positive
+     */
+    public Camera setVarianceSampling(int maxSamples, double threshold) {
+        if (maxSamples < 0)
+            throw new IllegalArgumentException("The number of samples must not be negative");
+        if (threshold <= 0)
+            throw new IllegalArgumentException("The threshold must be positive");
+        this.varianceSamples = maxSamples;
+        this.varianceThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Sets the sampler of the samples of the pixels and the aperture, for progressive and variance driven
+     * sampling - a Halton sampler by default. Setting a sampler replaces the regular grid of
+     * {@link #setSuperSampling(int)} too: each pixel then takes the square of the density samples from the
+     * sampler, over the area of the pixel and the aperture.
+     *
+     * @param sampler the sampler
+     * @return the camera itself - for chaining
+     * @throws IllegalArgumentException if the sampler is null
+     */
+    public Camera setSampler(Sampler sampler) {
+        if (sampler == null)
+            throw new IllegalArgumentException("The sampler must not be null");
+        this.sampler = sampler;
+        this.gridSampling = false;
+        return this;
+    }
+
     public Camera setAdaptive(boolean adaptive) {
         this.adaptive = adaptive;
         return this;
@@ -106,19 +261,39 @@ public class Camera {
      * @return a Ray object that passes through the given pixel coordinates
      */
     public Ray constructRay(int nX, int nY, int j, int i) {
-        Point pc = this.p0.add(this.vTo.scale(this.distance));
+        return constructRay(nX, nY, (double) j, (double) i);
+    }
+
+    /**
+     * Constructs a ray that passes through a point of the viewPlane, at pixel coordinates that may be between
+     * the centers of the pixels.
+     *
+     * @param nX the number of pixels in the X direction
+     * @param nY the number of pixels in the Y direction
+     * @param j  the X coordinate of the point
+     * @param i  the Y coordinate of the point
+     * @return a Ray object that passes through the point
+     */
+    private Ray constructRay(int nX, int nY, double j, double i) {
+        // the point is calculated on coordinates - a ray per pixel is on the hot path of the rendering
+        double x = p0.getX() + vTo.getX() * distance;
+        double y = p0.getY() + vTo.getY() * distance;
+        double z = p0.getZ() + vTo.getZ() * distance;
         double ry = this.height / nY;
         double rx = this.width / nX;
         double yi = (i - (nY - 1) / 2d) * ry;
         double xj = (j - (nX - 1) / 2d) * rx;
-        Point pIj = pc;
         if (xj != 0) {
-            pIj = pIj.add(vRight.scale(xj));
+            x += vRight.getX() * xj;
+            y += vRight.getY() * xj;
+            z += vRight.getZ() * xj;
         }
         if (yi != 0) {
-            pIj = pIj.add(vUp.scale(-yi));
+            x += vUp.getX() * -yi;
+            y += vUp.getY() * -yi;
+            z += vUp.getZ() * -yi;
         }
-        return new Ray(this.p0, pIj.subtract(p0));
+        return new Ray(this.p0, new Vector(x - p0.getX(), y - p0.getY(), z - p0.getZ()));
     }
 
     /**
@@ -169,12 +344,56 @@ public class Camera {
     }
 
     /**
-     * Renders the image by casting rays or beam rays based on the superSampling setting.
+     * Renders the image by casting rays or beam rays based on the superSampling setting, and waits for the
+     * rendering to finish.
      *
      * @return The camera itself - for chaining.
      * @throws UnsupportedOperationException If required resources (ImageWriter or RayTracer) are missing.
      */
     public Camera renderImage() {
+        if (progressiveSamples > 0)
+            renderProgressive(timeBudget);
+        else
+            startRender().waitToFinish();
+        return this; // Return the camera itself to support method chaining.
+    }
+
+    /**
+     * Renders the image as {@link #renderImage()} does, up to a timeout - the rendering is cancelled when the
+     * time is up. A progressive rendering takes the timeout as its time budget, if it is shorter, and isn't
+     * cancelled.
+     *
+     * @param timeout the maximal time of the rendering
+     * @param unit    the unit of the timeout
+     * @return The camera itself - for chaining.
+     * @throws UnsupportedOperationException If required resources (ImageWriter or RayTracer) are missing.
+     * @throws CancellationException         If the time is up before the rendering is done.
+     */
+    public Camera renderImage(long timeout, TimeUnit unit) {
+        if (progressiveSamples > 0) {
+            double seconds = unit.toNanos(timeout) / 1e9;
+            renderProgressive(timeBudget == 0 ? seconds : Math.min(timeBudget, seconds));
+            return this;
+        }
+        RenderJob job = startRender();
+        if (!job.waitToFinish(timeout, unit)) {
+            job.cancel();
+            job.waitToFinish(); // the running tiles stop before their next row
+        }
+        return this;
+    }
+
+    /**
+     * Starts rendering the image by casting rays or beam rays based on the superSampling setting, without waiting
+     * for the rendering to finish. Each call starts an independent render job, so several renders - of this
+     * camera or of others - may run at the same time. The image writer of the camera is bound to the job when
+     * it starts, the rest of the camera must not be changed while its jobs run.
+     *
+     * @return The started render job.
+     * @throws UnsupportedOperationException If required resources (ImageWriter or RayTracer) are missing, or
+     *                                       virtual threads are set and the runtime doesn't have them.
+     */
+    public RenderJob startRender() {
         try {
             int Ny = imageWriter.getNy(); // Get the number of rows in the image.
             int Nx = imageWriter.getNx(); // Get the number of columns in the image.
@@ -188,43 +407,147 @@ public class Camera {
             if (rayTracer == null) {
                 throw new MissingResourceException("missing resource", RayTracerBase.class.getName(), "");
             }
-            Pixel.initialize(imageWriter.getNy(), imageWriter.getNx(), 1);
+            ImageWriter writer = imageWriter;
+            TileScheduler.PixelRenderer renderer;
+            int[] sampleCounts = null;
+            if (varianceSamples > 0) {
+                VarianceSampler sampler = new VarianceSampler(
+                        (x, y, sample) -> castSample(Nx, Ny, y, x, sample), Nx, Ny, varianceSamples, varianceThreshold);
+                sampleCounts = sampler.getSampleCounts();
+                renderer = (row, col) -> writer.writePixel(row, col, sampler.sample(row, col));
+            }
             // Check if superSampling is disabled (superSampling = 0). If so, cast a single ray for each pixel.
-            if (superSampling == 0) {
-                while (threadsCount-- > 0) {
-                    new Thread(() -> {
-                        for (Pixel pixel = new Pixel(); pixel.nextPixel(); Pixel.pixelDone())
-                            imageWriter.writePixel(pixel.row, pixel.col, castRay(Nx, Ny, pixel.col, pixel.row));
-                    }).start();
-                }
-                Pixel.waitToFinish();
+            else if (superSampling == 0) {
+                renderer = (row, col) -> writer.writePixel(row, col, castRay(Nx, Ny, col, row));
             }
             else {
-                if (!adaptive) {
+                if (!adaptive && !gridSampling) {
+                    int count = superSampling * superSampling;
+                    renderer = (row, col) -> writer.writePixel(row, col, castSamples(Nx, Ny, col, row, count));
+                }
+                else if (!adaptive) {
                     List<Point> points = Point.pointsInTheTargetArea(p0, vUp, vRight, superSampling, aperture);
-                    while (threadsCount-- > 0) {
-                        new Thread(() -> {
-                            for (Pixel pixel = new Pixel(); pixel.nextPixel(); Pixel.pixelDone())
-                                 imageWriter.writePixel(pixel.row, pixel.col, castBeamRay(Nx, Ny, pixel.col, pixel.row, points));
-                        }).start();
-                    }
-                    Pixel.waitToFinish();
+                    renderer = (row, col) -> writer.writePixel(row, col, castBeamRay(Nx, Ny, col, row, points));
                 }
                 else{
-                    while (threadsCount-- > 0) {
-                        new Thread(() -> {
-                            for (Pixel pixel = new Pixel(); pixel.nextPixel(); Pixel.pixelDone())
-                                imageWriter.writePixel(pixel.row, pixel.col, AdaptiveSuperSampling(pixel.col, pixel.row));
-                        }).start();
-                    }
-                    Pixel.waitToFinish();
+                    // the samples are shared on a lattice, and traced once per tile
+                    LatticeSampler sampler = new LatticeSampler(
+                            (x, y) -> rayTracer.traceRay(constructRay(Nx, Ny, x, y)), maxLevelAdaptiveSS, tileSize);
+                    renderer = (row, col) -> writer.writePixel(row, col, sampler.sample(row, col));
                 }
             }
+            // The tiles are rendered by a work stealing pool of the worker threads
+            return new RenderJob(Ny, Nx, tileSize, renderer, renderExecutor, virtualThreads, threadsCount, printInterval)
+                    .setSampleCounts(sampleCounts).start();
         } catch (MissingResourceException ex) {
             throw new UnsupportedOperationException("Not implemented " + ex.getClass());
         }
+    }
 
-        return this; // Return the camera itself to support method chaining.
+    /**
+     * Renders the image progressively, pass after pass, into an accumulation buffer, and writes the mean of the
+     * samples of each pixel to the image writer.
+     *
+     * @param budget the time budget in seconds, 0 for rendering all the passes
+     * @throws UnsupportedOperationException If required resources (ImageWriter or RayTracer) are missing.
+     */
+    private void renderProgressive(double budget) {
+        if (imageWriter == null || rayTracer == null)
+            throw new UnsupportedOperationException("Not implemented " + MissingResourceException.class);
+        ImageWriter writer = imageWriter;
+        int Ny = writer.getNy();
+        int Nx = writer.getNx();
+        AccumulationBuffer buffer = new AccumulationBuffer(Nx, Ny);
+
+        // all the passes run on one executor, an own one is shut down at the end
+        ExecutorService executor = renderExecutor != null ? renderExecutor
+                : virtualThreads ? RenderJob.newVirtualThreadExecutor() : new ForkJoinPool(threadsCount);
+        long start = System.nanoTime();
+        long deadline = start + (long) (budget * 1e9);
+        long lastSnapshot = start;
+        CompletableFuture<Void> snapshot = CompletableFuture.completedFuture(null);
+        try {
+            for (int pass = 0; pass < progressiveSamples; ++pass) {
+                int sample = pass;
+                RenderJob job = new RenderJob(Ny, Nx, tileSize,
+                        (row, col) -> buffer.add(row, col, castSample(Nx, Ny, col, row, sample)),
+                        executor, false, threadsCount, 0).start();
+                if (pass == 0 || budget == 0)
+                    job.waitToFinish();
+                else if (!job.waitToFinish(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    job.cancel();
+                    try {
+                        job.waitToFinish(); // the running tiles stop before their next row
+                    } catch (CancellationException ignore) {
+                    }
+                    break;
+                }
+
+                long now = System.nanoTime();
+                if (budget != 0 && now - deadline >= 0) break;
+                if (snapshotInterval > 0 && now - lastSnapshot >= snapshotInterval * 1e9
+                        && pass < progressiveSamples - 1) {
+                    snapshot.join(); // a single snapshot is written at a time
+                    buffer.resolve(writer);
+                    snapshot = writer.writeToImageAsync(executor);
+                    lastSnapshot = now;
+                }
+            }
+            snapshot.join();
+        } finally {
+            if (renderExecutor == null)
+                executor.shutdown();
+        }
+        buffer.resolve(writer);
+    }
+
+    /**
+     * Casts the ray of a sample of a pixel in progressive rendering. The first sample is the center of the pixel,
+     * the others are spread over the pixel (and the aperture) by the sampler of the camera.
+     *
+     * @param nX     The number of columns in the image.
+     * @param nY     The number of rows in the image.
+     * @param column The column index of the pixel.
+     * @param row    The row index of the pixel.
+     * @param sample The index of the sample.
+     * @return The color of the sample.
+     */
+    private Color castSample(int nX, int nY, int column, int row, int sample) {
+        if (sample == 0)
+            return castRay(nX, nY, column, row);
+
+        double[] point = new double[2];
+        sampler.samples(row, column, Sampler.PIXEL, sample, 1, point);
+        Ray ray = constructRay(nX, nY, row + point[0] - 0.5, column + point[1] - 0.5);
+        if (aperture == 0)
+            return rayTracer.traceRay(ray);
+
+        // a point of the aperture disk looks at the point of the pixel on the focal plane
+        Point focus = ray.getPoint(focalLength);
+        sampler.samples(row, column, Sampler.APERTURE, sample, 1, point);
+        Sampler.toDisk(point, 0);
+        double u = aperture * point[0], v = aperture * point[1];
+        Point origin = new Point(p0.getX() + vRight.getX() * u + vUp.getX() * v,
+                p0.getY() + vRight.getY() * u + vUp.getY() * v,
+                p0.getZ() + vRight.getZ() * u + vUp.getZ() * v);
+        return rayTracer.traceRay(new Ray(origin, focus.subtract(origin)));
+    }
+
+    /**
+     * Casts the rays of the samples of a pixel from the sampler of the camera, and averages their colors.
+     *
+     * @param nX     The number of columns in the image.
+     * @param nY     The number of rows in the image.
+     * @param column The column index of the pixel.
+     * @param row    The row index of the pixel.
+     * @param count  The number of the samples.
+     * @return The color of the pixel.
+     */
+    private Color castSamples(int nX, int nY, int column, int row, int count) {
+        ColorAccumulator color = new ColorAccumulator();
+        for (int sample = 0; sample < count; ++sample)
+            color.add(castSample(nX, nY, column, row, sample));
+        return color.reduce(count).toColor();
     }
 
     /**
@@ -258,6 +581,20 @@ public class Camera {
         imageWriter.writeToImage();
     }
 
+    /**
+     * Starts to write the image to a file on an executor, so that the next image may be rendered meanwhile.
+     *
+     * @param executor the executor of the encoding
+     * @return the completion of the file
+     * @throws MissingResourceException if the image writer is null.
+     */
+    public CompletableFuture<Void> writeToImageAsync(Executor executor) {
+        if (imageWriter == null) {
+            throw new MissingResourceException("missing resource", ImageWriter.class.getName(), "");
+        }
+        return imageWriter.writeToImageAsync(executor);
+    }
+
     /**
      * Creates the foundation and summons the calculation
      * Color the ray using the traceRay method of the rayTracer field, finally the method will return the color
@@ -329,66 +666,5 @@ public class Camera {
 
         return this; // Return the camera itself to support method chaining.
     }
-    /**
-     * Performs adaptive super sampling at pixel (i, j) to improve image quality.
-     *
-     * @param i The column index of the pixel.
-     * @param j The row index of the pixel.
-     * @return The color obtained after adaptive super sampling.
-     */
-    private Color AdaptiveSuperSampling(int i, int j) {
-        // Construct the center ray for the pixel at (i, j).
-        Ray center = constructRay(imageWriter.getNx(), imageWriter.getNy(), j, i);
-
-        // Trace the center ray to obtain the center color.
-        Color centerColor = rayTracer.traceRay(center);
-
-        // Perform adaptive super sampling using the center color.
-        return calcAdaptiveSuperSampling(imageWriter.getNx(), imageWriter.getNy(), j, i, maxLevelAdaptiveSS, centerColor);
-    }
-
-    /**
-     * Performs recursive adaptive super sampling to improve image quality.
-     *
-     * @param nX          The total number of columns in the image.
-     * @param nY          The total number of rows in the image.
-     * @param j           The column index of the current pixel.
-     * @param i           The row index of the current pixel.
-     * @param maxLevel    The maximum recursion level for adaptive super sampling.
-     * @param centerColor The color of the center pixel.
-     * @return The color obtained after adaptive super sampling.
-     */
-    private Color calcAdaptiveSuperSampling(int nX, int nY, int j, int i, int maxLevel, Color centerColor) {
-        // Base case: if maxLevel is less than or equal to 0, return the center color.
-        if (maxLevel <= 0) {
-            return centerColor;
-        }
-
-        Color color = centerColor;
-        List<Ray> beam = new LinkedList<>();
-
-        // Construct the beam rays for the current pixel.
-        beam.add(constructRay(2 * nX, 2 * nY, 2 * j, 2 * i));
-        beam.add(constructRay(2 * nX, 2 * nY, 2 * j, 2 * i + 1));
-        beam.add(constructRay(2 * nX, 2 * nY, 2 * j + 1, 2 * i));
-        beam.add(constructRay(2 * nX, 2 * nY, 2 * j + 1, 2 * i + 1));
-
-        // Iterate over the beam rays and perform adaptive super sampling recursively.
-        for (int ray = 0; ray < 4; ray++) {
-            Color currentColor = rayTracer.traceRay(beam.get(ray));
-
-            // Check if the current color is different from the center color.
-            if (!currentColor.equals(centerColor)) {
-                currentColor = calcAdaptiveSuperSampling(2 * nX, 2 * nY, 2 * j + ray / 2, 2 * i + ray % 2, (maxLevel - 1), currentColor);
-            }
-
-            // Accumulate the color obtained from the recursive call.
-            color = color.add(currentColor);
-        }
-
-        // Reduce the accumulated color by dividing it by 5.
-        return color.reduce(5);
-    }
 
 }
-
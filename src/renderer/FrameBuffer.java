@@ -0,0 +1,164 @@
+package renderer;
+
+import primitives.Color;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A frame buffer - the pixels of an image in primitive arrays: packed RGB integers for the displayable output,
+ * and optionally the linear colors as floats for high dynamic range output and tone mapping.<br/>
+ * The worker threads of the renderer write their pixels into the arrays without creating any object, each
+ * pixel by a single thread, and the image is converted once, when it is written out.
+ */
+public class FrameBuffer {
+    private final int width;
+    private final int height;
+    /** The pixels as packed RGB, clamped as {@link Color#getColor()} does */
+    private final int[] rgb;
+    /** The linear colors of the pixels, 3 floats per pixel, or null for a buffer without high dynamic range */
+    private final float[] linear;
+
+    /**
+     * Constructs a frame buffer of black pixels.
+     *
+     * @param width  the amount of pixels by width
+     * @param height the amount of pixels by height
+     * @param hdr    whether the buffer keeps the linear colors for high dynamic range output
+     */
+    public FrameBuffer(int width, int height, boolean hdr) {
+        this.width = width;
+        this.height = height;
+        this.rgb = new int[width * height];
+        this.linear = hdr ? new float[3 * width * height] : null;
+    }
+
+    /**
+     * Returns the amount of pixels by width.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the amount of pixels by height.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks whether the buffer keeps the linear colors.
+     *
+     * @return true for a high dynamic range buffer
+     */
+    public boolean isHdr() {
+        return linear != null;
+    }
+
+    /**
+     * Returns the index of a pixel in the arrays.
+     *
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the index
+     * @throws IndexOutOfBoundsException if the pixel is outside the image
+     */
+    private int index(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            throw new IndexOutOfBoundsException("Pixel (" + x + "," + y + ") is outside the image");
+        return y * width + x;
+    }
+
+    /**
+     * Sets the color of a pixel.
+     *
+     * @param x     the column of the pixel
+     * @param y     the row of the pixel
+     * @param color the color
+     * @throws IndexOutOfBoundsException if the pixel is outside the image
+     */
+    public void setPixel(int x, int y, Color color) {
+        int i = index(x, y);
+        rgb[i] = color.getRGB();
+        if (linear != null) {
+            linear[3 * i] = (float) color.getRed();
+            linear[3 * i + 1] = (float) color.getGreen();
+            linear[3 * i + 2] = (float) color.getBlue();
+        }
+    }
+
+    /**
+     * Returns the displayable color of a pixel.
+     *
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the packed alpha (opaque) and RGB components, as {@link java.awt.Color#getRGB()}
+     * @throws IndexOutOfBoundsException if the pixel is outside the image
+     */
+    public int getRGB(int x, int y) {
+        return rgb[index(x, y)];
+    }
+
+    /**
+     * Returns a linear component of the color of a pixel.
+     *
+     * @param x       the column of the pixel
+     * @param y       the row of the pixel
+     * @param channel the component - 0 for red, 1 for green, 2 for blue
+     * @return the component
+     * @throws IndexOutOfBoundsException if the pixel is outside the image
+     * @throws IllegalStateException     if the buffer doesn't keep the linear colors
+     */
+    public float getLinear(int x, int y, int channel) {
+        if (linear == null)
+            throw new IllegalStateException("The frame buffer doesn't keep the linear colors");
+        return linear[3 * index(x, y) + channel];
+    }
+
+    /**
+     * Returns a copy of the displayable pixels, which stays unchanged while pixels are written.
+     *
+     * @param toneMapper the tone mapping of the linear colors, or null for the clamped colors
+     * @return the pixels, packed RGB row after row
+     * @throws IllegalStateException if a tone mapping is required and the buffer doesn't keep the linear colors
+     */
+    public int[] getPixels(ToneMapper toneMapper) {
+        if (toneMapper == null)
+            return rgb.clone();
+        if (linear == null)
+            throw new IllegalStateException("The frame buffer doesn't keep the linear colors");
+        int[] mapped = new int[width * height];
+        for (int i = 0; i < mapped.length; ++i)
+            mapped[i] = toneMapper.map(linear[3 * i], linear[3 * i + 1], linear[3 * i + 2]);
+        return mapped;
+    }
+
+    /**
+     * Converts the buffer into an image with the clamped colors.
+     *
+     * @return the image
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, rgb, 0, width);
+        return image;
+    }
+
+    /**
+     * Converts the buffer into an image, mapping the linear colors with a tone mapping.
+     *
+     * @param toneMapper the tone mapping
+     * @return the image
+     * @throws IllegalStateException if the buffer doesn't keep the linear colors
+     */
+    public BufferedImage toImage(ToneMapper toneMapper) {
+        int[] mapped = getPixels(toneMapper);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, mapped, 0, width);
+        return image;
+    }
+}
@@ -1,13 +1,16 @@
 package renderer;
 
 import primitives.Color;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-
-import javax.imageio.*;
+import java.util.zip.Deflater;
 
 /**
  * Image writer class combines accumulation of pixel color matrix and finally
@@ -23,7 +26,9 @@ public class ImageWriter {
 
 	private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
-	private BufferedImage image;
+	private FrameBuffer frameBuffer;
+	private ToneMapper toneMapper;
+	private PngEncoder encoder = new PngEncoder(Deflater.DEFAULT_COMPRESSION);
 	private String imageName;
 	
 	private Logger logger = Logger.getLogger("ImageWriter");
@@ -36,11 +41,23 @@ public class ImageWriter {
 	 * @param nY        amount of pixels by height
 	 */
 	public ImageWriter(String imageName, int nX, int nY) {
+		this(imageName, nX, nY, new FrameBuffer(nX, nY, false));
+	}
+
+	/**
+	 * Image Writer constructor for writers that keep the pixels elsewhere than in
+	 * a frame buffer in memory
+	 * @param imageName   the name of the image file
+	 * @param nX          amount of pixels by Width
+	 * @param nY          amount of pixels by height
+	 * @param frameBuffer the frame buffer of the pixels, or null if the writer
+	 *                    doesn't keep them in memory
+	 */
+	protected ImageWriter(String imageName, int nX, int nY, FrameBuffer frameBuffer) {
 		this.imageName = imageName;
 		this.nX = nX;
 		this.nY = nY;
-
-		image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+		this.frameBuffer = frameBuffer;
 	}
 
 	// ***************** Getters/Setters ********************** //
@@ -62,32 +79,109 @@ public class ImageWriter {
 		return nX;
 	}
 
+	/**
+	 * The pixels written so far
+	 * 
+	 * @return the frame buffer of the image, or null if the writer doesn't keep
+	 *         the pixels in memory
+	 */
+	public FrameBuffer getFrameBuffer() {
+		return frameBuffer;
+	}
+
+	/**
+	 * Sets a tone mapping of the linear colors instead of the hard clamp of
+	 * {@link Color#getColor()}. The frame buffer keeps the linear colors then, so
+	 * the tone mapping must be set before the pixels are written - it clears the
+	 * pixels written so far
+	 * 
+	 * @param toneMapper the tone mapping, or null for the hard clamp
+	 * @return the image writer itself - for chaining
+	 */
+	public ImageWriter setToneMapper(ToneMapper toneMapper) {
+		this.toneMapper = toneMapper;
+		frameBuffer = new FrameBuffer(nX, nY, toneMapper != null);
+		return this;
+	}
+
+	/**
+	 * Sets the compression level of the PNG file, to trade its size against the
+	 * speed of the encoding
+	 * 
+	 * @param level the compression level - from 0 (fastest, biggest) to 9
+	 *              (slowest, smallest), or -1 for the default
+	 * @return the image writer itself - for chaining
+	 * @throws IllegalArgumentException if the compression level is not valid
+	 */
+	public ImageWriter setCompressionLevel(int level) {
+		encoder = new PngEncoder(level);
+		return this;
+	}
+
 	// ***************** Operations ******************** //
 
 	/**
-	 * Function writeToImage produces unoptimized png file of the image according to
-	 * pixel color matrix in the directory of the project
+	 * The file of the image in the images directory of the project
+	 * 
+	 * @param extension the extension of the file name, by the image format
+	 * @return the file
+	 */
+	protected File getImageFile(String extension) {
+		return new File(FOLDER_PATH + '/' + imageName + '.' + extension);
+	}
+
+	/**
+	 * Logs an I/O error of writing the image and wraps it for the caller
+	 * 
+	 * @param e the I/O error
+	 * @return the exception to throw
+	 */
+	protected IllegalStateException ioFailure(IOException e) {
+		logger.log(Level.SEVERE, "I/O error", e);
+		return new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
+	}
+
+	/**
+	 * Function writeToImage produces png file of the image according to pixel
+	 * color matrix in the directory of the project. The image is encoded in
+	 * parallel, on the common pool
 	 */
 	public void writeToImage() {
 		try {
-			File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-			ImageIO.write(image, "png", file);
-		} catch (IOException e) {
-			logger.log(Level.SEVERE, "I/O error", e);
-			throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
+			writeToImageAsync(ForkJoinPool.commonPool()).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException io)
+				throw ioFailure(io.getCause());
+			throw e;
 		}
 	}
 
+	/**
+	 * Function writeToImageAsync starts to produce png file of the image according
+	 * to pixel color matrix in the directory of the project, and returns at once.
+	 * The pixels written so far are copied first, so the next image may be
+	 * rendered into this writer while the image is encoded in parallel on the
+	 * executor
+	 * 
+	 * @param executor the executor of the encoding tasks
+	 * @return the completion of the file, which fails with an
+	 *         {@link UncheckedIOException} on an I/O error
+	 */
+	public CompletableFuture<Void> writeToImageAsync(Executor executor) {
+		return encoder.encode(frameBuffer.getPixels(toneMapper), nX, nY, getImageFile("png"), executor);
+	}
+
 	/**
 	 * The function writePixel writes a color of a specific pixel into pixel color
-	 * matrix
+	 * matrix. It may be called from several threads at once for different pixels,
+	 * and it doesn't create any object
 	 * 
 	 * @param xIndex X axis index of the pixel
 	 * @param yIndex Y axis index of the pixel
 	 * @param color  final color of the pixel
 	 */
 	public void writePixel(int xIndex, int yIndex, Color color) {
-		image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+		frameBuffer.setPixel(xIndex, yIndex, color);
 	}
 
 }
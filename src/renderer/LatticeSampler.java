@@ -0,0 +1,140 @@
+package renderer;
+
+import primitives.Color;
+import primitives.ColorAccumulator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive super sampling on a shared sample lattice. The samples are the corners of the pixels and of their
+ * sub-cells, on a lattice of {@code 2^levels} cells per pixel side: a cell whose corners have the same displayable
+ * color is flat, and its color is the mean of its corners; any other cell is divided into 4 sub-cells, down to
+ * the finest level.<br/>
+ * Corners are shared by neighbouring cells and pixels, so each thread keeps the samples of the tile it renders in
+ * a cache keyed by the lattice coordinates, and every lattice sample of a tile is traced once. A pixel of a flat
+ * area costs about a single ray.<br/>
+ * A sampler belongs to a single render job, so the caches of concurrent jobs never mix.
+ */
+class LatticeSampler {
+    /**
+     * The tracer of a sample at a point of the view plane
+     */
+    @FunctionalInterface
+    interface SampleTracer {
+        /**
+         * Traces the ray through a point of the view plane.
+         *
+         * @param x the X coordinate of the point, in pixels - pixel x spans from x-0.5 to x+0.5
+         * @param y the Y coordinate of the point, in pixels
+         * @return the color of the sample
+         */
+        Color trace(double x, double y);
+    }
+
+    /**
+     * The samples of the tile a thread renders
+     */
+    private class Tile {
+        private final Color[] samples = new Color[side * side];
+        private final ColorAccumulator color = new ColorAccumulator();
+        private int tileX = -1;
+        private int tileY = -1;
+
+        /**
+         * Returns the sample of a lattice point, tracing it if the tile doesn't have it yet.
+         *
+         * @param x the X lattice coordinate
+         * @param y the Y lattice coordinate
+         * @return the color of the sample
+         */
+        private Color sample(int x, int y) {
+            int i = (x - tileX * tileSize * cells) * side + y - tileY * tileSize * cells;
+            Color sample = samples[i];
+            if (sample == null) {
+                samples[i] = sample = tracer.trace((double) x / cells - 0.5, (double) y / cells - 0.5);
+                traced.increment();
+            }
+            return sample;
+        }
+    }
+
+    private final SampleTracer tracer;
+    private final int tileSize;
+    /** The number of lattice cells per pixel side at the finest level */
+    private final int cells;
+    /** The number of lattice points per tile side */
+    private final int side;
+    private final ThreadLocal<Tile> tiles = ThreadLocal.withInitial(Tile::new);
+    private final LongAdder traced = new LongAdder();
+
+    /**
+     * Constructs a sampler.
+     *
+     * @param tracer   the tracer of the samples
+     * @param levels   the maximal number of subdivision levels of a pixel
+     * @param tileSize the size of the side of the tiles the pixels are rendered in, which sets the size of the
+     *                 cache of a thread
+     */
+    LatticeSampler(SampleTracer tracer, int levels, int tileSize) {
+        this.tracer = tracer;
+        this.tileSize = tileSize;
+        this.cells = 1 << levels;
+        this.side = tileSize * cells + 1;
+    }
+
+    /**
+     * Samples a pixel adaptively.
+     *
+     * @param x the X index of the pixel
+     * @param y the Y index of the pixel
+     * @return the color of the pixel
+     */
+    Color sample(int x, int y) {
+        Tile tile = tiles.get();
+        if (tile.tileX != x / tileSize || tile.tileY != y / tileSize) {
+            tile.tileX = x / tileSize;
+            tile.tileY = y / tileSize;
+            Arrays.fill(tile.samples, null);
+        }
+        tile.color.reset();
+        cell(tile, x * cells, y * cells, cells, 1);
+        return tile.color.toColor();
+    }
+
+    /**
+     * Samples a cell of the lattice into the color of the tile, dividing it if its corners differ.
+     *
+     * @param tile  the tile
+     * @param x     the X lattice coordinate of the corner of the cell
+     * @param y     the Y lattice coordinate of the corner of the cell
+     * @param size  the size of the side of the cell in lattice cells
+     * @param count the number of the cells of this size in the pixel
+     */
+    private void cell(Tile tile, int x, int y, int size, int count) {
+        Color c00 = tile.sample(x, y);
+        Color c10 = tile.sample(x + size, y);
+        Color c01 = tile.sample(x, y + size);
+        Color c11 = tile.sample(x + size, y + size);
+        int rgb = c00.getRGB();
+        if (size == 1 || rgb == c10.getRGB() && rgb == c01.getRGB() && rgb == c11.getRGB()) {
+            double k = 4d * count;
+            tile.color.add(c00, k).add(c10, k).add(c01, k).add(c11, k);
+            return;
+        }
+        int half = size / 2;
+        cell(tile, x, y, half, 4 * count);
+        cell(tile, x + half, y, half, 4 * count);
+        cell(tile, x, y + half, half, 4 * count);
+        cell(tile, x + half, y + half, half, 4 * count);
+    }
+
+    /**
+     * Returns the number of the traced samples.
+     *
+     * @return the number of the traced samples
+     */
+    long getTracedSamples() {
+        return traced.sum();
+    }
+}
@@ -0,0 +1,133 @@
+package renderer;
+
+import lighting.LightSource;
+import lighting.PointLight;
+import primitives.Point;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A spatial index over the lights of a scene, which finds the lights that may contribute visibly to a point.
+ * A light whose attenuated intensity falls below a cutoff has a sphere of influence
+ * ({@link LightSource#getInfluenceRadius(double)}) - the bounded lights are kept in a packed bounding volume
+ * hierarchy over their spheres, and the unbounded lights are candidates of every point.
+ */
+final class LightIndex {
+    /** The maximal number of lights in a leaf */
+    private static final int MAX_LEAF_SIZE = 4;
+
+    /** The lights of the scene, by their index in the scene */
+    private final LightSource[] lights;
+    /** The indices of the lights without a sphere of influence */
+    private final int[] unbounded;
+    /** The indices of the bounded lights, in the order of the leaves */
+    private final int[] order;
+    /** Four numbers per bounded light in the order of the leaves: the center and the squared radius */
+    private final double[] spheres;
+    /** The hierarchy over the spheres of the bounded lights */
+    private final PackedHierarchy hierarchy;
+
+    /**
+     * Builds the index of lights.
+     *
+     * @param lights the lights of the scene
+     * @param cutoff the intensity below which a light is invisible
+     */
+    LightIndex(List<LightSource> lights, double cutoff) {
+        this.lights = lights.toArray(new LightSource[0]);
+        int n = this.lights.length;
+        int[] free = new int[n];
+        int[] bounded = new int[n];
+        int unboundedCount = 0, boundedCount = 0;
+        double[] all = new double[4 * n];
+        for (int i = 0; i < n; ++i) {
+            double radius = this.lights[i].getInfluenceRadius(cutoff);
+            if (radius == 0) continue; // invisible everywhere
+            if (radius == Double.POSITIVE_INFINITY || !(this.lights[i] instanceof PointLight light)) {
+                free[unboundedCount++] = i;
+                continue;
+            }
+            Point position = light.getPosition();
+            all[4 * i] = position.getX();
+            all[4 * i + 1] = position.getY();
+            all[4 * i + 2] = position.getZ();
+            all[4 * i + 3] = radius;
+            bounded[boundedCount++] = i;
+        }
+        unbounded = Arrays.copyOf(free, unboundedCount);
+        hierarchy = new PackedHierarchy(bounded, boundedCount, all, MAX_LEAF_SIZE);
+
+        order = Arrays.copyOf(bounded, boundedCount);
+        spheres = new double[4 * boundedCount];
+        for (int i = 0; i < boundedCount; ++i) {
+            System.arraycopy(all, 4 * order[i], spheres, 4 * i, 4);
+            spheres[4 * i + 3] *= spheres[4 * i + 3];
+        }
+    }
+
+    /**
+     * @return the number of the lights of the scene when the index was built
+     */
+    int size() {
+        return lights.length;
+    }
+
+    /**
+     * @return the size of the traversal stack of {@link #find(double, double, double, int[], int[])}
+     */
+    int getStackSize() {
+        return hierarchy.depth + 1;
+    }
+
+    /**
+     * Returns a light of the scene.
+     *
+     * @param index the index of the light in the scene
+     * @return the light
+     */
+    LightSource getLight(int index) {
+        return lights[index];
+    }
+
+    /**
+     * Finds the lights that may contribute visibly to a point.
+     *
+     * @param x      the X coordinate of the point
+     * @param y      the Y coordinate of the point
+     * @param z      the Z coordinate of the point
+     * @param result the array to fill with the indices of the lights in the scene, in ascending order - at
+     *               least as long as the number of the lights
+     * @param stack  the traversal stack - at least as long as {@link #getStackSize()}
+     * @return the number of the lights found
+     */
+    int find(double x, double y, double z, int[] result, int[] stack) {
+        int found = 0;
+        for (int light : unbounded) result[found++] = light;
+        if (hierarchy.size() > 0) {
+            double[] bounds = hierarchy.bounds;
+            int[] nodes = hierarchy.nodes;
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (x < bounds[6 * node] || y < bounds[6 * node + 1] || z < bounds[6 * node + 2]
+                        || x > bounds[6 * node + 3] || y > bounds[6 * node + 4] || z > bounds[6 * node + 5])
+                    continue;
+                int size = nodes[2 * node + 1];
+                if (size == 0) {
+                    stack[top++] = nodes[2 * node];
+                    stack[top++] = node + 1;
+                    continue;
+                }
+                for (int i = nodes[2 * node], end = i + size; i < end; ++i) {
+                    double dx = x - spheres[4 * i], dy = y - spheres[4 * i + 1], dz = z - spheres[4 * i + 2];
+                    if (dx * dx + dy * dy + dz * dz <= spheres[4 * i + 3]) result[found++] = order[i];
+                }
+            }
+        }
+        // the lights are shaded in the order of the scene, as without the index
+        Arrays.sort(result, 0, found);
+        return found;
+    }
+}
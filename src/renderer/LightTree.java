@@ -0,0 +1,155 @@
+package renderer;
+
+import lighting.LightSource;
+import lighting.PointLight;
+import primitives.Color;
+import primitives.Point;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A light tree - a binary hierarchy of clusters of the positioned lights of a scene, for selecting a light in
+ * proportion to its estimated contribution to a point in logarithmic time. The contribution of a cluster is
+ * estimated by its total power (the brightest channel of the intensities) over the squared distance of the
+ * point from the cluster, bounded by the size of the cluster so a point inside it doesn't favour one half.<br/>
+ * The lights without a position (like a {@link lighting.DirectionalLight}) are not in the tree - they are shaded
+ * at every point.
+ */
+final class LightTree {
+    /** The smallest squared distance of the estimation - a point on a light doesn't divide by zero */
+    private static final double MIN_DISTANCE2 = 1E-12;
+
+    /** The lights of the scene, by their index in the scene */
+    private final LightSource[] lights;
+    /** The indices in the scene of the lights without a position */
+    private final int[] unpositioned;
+    /** The indices in the scene of the positioned lights, in the order of the leaves */
+    private final int[] order;
+    /** The tree over the positions of the lights - a leaf per light */
+    private final PackedHierarchy tree;
+    /** The total power of the lights of a tree node */
+    private final double[] powers;
+
+    /**
+     * Builds the light tree.
+     *
+     * @param lights the lights of the scene
+     */
+    LightTree(List<LightSource> lights) {
+        this.lights = lights.toArray(new LightSource[0]);
+        int size = this.lights.length;
+        int[] free = new int[size];
+        int[] positioned = new int[size];
+        double[] all = new double[4 * size];
+        double[] power = new double[size];
+        int freeCount = 0, positionedCount = 0, index = 0;
+        for (LightSource light : this.lights) {
+            int i = index++;
+            if (!(light instanceof PointLight pointLight)) {
+                free[freeCount++] = i;
+                continue;
+            }
+            Point position = pointLight.getPosition();
+            Color intensity = pointLight.getIntensity();
+            all[4 * i] = position.getX();
+            all[4 * i + 1] = position.getY();
+            all[4 * i + 2] = position.getZ();
+            power[i] = Math.max(intensity.getRed(), Math.max(intensity.getGreen(), intensity.getBlue()));
+            positioned[positionedCount++] = i;
+        }
+        unpositioned = Arrays.copyOf(free, freeCount);
+        tree = new PackedHierarchy(positioned, positionedCount, all, 1);
+        order = Arrays.copyOf(positioned, positionedCount);
+
+        // a child follows its parent, so the powers of the children are summed before the parent's
+        int[] nodes = tree.nodes;
+        powers = new double[tree.size()];
+        for (int node = powers.length - 1; node >= 0; --node)
+            powers[node] = nodes[2 * node + 1] == 0
+                    ? powers[node + 1] + powers[nodes[2 * node]]
+                    : power[order[nodes[2 * node]]];
+    }
+
+    /**
+     * @return the number of the lights of the scene when the tree was built
+     */
+    int size() {
+        return lights.length;
+    }
+
+    /**
+     * Returns a light of the scene.
+     *
+     * @param index the index of the light in the scene
+     * @return the light
+     */
+    LightSource getLight(int index) {
+        return lights[index];
+    }
+
+    /**
+     * @return the indices in the scene of the lights without a position, which the tree doesn't select
+     */
+    int[] getUnpositioned() {
+        return unpositioned;
+    }
+
+    /**
+     * Estimates the contribution of a tree node to a point.
+     *
+     * @param node the node
+     * @param x    the X coordinate of the point
+     * @param y    the Y coordinate of the point
+     * @param z    the Z coordinate of the point
+     * @return the estimated contribution
+     */
+    private double importance(int node, double x, double y, double z) {
+        double distance2 = 0, radius2 = 0;
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = tree.bounds[6 * node + axis], max = tree.bounds[6 * node + 3 + axis];
+            double center = (min + max) / 2, half = (max - min) / 2;
+            double d = (axis == 0 ? x : axis == 1 ? y : z) - center;
+            distance2 += d * d;
+            radius2 += half * half;
+        }
+        return powers[node] / Math.max(Math.max(distance2, radius2), MIN_DISTANCE2);
+    }
+
+    /**
+     * Selects a positioned light for a point, in proportion to the estimated contributions - at each node the
+     * random number chooses a child by the ratio of their contributions, and is stretched back to the unit range
+     * for the next choice.
+     *
+     * @param x     the X coordinate of the point
+     * @param y     the Y coordinate of the point
+     * @param z     the Z coordinate of the point
+     * @param u     a random number in the range [0, 1)
+     * @param light an array to set its first element to the index of the selected light in the scene
+     * @return the probability of the selection, or 0 if there is no light to select
+     */
+    double select(double x, double y, double z, double u, int[] light) {
+        if (powers.length == 0 || powers[0] <= 0) return 0;
+        int[] nodes = tree.nodes;
+        double probability = 1;
+        int node = 0;
+        while (nodes[2 * node + 1] == 0) {
+            int left = node + 1, right = nodes[2 * node];
+            double leftImportance = importance(left, x, y, z), rightImportance = importance(right, x, y, z);
+            double total = leftImportance + rightImportance;
+            double pLeft = total > 0 ? leftImportance / total : 0.5;
+            if (u < pLeft) {
+                node = left;
+                u /= pLeft;
+                probability *= pLeft;
+            } else {
+                node = right;
+                u = (u - pLeft) / (1 - pLeft);
+                probability *= 1 - pLeft;
+            }
+            u = Math.min(u, Math.nextDown(1d));
+        }
+        light[0] = order[nodes[2 * node]];
+        return probability;
+    }
+}
@@ -0,0 +1,127 @@
+package renderer;
+
+import java.util.Arrays;
+
+/**
+ * A packed bounding volume hierarchy over spheres (points are spheres without a radius), shared by the light
+ * hierarchies. The nodes are kept in flat arrays in depth-first order - a node is followed by its left child.
+ * A range of spheres is split at the median of their centers along the longest axis of the box of the centers.
+ */
+final class PackedHierarchy {
+    /** Six numbers per node: the minimal and the maximal corners of the box of its spheres */
+    final double[] bounds;
+    /**
+     * Two integers per node: the index of the right child and 0 for an inner node (the left child follows its
+     * parent), or the position of the first sphere in the order and the number of spheres for a leaf
+     */
+    final int[] nodes;
+    /** Depth of the hierarchy - the size of the traversal stack */
+    final int depth;
+
+    private final double[] spheres;
+    private final int maxLeafSize;
+    private int count;
+    private int maxDepth;
+
+    /**
+     * Builds the hierarchy.
+     *
+     * @param order       the indices of the spheres - reordered so that the spheres of each leaf are consecutive
+     * @param size        the number of the spheres (the beginning of the order array)
+     * @param spheres     four numbers per sphere index: the center and the radius
+     * @param maxLeafSize the maximal number of spheres in a leaf
+     */
+    PackedHierarchy(int[] order, int size, double[] spheres, int maxLeafSize) {
+        this.spheres = spheres;
+        this.maxLeafSize = maxLeafSize;
+        int maxNodes = Math.max(1, 2 * size - 1);
+        double[] treeBounds = new double[6 * maxNodes];
+        int[] treeNodes = new int[2 * maxNodes];
+        if (size > 0) build(order, 0, size, 1, treeBounds, treeNodes);
+        bounds = Arrays.copyOf(treeBounds, 6 * count);
+        nodes = Arrays.copyOf(treeNodes, 2 * count);
+        depth = maxDepth;
+    }
+
+    /**
+     * @return the number of the nodes
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Recursively builds the sub-tree over the spheres in the range [from, to) of the order.
+     *
+     * @param order  the indices of the spheres
+     * @param from   the first position
+     * @param to     the position after the last one
+     * @param level  the level of the built node
+     * @param bounds the boxes of the nodes
+     * @param nodes  the nodes
+     */
+    private void build(int[] order, int from, int to, int level, double[] bounds, int[] nodes) {
+        maxDepth = Math.max(maxDepth, level);
+        int node = count++;
+        double[] centers = new double[6];
+        for (int axis = 0; axis < 3; ++axis) {
+            bounds[6 * node + axis] = centers[axis] = Double.POSITIVE_INFINITY;
+            bounds[6 * node + 3 + axis] = centers[3 + axis] = Double.NEGATIVE_INFINITY;
+        }
+        for (int i = from; i < to; ++i) {
+            int sphere = order[i];
+            double radius = spheres[4 * sphere + 3];
+            for (int axis = 0; axis < 3; ++axis) {
+                double center = spheres[4 * sphere + axis];
+                bounds[6 * node + axis] = Math.min(bounds[6 * node + axis], center - radius);
+                bounds[6 * node + 3 + axis] = Math.max(bounds[6 * node + 3 + axis], center + radius);
+                centers[axis] = Math.min(centers[axis], center);
+                centers[3 + axis] = Math.max(centers[3 + axis], center);
+            }
+        }
+        if (to - from <= maxLeafSize) {
+            nodes[2 * node] = from;
+            nodes[2 * node + 1] = to - from;
+            return;
+        }
+        int axis = 0;
+        for (int a = 1; a < 3; ++a)
+            if (centers[3 + a] - centers[a] > centers[3 + axis] - centers[axis]) axis = a;
+        int middle = (from + to) >>> 1;
+        partition(order, from, to, middle, axis);
+        build(order, from, middle, level + 1, bounds, nodes);
+        nodes[2 * node] = count;
+        nodes[2 * node + 1] = 0;
+        build(order, middle, to, level + 1, bounds, nodes);
+    }
+
+    /**
+     * Partially sorts a range of the order by the centers along an axis (quickselect) - the sphere at the middle
+     * position is the one a full sort would put there, and no sphere before it has a greater center.
+     *
+     * @param order  the indices of the spheres
+     * @param from   the first position
+     * @param to     the position after the last one
+     * @param middle the position to partition at
+     * @param axis   the axis
+     */
+    private void partition(int[] order, int from, int to, int middle, int axis) {
+        int low = from, high = to - 1;
+        while (low < high) {
+            double pivot = spheres[4 * order[(low + high) >>> 1] + axis];
+            int i = low, j = high;
+            while (i <= j) {
+                while (spheres[4 * order[i] + axis] < pivot) ++i;
+                while (spheres[4 * order[j] + axis] > pivot) --j;
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+            if (middle <= j) high = j;
+            else if (middle >= i) low = i;
+            else return;
+        }
+    }
+}
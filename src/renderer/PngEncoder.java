@@ -0,0 +1,275 @@
+package renderer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A PNG encoder that compresses an image in parallel - the rows are split into stripes, and each stripe is
+ * filtered and deflated on its own as a task of an executor, the way pigz does: every stripe but the last ends
+ * with a sync flush, so the compressed stripes concatenate into a single zlib stream, and each is written as an
+ * IDAT chunk of its own.<br/>
+ * The encoding never blocks a thread of the executor on another task, so it may run on any executor, also on
+ * the one that renders.
+ */
+public class PngEncoder {
+    /** The least amount of raw bytes in a stripe - a smaller stripe compresses worse */
+    private static final int STRIPE_BYTES = 1 << 17;
+    /** The modulus of the Adler-32 checksum */
+    private static final int ADLER_BASE = 65521;
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final int level;
+
+    /**
+     * Constructs an encoder.
+     *
+     * @param level the compression level - from {@link Deflater#NO_COMPRESSION} (fastest, biggest) to
+     *              {@link Deflater#BEST_COMPRESSION} (slowest, smallest), or {@link Deflater#DEFAULT_COMPRESSION}
+     * @throws IllegalArgumentException if the compression level is not valid
+     */
+    public PngEncoder(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Compression level must be from -1 to 9");
+        this.level = level;
+    }
+
+    /**
+     * A stripe of rows - filtered and deflated
+     *
+     * @param data    the deflated rows
+     * @param adler   the Adler-32 checksum of the filtered rows
+     * @param rawSize the amount of the filtered bytes
+     */
+    private record Stripe(byte[] data, long adler, long rawSize) {
+    }
+
+    /**
+     * Encodes an image into a PNG file.
+     *
+     * @param pixels   the pixels, packed RGB row after row, as {@link java.awt.image.BufferedImage#getRGB(int, int)}
+     *                 - the encoder reads them while the encoding runs, so they must not change until it completes
+     * @param width    the amount of pixels by width
+     * @param height   the amount of pixels by height
+     * @param file     the PNG file
+     * @param executor the executor of the encoding tasks
+     * @return the completion of the encoding, which fails with an {@link UncheckedIOException} on an I/O error
+     */
+    public CompletableFuture<Void> encode(int[] pixels, int width, int height, File file, Executor executor) {
+        int rowBytes = 3 * width + 1;
+        int stripeRows = Math.max(1, STRIPE_BYTES / rowBytes);
+        int stripeCount = Math.max(1, (height + stripeRows - 1) / stripeRows);
+
+        List<CompletableFuture<Stripe>> stripes = new ArrayList<>(stripeCount);
+        for (int i = 0; i < stripeCount; ++i) {
+            int first = i * stripeRows, last = Math.min(height, first + stripeRows);
+            boolean finish = i == stripeCount - 1;
+            stripes.add(CompletableFuture.supplyAsync(() -> stripe(pixels, width, first, last, finish), executor));
+        }
+        return CompletableFuture.allOf(stripes.toArray(new CompletableFuture<?>[0])).thenAcceptAsync(ignore -> {
+            try {
+                write(file, width, height, stripes.stream().map(CompletableFuture::join).toList());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Filters and deflates a stripe of rows.
+     *
+     * @param pixels the pixels of the image
+     * @param width  the amount of pixels by width
+     * @param first  the first row of the stripe
+     * @param last   the row after the stripe
+     * @param finish whether the stripe is the last one, which finishes the stream
+     * @return the stripe
+     */
+    private Stripe stripe(int[] pixels, int width, int first, int last, boolean finish) {
+        int rowBytes = 3 * width + 1;
+        byte[] raw = new byte[rowBytes * (last - first)];
+        byte[] previous = new byte[3 * width], current = new byte[3 * width];
+        if (first > 0) unpack(pixels, width, first - 1, previous);
+        for (int row = first; row < last; ++row) {
+            unpack(pixels, width, row, current);
+            filter(previous, current, raw, (row - first) * rowBytes);
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(raw);
+            if (finish) deflater.finish();
+            int flush = finish ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+            byte[] data = new byte[raw.length / 2 + 64];
+            int size = 0;
+            while (true) {
+                size += deflater.deflate(data, size, data.length - size, flush);
+                // a sync flush is complete once the output has room left
+                if (finish ? deflater.finished() : size < data.length) break;
+                if (size == data.length)
+                    data = Arrays.copyOf(data, 2 * data.length);
+            }
+            Adler32 adler = new Adler32();
+            adler.update(raw);
+            return new Stripe(Arrays.copyOf(data, size), adler.getValue(), raw.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Unpacks a row of pixels into RGB bytes.
+     *
+     * @param pixels the pixels of the image
+     * @param width  the amount of pixels by width
+     * @param row    the row
+     * @param bytes  the bytes of the row
+     */
+    private static void unpack(int[] pixels, int width, int row, byte[] bytes) {
+        for (int x = 0, i = row * width; x < width; ++x, ++i) {
+            int rgb = pixels[i];
+            bytes[3 * x] = (byte) (rgb >> 16);
+            bytes[3 * x + 1] = (byte) (rgb >> 8);
+            bytes[3 * x + 2] = (byte) rgb;
+        }
+    }
+
+    /**
+     * Filters a row with the PNG filter that leaves the smallest sum of absolute values - the common heuristic,
+     * which makes the filtered row compress best.
+     *
+     * @param previous the bytes of the previous row, zeros for the first row
+     * @param current  the bytes of the row
+     * @param raw      the filtered bytes
+     * @param offset   the offset of the row in the filtered bytes, where the filter type is written
+     */
+    private static void filter(byte[] previous, byte[] current, byte[] raw, int offset) {
+        int best = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int type = 0; type < 5; ++type) {
+            long sum = 0;
+            for (int i = 0; i < current.length && sum < bestSum; ++i)
+                sum += Math.abs((byte) filtered(type, previous, current, i));
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = type;
+            }
+        }
+        raw[offset] = (byte) best;
+        for (int i = 0; i < current.length; ++i)
+            raw[offset + 1 + i] = (byte) filtered(best, previous, current, i);
+    }
+
+    /**
+     * Filters a byte of a row.
+     *
+     * @param type     the filter type - none, sub, up, average or Paeth
+     * @param previous the bytes of the previous row
+     * @param current  the bytes of the row
+     * @param i        the index of the byte
+     * @return the filtered byte, not truncated
+     */
+    private static int filtered(int type, byte[] previous, byte[] current, int i) {
+        int x = current[i] & 0xFF;
+        int a = i < 3 ? 0 : current[i - 3] & 0xFF, b = previous[i] & 0xFF, c = i < 3 ? 0 : previous[i - 3] & 0xFF;
+        return switch (type) {
+            case 0 -> x;
+            case 1 -> x - a;
+            case 2 -> x - b;
+            case 3 -> x - (a + b) / 2;
+            default -> {
+                int p = a + b - c, pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+                yield x - (pa <= pb && pa <= pc ? a : pb <= pc ? b : c);
+            }
+        };
+    }
+
+    /**
+     * Writes the PNG file of the deflated stripes.
+     *
+     * @param file    the PNG file
+     * @param width   the amount of pixels by width
+     * @param height  the amount of pixels by height
+     * @param stripes the stripes in order
+     * @throws IOException on an I/O error
+     */
+    private static void write(File file, int width, int height, Iterable<Stripe> stripes) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.write(SIGNATURE);
+            byte[] header = {0, 0, 0, 0, 0, 0, 0, 0, 8, 2, 0, 0, 0}; // 8 bit RGB, not interlaced
+            header[0] = (byte) (width >>> 24);
+            header[1] = (byte) (width >>> 16);
+            header[2] = (byte) (width >>> 8);
+            header[3] = (byte) width;
+            header[4] = (byte) (height >>> 24);
+            header[5] = (byte) (height >>> 16);
+            header[6] = (byte) (height >>> 8);
+            header[7] = (byte) height;
+            chunk(out, "IHDR", header, header.length);
+
+            long checksum = 1; // the checksum of no data
+            chunk(out, "IDAT", new byte[]{0x78, 0x01}, 2); // the zlib header of a stream without a dictionary
+            for (Stripe stripe : stripes) {
+                checksum = combine(checksum, stripe.adler, stripe.rawSize);
+                chunk(out, "IDAT", stripe.data, stripe.data.length);
+            }
+            chunk(out, "IDAT", new byte[]{(byte) (checksum >>> 24), (byte) (checksum >>> 16),
+                    (byte) (checksum >>> 8), (byte) checksum}, 4);
+            chunk(out, "IEND", new byte[0], 0);
+        }
+    }
+
+    /**
+     * Writes a PNG chunk.
+     *
+     * @param out    the output
+     * @param type   the type of the chunk
+     * @param data   the data of the chunk
+     * @param length the length of the data
+     * @throws IOException on an I/O error
+     */
+    private static void chunk(DataOutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Combines the Adler-32 checksums of two consecutive blocks of data, as adler32_combine of zlib does.
+     *
+     * @param adler1 the checksum of the first block
+     * @param adler2 the checksum of the second block
+     * @param size2  the amount of bytes of the second block
+     * @return the checksum of both blocks
+     */
+    private static long combine(long adler1, long adler2, long size2) {
+        long remainder = size2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = remainder * sum1 % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += (adler1 >>> 16 & 0xFFFF) + (adler2 >>> 16 & 0xFFFF) + ADLER_BASE - remainder;
+        sum1 %= ADLER_BASE;
+        sum2 %= ADLER_BASE;
+        return sum1 | sum2 << 16;
+    }
+}
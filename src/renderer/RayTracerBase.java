@@ -1,5 +1,6 @@
 package renderer;
 import primitives.Color;
+import primitives.ColorAccumulator;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -39,15 +40,17 @@ public abstract class RayTracerBase {
      */
     public Color traceMultipleRays(List<Ray> rays) {
         int size = rays.size(); // Get the number of rays in the list.
-        Color avgColor = Color.BLACK; // Initialize the average color to black.
+        if (size == 0) return Color.BLACK;
+        // Initialize the average color to black - it is accumulated in place and validated once at the end.
+        ColorAccumulator avgColor = new ColorAccumulator();
 
         // Iterate over each ray in the list of rays.
         for (Ray ray : rays) {
             // Trace the current ray and add the resulting color to the average color scaled by 1.0 / size.
-            avgColor = avgColor.add(traceRay(ray).reduce(size));
+            avgColor.add(traceRay(ray), size);
         }
 
-        return avgColor; // Return the average color of the traced rays.
+        return avgColor.toColor(); // Return the average color of the traced rays.
     }
 
 }
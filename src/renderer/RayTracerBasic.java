@@ -1,13 +1,18 @@
 package renderer;
-import geometries.Intersectable.GeoPoint;
+import geometries.Geometry;
+import geometries.Intersectable.Intersection;
+import geometries.RayPacket;
 import primitives.*;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 import scene.Scene;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 import static primitives.Util.*;
 import lighting.*;
+import sampling.CounterRandom;
+import sampling.Sampler;
 
 /**
 
@@ -24,6 +29,152 @@ public class RayTracerBasic extends RayTracerBase {
     private static final int MAX_CALC_COLOR_LEVEL = 10;
     private static final double MIN_CALC_COLOR_K = 0.001;
     private static final Double3 K = Double3.ONE;
+    /**
+     * number of rays traced together in packet tracing mode
+     */
+    private static final int PACKET_SIZE = 8;
+    /**
+     * the random dimension of the selection of lights - apart from the dimensions of the samplers
+     */
+    private static final int LIGHT_SELECTION = -1;
+
+    private boolean packetTracing = false;
+    private boolean occluderCache = true;
+    private double lightCutoff = 0;
+    /** The index of the lights for the light cutoff, built on the first use */
+    private volatile LightIndex lightIndex;
+    private int lightSamples = 0;
+    /** The light tree for the light sampling, built on the first use */
+    private volatile LightTree lightTree;
+
+    /**
+     * The scratch triads of a recursion level of the shading - the shading works on them instead of creating
+     * points and vectors for every light at every hit
+     */
+    private static final class Frame {
+        /** The intersected geometry */
+        Geometry geometry;
+        /** The intersection point */
+        final Vec3 point = new Vec3();
+        /** The normal at the intersection point */
+        final Vec3 normal = new Vec3();
+        /** The direction of the current light */
+        final Vec3 l = new Vec3();
+        /** The color at the intersection point */
+        final ColorAccumulator color = new ColorAccumulator();
+        /** The intensity of the current light at the intersection point */
+        final ColorAccumulator light = new ColorAccumulator();
+        /** The current sample point on an area light */
+        final Vec3 sample = new Vec3();
+        /** The samples of the surface of an area light, as pairs of coordinates */
+        double[] samples = new double[0];
+        /** The indices of the lights that may contribute to the intersection point */
+        int[] lights = new int[0];
+        /** The traversal stack of the light index */
+        int[] stack = new int[0];
+
+        /**
+         * Returns the lights array of the frame, grown to a number of lights.
+         *
+         * @param count the number of lights
+         * @return the lights array
+         */
+        int[] lights(int count) {
+            if (lights.length < count) lights = new int[count];
+            return lights;
+        }
+
+        /**
+         * Returns the traversal stack of the frame, grown to a size.
+         *
+         * @param size the size of the stack
+         * @return the stack
+         */
+        int[] stack(int size) {
+            if (stack.length < size) stack = new int[size];
+            return stack;
+        }
+
+        /**
+         * Returns the samples array of the frame, grown to a number of samples.
+         *
+         * @param count the number of samples
+         * @return the samples array
+         */
+        double[] samples(int count) {
+            if (samples.length < 2 * count) samples = new double[2 * count];
+            return samples;
+        }
+
+        /**
+         * Sets the frame to an intersection.
+         *
+         * @param intersection the intersection
+         */
+        void set(Intersection intersection) {
+            geometry = intersection.geometry;
+            intersection.ray.getPoint(intersection.t, point);
+            geometry.getNormal(point.x, point.y, point.z, normal);
+        }
+    }
+
+    /**
+     * The frames of the recursion levels of the shading per thread, indexed by the level
+     */
+    private static final ThreadLocal<Frame[]> FRAMES = ThreadLocal.withInitial(() -> {
+        Frame[] frames = new Frame[MAX_CALC_COLOR_LEVEL + 1];
+        for (int level = 1; level <= MAX_CALC_COLOR_LEVEL; ++level)
+            frames[level] = new Frame();
+        return frames;
+    });
+
+    /**
+     * The last opaque occluders of the shadow rays of the lights of a thread - the shadow rays of neighbouring
+     * points are usually blocked by the same geometry, so it is tested before the whole scene
+     */
+    private static final class OccluderCache {
+        /** The lights of the cached occluders, indexed by the index of the light in the scene */
+        LightSource[] lights = new LightSource[0];
+        /** The last occluders, indexed by the index of the light in the scene */
+        Geometry[] occluders = new Geometry[0];
+        /** The geometry that blocked the last shadow ray searched in the whole scene */
+        final Geometry[] blocker = new Geometry[1];
+
+        /**
+         * Returns the last occluder of a light.
+         *
+         * @param light the light
+         * @param index the index of the light in the scene
+         * @return the occluder, or null if there is none
+         */
+        Geometry get(LightSource light, int index) {
+            return index < lights.length && lights[index] == light ? occluders[index] : null;
+        }
+
+        /**
+         * Sets the last occluder of a light.
+         *
+         * @param light    the light
+         * @param index    the index of the light in the scene
+         * @param occluder the occluder
+         */
+        void put(LightSource light, int index, Geometry occluder) {
+            if (index >= lights.length) {
+                lights = Arrays.copyOf(lights, index + 1);
+                occluders = Arrays.copyOf(occluders, index + 1);
+            }
+            lights[index] = light;
+            occluders[index] = occluder;
+        }
+    }
+
+    /**
+     * The occluder caches of this ray tracer per thread - not shared between ray tracers, since the occluders
+     * belong to the scene
+     */
+    private final ThreadLocal<OccluderCache> occluders = ThreadLocal.withInitial(OccluderCache::new);
+    private final LongAdder occluderHits = new LongAdder();
+    private final LongAdder occluderMisses = new LongAdder();
 
     /**
      * Constructs a new instance of RayTracerBasic with the given Scene.
@@ -34,6 +185,124 @@ public class RayTracerBasic extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Sets the packet tracing mode - the rays of a beam (super sampling, depth of field) find their closest
+     * intersections in packets of coherent rays that traverse the scene together, instead of one at a time.
+     *
+     * @param packetTracing true for tracing beams in packets
+     * @return this ray tracer - for chaining
+     */
+    public RayTracerBasic setPacketTracing(boolean packetTracing) {
+        this.packetTracing = packetTracing;
+        return this;
+    }
+
+    /**
+     * Sets the last occluder cache - each thread remembers the last opaque geometry that blocked a shadow ray
+     * of each light, and tests it before searching the whole scene. The shadows don't change, only their cost.
+     * The cache assumes that no geometry is removed from the scene during the rendering.
+     *
+     * @param occluderCache true for caching the last occluders (the default)
+     * @return this ray tracer - for chaining
+     */
+    public RayTracerBasic setOccluderCache(boolean occluderCache) {
+        this.occluderCache = occluderCache;
+        return this;
+    }
+
+    /**
+     * Sets the light cutoff - the intensity below which the attenuated light of a light source is invisible.
+     * Every point light gets a sphere of influence beyond which it is attenuated below the cutoff, and the
+     * lights are indexed by their spheres, so a point is shaded only by the lights that may contribute to it
+     * visibly, without a shadow ray to any other light.
+     *
+     * @param lightCutoff the intensity of the cutoff, in the units of the colors - 0 (the default) shades every
+     *                    point by all the lights
+     * @return this ray tracer - for chaining
+     * @throws IllegalArgumentException if the cutoff is negative
+     */
+    public RayTracerBasic setLightCutoff(double lightCutoff) {
+        if (lightCutoff < 0)
+            throw new IllegalArgumentException("The light cutoff must not be negative");
+        this.lightCutoff = lightCutoff;
+        this.lightIndex = null;
+        return this;
+    }
+
+    /**
+     * Sets the light sampling - a point is shaded by a fixed number of lights, selected at random from a light
+     * tree in proportion to their estimated contribution, instead of by all the lights. The effect of each
+     * selected light is divided by the probability of its selection and by the number of the samples, so the
+     * expected shading is the shading by all the lights, and the cost per point doesn't depend on the number
+     * of the lights. The light sampling takes precedence over the light cutoff.
+     *
+     * @param lightSamples the number of the lights per point - 0 (the default) shades every point by all the
+     *                     lights
+     * @return this ray tracer - for chaining
+     * @throws IllegalArgumentException if the number is negative
+     */
+    public RayTracerBasic setLightSampling(int lightSamples) {
+        if (lightSamples < 0)
+            throw new IllegalArgumentException("The number of light samples must not be negative");
+        this.lightSamples = lightSamples;
+        this.lightTree = null;
+        return this;
+    }
+
+    /**
+     * Returns the number of the shadow rays that were blocked by the last occluder of their light.
+     *
+     * @return the number of the cache hits
+     */
+    public long getOccluderHits() {
+        return occluderHits.sum();
+    }
+
+    /**
+     * Returns the number of the shadow rays that searched the whole scene while the cache was on.
+     *
+     * @return the number of the cache misses
+     */
+    public long getOccluderMisses() {
+        return occluderMisses.sum();
+    }
+
+    /**
+     * Resets the hit and miss statistics of the last occluder cache.
+     */
+    public void resetOccluderStatistics() {
+        occluderHits.reset();
+        occluderMisses.reset();
+    }
+
+    /**
+     * Traces multiple rays and returns the average color. In packet tracing mode the closest intersections
+     * are found for a packet of rays at a time, and then each ray is shaded on its own.
+     *
+     * @param rays The list of rays to trace.
+     * @return The average color of the traced rays.
+     */
+    @Override
+    public Color traceMultipleRays(List<Ray> rays) {
+        if (!packetTracing) return super.traceMultipleRays(rays);
+
+        List<Ray> all = rays instanceof RandomAccess ? rays : new ArrayList<>(rays);
+        int size = all.size();
+        if (size == 0) return Color.BLACK;
+        ColorAccumulator avgColor = new ColorAccumulator();
+        for (int from = 0; from < size; from += PACKET_SIZE) {
+            RayPacket packet = new RayPacket(all.subList(from, Math.min(from + PACKET_SIZE, size)));
+            scene.geometries.findClosestIntersections(packet);
+            for (int lane = 0; lane < packet.size; ++lane) {
+                Intersection intersection = packet.getIntersection(lane);
+                Color color = intersection == null ? scene.background
+                        : calcColor(intersection, packet.getRay(lane));
+                avgColor.add(color, size);
+            }
+        }
+        return avgColor.toColor();
+    }
+
     /**
      * Traces a ray through the scene and calculates the color of the closest intersection point.
      * If no intersections are found, returns the background color of the scene.
@@ -44,7 +313,7 @@ public class RayTracerBasic extends RayTracerBase {
      */
     @Override
     public Color traceRay(Ray ray) {
-        GeoPoint closestPoint = findClosestIntersection(ray);
+        Intersection closestPoint = findClosestIntersection(ray);
         return closestPoint == null ? scene.background
                 : calcColor(closestPoint, ray);
     }
@@ -57,8 +326,8 @@ public class RayTracerBasic extends RayTracerBase {
      * @param n     The surface normal vector.
      * @return The constructed refracted ray.
      */
-    private Ray constructRefractedRay(Point point, Vector v, Vector n) {
-        return new Ray(point, n, v);
+    private Ray constructRefractedRay(Vec3 point, Vector v, Vec3 n) {
+        return new Ray(point, n, v.getX(), v.getY(), v.getZ());
     }
     /**
      * Constructs a reflected ray at the given intersection point with the given incident vector and surface normal.
@@ -69,16 +338,16 @@ public class RayTracerBasic extends RayTracerBase {
      * @param n        The surface normal vector.
      * @return The constructed reflected ray.
      */
-    private Ray constructReflectedRay(Point pointGeo, Vector v, Vector n) {
+    private Ray constructReflectedRay(Vec3 pointGeo, Vector v, Vec3 n) {
         //r = v - 2.(v.n).n
-        double vn = v.dotProduct(n);
+        double vn = n.dotProduct(v);
 
         if (vn == 0) {
             return null;
         }
 
-        Vector r = v.subtract(n.scale(2 * vn));
-        return new Ray(pointGeo, n, r);
+        double scale = 2 * vn;
+        return new Ray(pointGeo, n, v.getX() - n.x * scale, v.getY() - n.y * scale, v.getZ() - n.z * scale);
     }
 
 
@@ -86,13 +355,16 @@ public class RayTracerBasic extends RayTracerBase {
      * Calculates the color at the given intersection point and ray by considering both local and global effects.
      * The color is calculated by adding the local effects and the global effects to the ambient light intensity.
      *
-     * @param geoPoint The intersection point.
-     * @param ray      The ray used for the calculation.
+     * @param intersection The intersection point.
+     * @param ray          The ray used for the calculation.
      * @return The calculated color at the intersection point.
      */
-    private Color calcColor(GeoPoint geoPoint, Ray ray) {
-        return calcColor(geoPoint, ray, MAX_CALC_COLOR_LEVEL, K)
-                .add(scene.ambientLight.getIntensity());
+    private Color calcColor(Intersection intersection, Ray ray) {
+        Frame[] frames = FRAMES.get();
+        Frame frame = frames[MAX_CALC_COLOR_LEVEL];
+        frame.set(intersection);
+        return calcColor(frame, ray, MAX_CALC_COLOR_LEVEL, K, frames)
+                .add(scene.ambientLight.getIntensity()).toColor();
     }
 
 
@@ -100,57 +372,134 @@ public class RayTracerBasic extends RayTracerBase {
      * Calculates the color at the given intersection point and ray by considering both local and global effects recursively.
      * The color is calculated by adding the local effects and the global effects recursively until the maximum recursion level is reached.
      *
-     * @param intersection The intersection point.
-     * @param ray          The ray used for the calculation.
-     * @param level        The current recursion level.
-     * @param k            The accumulated transparency coefficient.
-     * @return The calculated color at the intersection point.
+     * @param frame  The frame of the intersection point.
+     * @param ray    The ray used for the calculation.
+     * @param level  The current recursion level.
+     * @param k      The accumulated transparency coefficient.
+     * @param frames The frames of the recursion levels.
+     * @return The calculated color at the intersection point, accumulated in the frame.
      */
-    private Color calcColor(GeoPoint intersection, Ray ray, int level, Double3 k) {
-    Color color = calcLocalEffects(intersection, ray,k);
-    return 1 == level ? color : color.add(calcGlobalEffects(intersection, ray, level, k));
+    private ColorAccumulator calcColor(Frame frame, Ray ray, int level, Double3 k, Frame[] frames) {
+    ColorAccumulator color = calcLocalEffects(frame, ray, k);
+    return 1 == level ? color : color.add(calcGlobalEffects(frame, ray, level, k, frames));
     }
 
 
 
 
     /**
-     * Calculates the local effects (diffuse and specular) at the given GeoPoint for the given Ray.
+     * Calculates the local effects (diffuse and specular) at the given intersection point for the given Ray.
      *
-     * @param gp  The GeoPoint at which to calculate the local effects.
-     * @param ray The Ray used for the calculation.
-     * @return The Color representing the local effects at the GeoPoint.
+     * @param frame The frame of the intersection point at which to calculate the local effects.
+     * @param ray   The Ray used for the calculation.
+     * @return The Color representing the local effects at the intersection point, accumulated in the frame.
      */
 
-    private Color calcLocalEffects(GeoPoint gp, Ray ray,Double3 k) {
-        Color color = gp.geometry.getEmission();
+    private ColorAccumulator calcLocalEffects(Frame frame, Ray ray, Double3 k) {
+        ColorAccumulator color = frame.color.set(frame.geometry.getEmission());
         Vector v = ray.getDir();
-        Vector n = gp.geometry.getNormal(gp.point);
+        Vec3 n = frame.normal, p = frame.point;
         double nv = alignZero(n.dotProduct(v));
         if (nv == 0) return color;
-        Material material = gp.geometry.getMaterial();
-        for (LightSource lightSource : scene.lights) {
-            Vector l = lightSource.getL(gp.point);
-            double nl = alignZero(n.dotProduct(l));
-            if (nl * nv > 0) { // sign(nl) == sign(nv)
-                //if (unshaded(gp, lightSource, l, n)) {
-                    Double3 ktr = transparency(lightSource, l, n, gp);
-                    if (!ktr.product(k).lowerThan(MIN_CALC_COLOR_K)) {
-                        Color iL = lightSource.getIntensity(gp.point).scale(ktr);
-                        color = color.add(
-                                calcDiffusive(material.KD, nl, iL),
-                                calcSpecular(material.KS, n, l, nl, v, material.nShininess, iL)
-                        );
-                    }
-                //}
+        Material material = frame.geometry.getMaterial();
+        LightTree lightTree = getLightTree();
+        LightIndex lightIndex = lightTree == null ? getLightIndex() : null;
+        if (lightTree != null) {
+            for (int index : lightTree.getUnpositioned())
+                calcLightEffects(lightTree.getLight(index), index, frame, v, nv, material, k, 1);
+            // the selections are keyed by the intersection point, so they don't depend on the order of the rays
+            int keyX = 31 * Double.hashCode(p.x) + Double.hashCode(p.z), keyY = Double.hashCode(p.y);
+            int[] selected = frame.lights(1);
+            for (int sample = 0; sample < lightSamples; ++sample) {
+                double u = CounterRandom.uniform(keyX, keyY, sample, LIGHT_SELECTION);
+                double probability = lightTree.select(p.x, p.y, p.z, u, selected);
+                if (probability > 0)
+                    calcLightEffects(lightTree.getLight(selected[0]), selected[0], frame, v, nv, material, k,
+                            probability * lightSamples);
             }
+        } else if (lightIndex == null) {
+            int index = 0;
+            for (LightSource lightSource : scene.lights)
+                calcLightEffects(lightSource, index++, frame, v, nv, material, k, 1);
+        } else {
+            int[] lights = frame.lights(lightIndex.size()), stack = frame.stack(lightIndex.getStackSize());
+            for (int i = 0, count = lightIndex.find(p.x, p.y, p.z, lights, stack); i < count; ++i)
+                calcLightEffects(lightIndex.getLight(lights[i]), lights[i], frame, v, nv, material, k, 1);
         }
         return color;
     }
 
+    /**
+     * Adds the local effects (diffuse and specular) of a light at the intersection point of a frame.
+     *
+     * @param lightSource The light source.
+     * @param index       The index of the light in the scene.
+     * @param frame       The frame of the intersection point - its color accumulates the effects.
+     * @param v           The direction of the ray.
+     * @param nv          The dot product of the normal and the ray direction at the intersection point.
+     * @param material    The material at the intersection point.
+     * @param k           The accumulated transparency coefficient.
+     * @param reduction   The factor to divide the effects by - the weight of a sampled light, or 1.
+     */
+    private void calcLightEffects(LightSource lightSource, int index, Frame frame, Vector v, double nv,
+                                  Material material, Double3 k, double reduction) {
+        Vec3 n = frame.normal, l = frame.l, p = frame.point;
+        lightSource.getL(p.x, p.y, p.z, l);
+        double nl = alignZero(n.dotProduct(l));
+        if (nl * nv > 0) { // sign(nl) == sign(nv)
+            Double3 ktr = lightSource instanceof AreaLight areaLight
+                    ? transparency(areaLight, index, frame, nv)
+                    : transparency(lightSource, index, frame);
+            if (!ktr.productLowerThan(k, MIN_CALC_COLOR_K)) {
+                ColorAccumulator iL = frame.light.set(lightSource.getIntensity(p.x, p.y, p.z)).scale(ktr);
+                if (reduction != 1) iL.reduce(reduction);
+                calcDiffusive(material.KD, nl, iL, frame.color);
+                calcSpecular(material.KS, n, l, nl, v, material.nShininess, iL, frame.color);
+            }
+        }
+    }
+
+    /**
+     * Returns the light tree of the lights of the scene for the light sampling, built on the first use and again
+     * whenever lights were added to the scene.
+     *
+     * @return the tree, or null when there is no light sampling
+     */
+    private LightTree getLightTree() {
+        if (lightSamples == 0) return null;
+        LightTree tree = lightTree;
+        if (tree == null || tree.size() != scene.lights.size()) {
+            synchronized (this) {
+                tree = lightTree;
+                if (tree == null || tree.size() != scene.lights.size())
+                    lightTree = tree = new LightTree(scene.lights);
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Returns the index of the lights of the scene for the light cutoff, built on the first use and again
+     * whenever lights were added to the scene.
+     *
+     * @return the index, or null when there is no cutoff
+     */
+    private LightIndex getLightIndex() {
+        if (lightCutoff == 0) return null;
+        LightIndex index = lightIndex;
+        if (index == null || index.size() != scene.lights.size()) {
+            synchronized (this) {
+                index = lightIndex;
+                if (index == null || index.size() != scene.lights.size())
+                    lightIndex = index = new LightIndex(scene.lights, lightCutoff);
+            }
+        }
+        return index;
+    }
+
 
     /**
-     * Calculates the specular reflection color for the given material properties and lighting conditions.
+     * Adds the specular reflection color for the given material properties and lighting conditions.
      *
      * @param kS        The specular coefficient of the material.
      * @param n         The surface normal vector.
@@ -159,144 +508,190 @@ public class RayTracerBasic extends RayTracerBase {
      * @param v         The view vector.
      * @param shininess The shininess factor of the material.
      * @param intensity The intensity of the light source.
-     * @return The Color representing the specular reflection.
+     * @param color     The color to add the specular reflection to.
      */
-    private Color calcSpecular(Double3 kS, Vector n, Vector l, double nl, Vector v, int shininess, Color intensity) {
-        Vector r = l.add(n.scale(-2 * nl));
-        double VR = -alignZero(r.dotProduct(v));
+    private void calcSpecular(Double3 kS, Vec3 n, Vec3 l, double nl, Vector v, int shininess,
+                              ColorAccumulator intensity, ColorAccumulator color) {
+        double scale = -2 * nl;
+        double VR = -alignZero((l.x + n.x * scale) * v.getX() + (l.y + n.y * scale) * v.getY()
+                + (l.z + n.z * scale) * v.getZ());
         if (VR <= 0)
-            return Color.BLACK;
-        Double3 amount = kS.scale(Math.pow(VR, shininess));
-        return intensity.scale(amount);
+            return;
+        color.add(intensity, kS, Math.pow(VR, shininess));
     }
 
     /**
-     * Calculates the diffuse reflection color for the given material properties and lighting conditions.
+     * Adds the diffuse reflection color for the given material properties and lighting conditions.
      *
      * @param kD        The diffuse coefficient of the material.
      * @param nl        The dot product of the surface normal and the vector towards the light source.
      * @param intensity The intensity of the light source.
-     * @return The Color representing the diffuse reflection.
+     * @param color     The color to add the diffuse reflection to.
      */
-    private Color calcDiffusive(Double3 kD, double nl, Color intensity) {
+    private void calcDiffusive(Double3 kD, double nl, ColorAccumulator intensity, ColorAccumulator color) {
         double abs_nl = Math.abs(nl);
-        Double3 amount = kD.scale(abs_nl);
-        return intensity.scale(amount);
+        color.add(intensity, kD, abs_nl);
     }
 
-    /**
-     * Checks if the given point is unshaded by other objects in the scene in the direction of the light source.
-     *
-     * @param gp    the intersection point
-     * @param l     the direction vector towards the light source
-     * @param n     the surface normal vector at the intersection point
-     * @param lightSource the light source
-     * @return true if the point is unshaded, false otherwise
-     */
-//
-    private boolean unshaded(GeoPoint gp, LightSource lightSource, Vector l, Vector n) {
-
-        Vector lightDirection = l.scale(-1); // from point to light source
-
-        Ray lightRay = new Ray(gp.point,n,lightDirection);
-        double lightDistance = lightSource.getDistance(gp.point);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay,lightDistance);
-
-        if (intersections == null){
-            return true;
-        }
-
-        for (var item : intersections){
-            if (item.geometry.getMaterial().getKt().lowerThan(MIN_CALC_COLOR_K)) {
-                    return false;
-                }
-        }
-
-        return true;
-    }
     /**
      * Finds the closest intersection between the given ray and the scene's geometries.
+     * The search narrows its maximal distance as closer intersections are found, so that no list of all the
+     * intersections is built.
      *
      * @param ray The ray to intersect with the geometries.
-     * @return The closest intersection point (GeoPoint), or null if no intersections were found.
+     * @return The hit record of the closest intersection, or null if no intersections were found.
      */
-    private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray);
-        if (intersections == null) {
-            return null;
-        }
-        return ray.findClosestGeoPoint(intersections);
+    private Intersection findClosestIntersection(Ray ray) {
+        return scene.geometries.findClosestIntersection(ray);
     }
 
 
     /**
-     * Calculates the global effects (reflection and refraction) at the given GeoPoint for the given Ray.
+     * Calculates the global effects (reflection and refraction) at the given intersection point for the given Ray.
      *
-     * @param gp    The GeoPoint at which to calculate the global effects.
-     * @param ray   The Ray used for the calculation.
-     * @param level The recursion level.
-     * @param k     The accumulated transparency factor.
-     * @return The Color representing the global effects at the GeoPoint.
+     * @param frame  The frame of the intersection point at which to calculate the global effects.
+     * @param ray    The Ray used for the calculation.
+     * @param level  The recursion level.
+     * @param k      The accumulated transparency factor.
+     * @param frames The frames of the recursion levels.
+     * @return The Color representing the global effects at the intersection point.
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
+    private Color calcGlobalEffects(Frame frame, Ray ray, int level, Double3 k, Frame[] frames) {
         Color color = Color.BLACK;
         Vector v = ray.getDir();
-        Vector n = gp.geometry.getNormal(gp.point);
-        Material material = gp.geometry.getMaterial();
+        Material material = frame.geometry.getMaterial();
         Double3 kr = material.KR, kkr = k.product(kr);
-        Ray reflectedRay = constructReflectedRay(gp.point,v,n);
         if (!kkr.lowerThan(MIN_CALC_COLOR_K)) {
-            color = color.add(calcGlobalEffect(reflectedRay, level , kr, kkr)).scale(kr);
+            Ray reflectedRay = constructReflectedRay(frame.point, v, frame.normal);
+            color = color.add(calcGlobalEffect(reflectedRay, level , kr, kkr, frames)).scale(kr);
         }
         Double3 kt = material.KT, kkt = k.product(kt);
-        Ray refractedRay = constructRefractedRay(gp.point,v,n);
         if (!kkt.lowerThan(MIN_CALC_COLOR_K)) {
-            color = color.add(calcGlobalEffect(refractedRay, level , kt, kkt)).scale(kt);
+            Ray refractedRay = constructRefractedRay(frame.point, v, frame.normal);
+            color = color.add(calcGlobalEffect(refractedRay, level , kt, kkt, frames)).scale(kt);
         }
         return color;
     }
     /**
      * Calculates the color contributed by global effects (reflection or refraction) for a given ray and level.
      *
-     * @param ray   The ray to trace for global effects.
-     * @param level The recursion level.
-     * @param k     The accumulated transparency factor.
-     * @param kx    The transparency factor of the current surface.
+     * @param ray    The ray to trace for global effects.
+     * @param level  The recursion level.
+     * @param k      The accumulated transparency factor.
+     * @param kx     The transparency factor of the current surface.
+     * @param frames The frames of the recursion levels.
      * @return The Color representing the global effects contribution.
      */
-    private Color calcGlobalEffect(Ray ray, int level, Double3 k, Double3 kx) {
+    private Color calcGlobalEffect(Ray ray, int level, Double3 k, Double3 kx, Frame[] frames) {
         Double3 kkx = k.product(kx);
         if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
-        GeoPoint gp = findClosestIntersection(ray);
-        if (gp == null) return scene.background.scale(kx);
-        return isZero(gp.geometry.getNormal(gp.point).dotProduct(ray.getDir()))
-                ? Color.BLACK : calcColor(gp, ray, level - 1, kkx);
+        Intersection intersection = findClosestIntersection(ray);
+        if (intersection == null) return scene.background.scale(kx);
+        Frame frame = frames[level - 1];
+        frame.set(intersection);
+        return isZero(frame.normal.dotProduct(ray.getDir()))
+                ? Color.BLACK : calcColor(frame, ray, level - 1, kkx, frames).toColor();
     }
     /**
-     * Calculates the transparency factor (ktr) for a given light source, light direction, surface normal, and intersection point.
+     * Calculates the transparency factor (ktr) for the current light source of a frame - its direction is the
+     * light direction of the frame.
      *
      * @param lightSource The light source.
-     * @param l           The light direction.
-     * @param n           The surface normal.
-     * @param gp          The intersection point.
+     * @param index       The index of the light in the scene.
+     * @param frame       The frame of the intersection point.
      * @return The transparency factor (ktr).
      */
-    private Double3 transparency(LightSource lightSource, Vector l, Vector n, GeoPoint gp) {
-        Vector lightDirection = l.scale(-1); // from point to light source
-        Ray lightRay = new Ray(gp.point, n, lightDirection);
-        double lightDistance = lightSource.getDistance(gp.point);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay,lightDistance);
-        if (intersections == null) {
-            return K;
-        }
-        Double3 ktr = Double3.ONE;
-        for (GeoPoint geoPoint : intersections) {
-            Double3 kt = geoPoint.geometry.getMaterial().getKt();
-            ktr = ktr.product(kt);
-            if (ktr.lowerThan(MIN_CALC_COLOR_K)) {
-                return Double3.ZERO;
-            }
+    private Double3 transparency(LightSource lightSource, int index, Frame frame) {
+        Vec3 p = frame.point, l = frame.l;
+        // from point to light source
+        Ray lightRay = new Ray(p, frame.normal, -l.x, -l.y, -l.z);
+        double lightDistance = lightSource.getDistance(p.x, p.y, p.z);
+        return findTransparency(lightSource, index, lightRay, lightDistance);
+    }
+
+    /**
+     * Finds the transparency of a shadow ray of a light. The last occluder of the light is tested first, and
+     * only when it doesn't block the ray the whole scene is searched - and when the geometry that blocked the
+     * ray in the search is opaque, it becomes the last occluder of the light.
+     *
+     * @param light    The light source.
+     * @param index    The index of the light in the scene.
+     * @param lightRay The shadow ray.
+     * @param distance The distance of the light along the ray.
+     * @return The transparency factor (ktr).
+     */
+    private Double3 findTransparency(LightSource light, int index, Ray lightRay, double distance) {
+        if (!occluderCache) return scene.geometries.findTransparency(lightRay, distance, K, MIN_CALC_COLOR_K);
+        OccluderCache cache = occluders.get();
+        Geometry occluder = cache.get(light, index);
+        if (occluder != null
+                && occluder.findTransparency(lightRay, distance, K, MIN_CALC_COLOR_K).lowerThan(MIN_CALC_COLOR_K)) {
+            occluderHits.increment();
+            return Double3.ZERO;
         }
+        occluderMisses.increment();
+        Geometry[] blocker = cache.blocker;
+        Double3 ktr = scene.geometries.findTransparency(lightRay, distance, K, MIN_CALC_COLOR_K, blocker);
+        // an opaque geometry blocks the next rays alone, even behind transparent ones
+        if (blocker[0] != null && blocker[0].getMaterial().getKt().lowerThan(MIN_CALC_COLOR_K))
+            cache.put(light, index, blocker[0]);
+        blocker[0] = null;
         return ktr;
     }
+
+    /**
+     * Calculates the transparency factor (ktr) for an area light - the average transparency of shadow rays to
+     * sample points on its surface. A few probe rays are cast first, and when they all agree the point is fully
+     * lit or fully shadowed, so the rest of the budget of shadow rays is cast only in the penumbra.
+     *
+     * @param light The area light.
+     * @param index The index of the light in the scene - it selects the sampling dimension of the light.
+     * @param frame The frame of the intersection point.
+     * @param nv    The dot product of the normal and the ray direction at the intersection point.
+     * @return The transparency factor (ktr).
+     */
+    private Double3 transparency(AreaLight light, int index, Frame frame, double nv) {
+        Vec3 p = frame.point;
+        int budget = light.getShadowRays(), probes = light.getProbeRays();
+        double[] points = frame.samples(budget);
+        // the samples are keyed by the intersection point, so they don't depend on the order of the rays
+        int keyX = 31 * Double.hashCode(p.x) + Double.hashCode(p.z), keyY = Double.hashCode(p.y);
+        Sampler sampler = light.getSampler();
+        sampler.samples(keyX, keyY, Sampler.LIGHT + index, 0, probes, points);
+        Double3 first = sampleTransparency(light, index, points, 0, frame, nv), sum = first;
+        boolean penumbra = false;
+        for (int i = 1; i < probes; ++i) {
+            Double3 ktr = sampleTransparency(light, index, points, i, frame, nv);
+            penumbra |= !ktr.equals(first);
+            sum = sum.add(ktr);
+        }
+        if (!penumbra) return first;
+        sampler.samples(keyX, keyY, Sampler.LIGHT + index, probes, budget - probes, points);
+        for (int i = 0; i < budget - probes; ++i)
+            sum = sum.add(sampleTransparency(light, index, points, i, frame, nv));
+        return sum.reduce(budget);
+    }
+
+    /**
+     * Calculates the transparency factor (ktr) of a shadow ray to a sample point on the surface of an area light.
+     *
+     * @param light  The area light.
+     * @param index  The index of the light in the scene.
+     * @param points The samples of the surface.
+     * @param i      The index of the sample.
+     * @param frame  The frame of the intersection point.
+     * @param nv     The dot product of the normal and the ray direction at the intersection point.
+     * @return The transparency factor (ktr), zero when the sample point is behind the surface.
+     */
+    private Double3 sampleTransparency(AreaLight light, int index, double[] points, int i, Frame frame,
+                                       double nv) {
+        Vec3 p = frame.point, n = frame.normal;
+        Vec3 sample = light.getSamplePoint(points, i, frame.sample);
+        double dx = sample.x - p.x, dy = sample.y - p.y, dz = sample.z - p.z;
+        // the point is lit from the side of the viewer only, as in the shading
+        if (alignZero(n.x * dx + n.y * dy + n.z * dz) * nv >= 0) return Double3.ZERO;
+        Ray lightRay = new Ray(p, n, dx, dy, dz);
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return findTransparency(light, index, lightRay, distance);
+    }
 }
\ No newline at end of file
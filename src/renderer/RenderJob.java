@@ -0,0 +1,205 @@
+package renderer;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A render job - the rendering of the pixels of one image. The job owns its scheduling, its progress and its
+ * worker pool, so that several jobs (frames, views, scenes) may render at the same time in one JVM, each on a
+ * pool of its own or all on a shared executor.<br/>
+ * The workers of a job are joined as a whole: the job completes only when none of its tiles is running any
+ * more. A failure of a pixel cancels the rest of the job and is rethrown to the thread that waits for it, and a
+ * job can be cancelled or waited for with a timeout, so a bad scene never hangs the waiting thread.<br/>
+ * A job is created and started by {@link Camera#startRender()}.
+ */
+public class RenderJob {
+    private static final String PRINT_FORMAT = "%5.1f%%\r";
+
+    private final TileScheduler scheduler;
+    private final TileScheduler.PixelRenderer renderer;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final long printInterval;
+    private final long totalPixels;
+
+    private int[] sampleCounts;
+    private CompletableFuture<Void> completion;
+    private int lastPrinted = -1;
+
+    /**
+     * Constructs a job.
+     *
+     * @param rows     the amount of pixel rows
+     * @param cols     the amount of pixel columns
+     * @param tileSize the size of the side of a tile in pixels
+     * @param renderer the renderer of the pixels
+     * @param executor a shared executor for the job, or null for an executor of the job's own
+     * @param virtual  whether an executor of the job's own runs each tile on a virtual thread, instead of a
+     *                 work stealing pool
+     * @param threads  the number of worker threads of a work stealing pool of the job's own
+     * @param interval print time interval of the progress in seconds, 0 if printing is not required
+     * @throws UnsupportedOperationException if virtual threads are required and the runtime doesn't have them
+     */
+    RenderJob(int rows, int cols, int tileSize, TileScheduler.PixelRenderer renderer, ExecutorService executor,
+              boolean virtual, int threads, double interval) {
+        this.scheduler = new TileScheduler(rows, cols, tileSize);
+        this.renderer = renderer;
+        this.ownExecutor = executor == null;
+        this.executor = !ownExecutor ? executor : virtual ? newVirtualThreadExecutor() : new ForkJoinPool(threads);
+        this.printInterval = (long) (interval * 1000);
+        this.totalPixels = (long) rows * cols;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     *
+     * @return the executor
+     * @throws UnsupportedOperationException if the runtime doesn't have virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            // looked up at runtime - the renderer is built for runtimes with and without virtual threads
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later", e);
+        }
+    }
+
+    /**
+     * Sets the numbers of the samples of the pixels, which the renderer counts.
+     *
+     * @param sampleCounts the number of samples of each pixel, row after row, or null if they aren't counted
+     * @return the job itself - for chaining
+     */
+    RenderJob setSampleCounts(int[] sampleCounts) {
+        this.sampleCounts = sampleCounts;
+        return this;
+    }
+
+    /**
+     * Starts the rendering of the pixels.
+     *
+     * @return the job itself - for chaining
+     * @throws IllegalStateException if the job has already been started
+     */
+    RenderJob start() {
+        if (completion != null)
+            throw new IllegalStateException("The render job has already been started");
+        try {
+            completion = scheduler.submit(executor, renderer);
+        } finally {
+            if (ownExecutor)
+                executor.shutdown(); // the workers exit once the rendering is done
+        }
+        return this;
+    }
+
+    /**
+     * Cancels the job - the tiles that have not started are skipped, and the running ones stop before their next
+     * row of pixels. The job is done once they have stopped.
+     */
+    public void cancel() {
+        scheduler.cancel();
+    }
+
+    /**
+     * Checks whether the job is done.
+     *
+     * @return true if all the pixels are rendered, or the job has failed or has been cancelled and none of its
+     * tiles is running
+     */
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /**
+     * Returns the number of the rendered pixels.
+     *
+     * @return the number of the rendered pixels
+     */
+    public long getPixelsDone() {
+        return scheduler.getPixelsDone();
+    }
+
+    /**
+     * Returns the numbers of the samples of the pixels, for adaptive sampling that counts them - of the pixels
+     * rendered so far, the others are 0.
+     *
+     * @return the number of samples of each pixel, row after row, or null if the samples aren't counted
+     */
+    public int[] getSampleCounts() {
+        return sampleCounts;
+    }
+
+    /**
+     * Returns the progress of the rendering.
+     *
+     * @return the part of the rendered pixels, from 0 to 1
+     */
+    public double getProgress() {
+        return totalPixels == 0 ? 1 : (double) getPixelsDone() / totalPixels;
+    }
+
+    /**
+     * Waits for all the pixels to be rendered and prints the progress percentage at the print interval.
+     *
+     * @throws CancellationException if the job has been cancelled, or the waiting thread has been interrupted -
+     *                               the job is cancelled then
+     * @throws RuntimeException      the failure of the rendering of a pixel, if there is one
+     */
+    public void waitToFinish() {
+        if (printInterval != 0)
+            System.out.printf(PRINT_FORMAT, 0d);
+        while (!waitToFinish(printInterval == 0 ? Long.MAX_VALUE : printInterval, TimeUnit.MILLISECONDS))
+            printProgress();
+        if (printInterval != 0)
+            System.out.println("100.0%");
+    }
+
+    /**
+     * Waits up to a timeout for all the pixels to be rendered. The job goes on after a timeout, the caller may
+     * cancel it.
+     *
+     * @param timeout the maximal time to wait
+     * @param unit    the unit of the timeout
+     * @return true if the job is done, false if the time is up
+     * @throws CancellationException if the job has been cancelled, or the waiting thread has been interrupted -
+     *                               the job is cancelled then
+     * @throws RuntimeException      the failure of the rendering of a pixel, if there is one
+     */
+    public boolean waitToFinish(long timeout, TimeUnit unit) {
+        try {
+            completion.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException("The rendering failed", cause);
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("The wait for the rendering was interrupted");
+        }
+    }
+
+    /**
+     * Prints the progress percentage, if it has changed since it was printed last
+     */
+    private void printProgress() {
+        if (printInterval == 0) return;
+        int percentage = (int) (1000 * getProgress());
+        if (lastPrinted != percentage) {
+            lastPrinted = percentage;
+            System.out.printf(PRINT_FORMAT, percentage / 10d);
+        }
+    }
+}
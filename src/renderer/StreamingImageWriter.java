@@ -0,0 +1,199 @@
+package renderer;
+
+import primitives.Color;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * An image writer for images too big for the heap - the pixels are written straight into a memory mapped
+ * file of raw pixels, so the memory of the image is the page cache of the operating system, which writes the
+ * finished tiles to the disk in the background, and not the heap.<br/>
+ * The file is a binary PPM (8 bit RGB, clamped or tone mapped) or PFM (linear 32 bit float RGB) image, which
+ * may be written in any order of pixels, unlike a PNG image. The pixels written so far are kept in the file
+ * even if the JVM crashes, and {@link #flush()} forces them to the disk.<br/>
+ * The file is created, in the images directory of the project, by the first pixel that is written.
+ */
+public class StreamingImageWriter extends ImageWriter {
+    /**
+     * The format of a streamed image file
+     */
+    public enum Format {
+        /** Binary portable pixmap - 8 bit RGB, rows from the top */
+        PPM("ppm", 3),
+        /** Portable float map - little endian 32 bit float RGB, rows from the bottom */
+        PFM("pfm", 12);
+
+        private final String extension;
+        private final int pixelBytes;
+
+        Format(String extension, int pixelBytes) {
+            this.extension = extension;
+            this.pixelBytes = pixelBytes;
+        }
+    }
+
+    private final Format format;
+    private final long rowBytes;
+    /** The amount of pixel rows in a mapped chunk of the file - a mapping is limited to 2GB */
+    private final int chunkRows;
+
+    private ToneMapper toneMapper;
+    private FileChannel channel;
+    private volatile MappedByteBuffer[] chunks;
+    private boolean created = false;
+
+    /**
+     * Constructs a streaming image writer.
+     *
+     * @param imageName the name of the image file, without the extension
+     * @param nX        amount of pixels by width
+     * @param nY        amount of pixels by height
+     * @param format    the format of the image file
+     * @throws IllegalArgumentException if a single row of pixels is bigger than a mapping may be
+     */
+    public StreamingImageWriter(String imageName, int nX, int nY, Format format) {
+        super(imageName, nX, nY, null);
+        this.format = format;
+        this.rowBytes = (long) nX * format.pixelBytes;
+        if (rowBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("A row of " + nX + " pixels is too wide");
+        this.chunkRows = rowBytes == 0 ? 1 : (int) (Integer.MAX_VALUE / rowBytes);
+    }
+
+    /**
+     * Sets a tone mapping of the colors of a PPM image instead of the hard clamp of {@link Color#getColor()}.
+     * A PFM image keeps the linear colors anyway.
+     *
+     * @param toneMapper the tone mapping, or null for the hard clamp
+     * @return the image writer itself - for chaining
+     */
+    @Override
+    public StreamingImageWriter setToneMapper(ToneMapper toneMapper) {
+        this.toneMapper = toneMapper;
+        return this;
+    }
+
+    /**
+     * Returns the file header of the image.
+     *
+     * @return the header
+     */
+    private byte[] header() {
+        String header = format == Format.PPM
+                ? "P6\n" + getNx() + " " + getNy() + "\n255\n"
+                : "PF\n" + getNx() + " " + getNy() + "\n-1.0\n"; // a negative scale for little endian
+        return header.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Opens the image file and maps it, creating it with black pixels if this writer hasn't created it yet.
+     *
+     * @return the mapped chunks of the pixel rows
+     * @throws IllegalStateException on an I/O error
+     */
+    private synchronized MappedByteBuffer[] open() {
+        if (chunks != null) return chunks;
+        try {
+            byte[] header = header();
+            channel = created
+                    ? FileChannel.open(getImageFile(format.extension).toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(getImageFile(format.extension).toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (!created)
+                channel.write(ByteBuffer.wrap(header), 0);
+            created = true;
+
+            int nY = getNy();
+            MappedByteBuffer[] mapped = new MappedByteBuffer[(nY + chunkRows - 1) / chunkRows];
+            for (int i = 0; i < mapped.length; ++i) {
+                int rows = Math.min(chunkRows, nY - i * chunkRows);
+                mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        header.length + i * chunkRows * rowBytes, rows * rowBytes);
+                mapped[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return chunks = mapped;
+        } catch (IOException e) {
+            throw ioFailure(e);
+        }
+    }
+
+    /**
+     * Writes the color of a pixel into the file. It may be called from several threads at once for different
+     * pixels, and it doesn't create any object.
+     *
+     * @param xIndex X axis index of the pixel
+     * @param yIndex Y axis index of the pixel
+     * @param color  final color of the pixel
+     * @throws IndexOutOfBoundsException if the pixel is outside the image
+     * @throws IllegalStateException     on an I/O error of creating the file
+     */
+    @Override
+    public void writePixel(int xIndex, int yIndex, Color color) {
+        if (xIndex < 0 || xIndex >= getNx() || yIndex < 0 || yIndex >= getNy())
+            throw new IndexOutOfBoundsException("Pixel (" + xIndex + "," + yIndex + ") is outside the image");
+        MappedByteBuffer[] mapped = chunks;
+        if (mapped == null) mapped = open();
+
+        int row = format == Format.PPM ? yIndex : getNy() - 1 - yIndex;
+        MappedByteBuffer chunk = mapped[row / chunkRows];
+        int offset = (int) ((row % chunkRows) * rowBytes) + xIndex * format.pixelBytes;
+        if (format == Format.PFM) {
+            chunk.putFloat(offset, (float) color.getRed());
+            chunk.putFloat(offset + 4, (float) color.getGreen());
+            chunk.putFloat(offset + 8, (float) color.getBlue());
+        } else {
+            int rgb = toneMapper == null ? color.getRGB()
+                    : toneMapper.map((float) color.getRed(), (float) color.getGreen(), (float) color.getBlue());
+            chunk.put(offset, (byte) (rgb >> 16));
+            chunk.put(offset + 1, (byte) (rgb >> 8));
+            chunk.put(offset + 2, (byte) rgb);
+        }
+    }
+
+    /**
+     * Forces the pixels written so far to the disk, so that they are kept even if the machine crashes.
+     */
+    public synchronized void flush() {
+        if (chunks != null)
+            for (MappedByteBuffer chunk : chunks)
+                chunk.force();
+    }
+
+    /**
+     * Finishes the image file on an executor - the pixels are already in the file, so there is nothing to encode.
+     *
+     * @param executor the executor of the finishing task
+     * @return the completion of the file
+     */
+    @Override
+    public CompletableFuture<Void> writeToImageAsync(Executor executor) {
+        return CompletableFuture.runAsync(this::writeToImage, executor);
+    }
+
+    /**
+     * Finishes the image file - forces the pixels to the disk and closes the file. Pixels that are written
+     * afterwards reopen the file and update it.
+     *
+     * @throws IllegalStateException on an I/O error
+     */
+    @Override
+    public synchronized void writeToImage() {
+        if (chunks == null) open();
+        flush();
+        chunks = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw ioFailure(e);
+        }
+    }
+}
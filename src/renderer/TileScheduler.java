@@ -0,0 +1,216 @@
+package renderer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TileScheduler is a helper class for multi-threading in the renderer. It divides the image into square tiles
+ * and renders them on an executor.<br/>
+ * On a {@link ForkJoinPool} the range of the tiles is split in halves recursively, so each worker keeps a deque
+ * of ranges of its own, and an idle worker steals the largest range waiting in the deque of another. There is
+ * no shared counter to contend for, expensive pixels (adaptive super sampling, depth of field) are balanced by
+ * stealing, and the pixels of a tile are close together in the image and in the scene. On any other executor -
+ * a fixed pool, virtual threads - each tile is a task of its own.<br/>
+ * The rendering completes only when no tile is running any more: when all the tiles are rendered, or once it
+ * has been cancelled or a pixel has failed, when the running tiles have stopped and the rest were skipped.
+ */
+class TileScheduler {
+    /**
+     * The rendering of a single pixel
+     */
+    @FunctionalInterface
+    interface PixelRenderer {
+        /**
+         * Renders a pixel.
+         *
+         * @param row the row of the pixel
+         * @param col the column of the pixel
+         */
+        void render(int row, int col);
+    }
+
+    /**
+     * The default size of the side of a tile in pixels
+     */
+    static final int DEFAULT_TILE_SIZE = 16;
+
+    private final int rows;
+    private final int cols;
+    private final int tileSize;
+    private final int tilesPerRow;
+    private final int tileCount;
+    /** The number of the rendered pixels, counted once per tile */
+    private final LongAdder pixelsDone = new LongAdder();
+    /** The number of the tiles that have not finished yet - rendered or skipped */
+    private final AtomicInteger remaining;
+    /** The first failure of rendering a pixel */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    /** Whether the tiles that have not started yet are skipped */
+    private volatile boolean cancelled = false;
+    /** The completion of the rendering */
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    /**
+     * A range of tiles, rendered by splitting it in halves down to single tiles
+     */
+    private class Tiles extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final PixelRenderer renderer;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a range of tiles.
+         *
+         * @param renderer the renderer of the pixels
+         * @param from     the index of the first tile
+         * @param to       the index after the last tile
+         */
+        Tiles(PixelRenderer renderer, int from, int to) {
+            this.renderer = renderer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) runTile(renderer, from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Tiles(renderer, from, middle), new Tiles(renderer, middle, to));
+        }
+    }
+
+    /**
+     * Constructs a scheduler for an image.
+     *
+     * @param rows     the amount of pixel rows
+     * @param cols     the amount of pixel columns
+     * @param tileSize the size of the side of a tile in pixels
+     * @throws IllegalArgumentException if the tile size is not positive
+     */
+    TileScheduler(int rows, int cols, int tileSize) {
+        if (tileSize <= 0)
+            throw new IllegalArgumentException("The tile size must be positive");
+        this.rows = rows;
+        this.cols = cols;
+        this.tileSize = tileSize;
+        this.tilesPerRow = (cols + tileSize - 1) / tileSize;
+        this.tileCount = tilesPerRow * ((rows + tileSize - 1) / tileSize);
+        this.remaining = new AtomicInteger(tileCount);
+    }
+
+    /**
+     * Returns the number of tiles of the image.
+     *
+     * @return the number of tiles
+     */
+    int getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * Returns the number of the rendered pixels.
+     *
+     * @return the number of the pixels of the rendered rows of the tiles
+     */
+    long getPixelsDone() {
+        return pixelsDone.sum();
+    }
+
+    /**
+     * Submits the rendering of all the pixels of the image to an executor. Each pixel is rendered once.
+     *
+     * @param executor the executor
+     * @param renderer the renderer of the pixels
+     * @return the completion of the rendering - it fails with the first failure of a pixel, and it is cancelled
+     * if the rendering is cancelled
+     * @throws RejectedExecutionException if the executor doesn't accept the tiles - the tiles that were accepted
+     *                                    are cancelled
+     */
+    CompletableFuture<Void> submit(ExecutorService executor, PixelRenderer renderer) {
+        if (tileCount == 0) {
+            completion.complete(null);
+        } else if (executor instanceof ForkJoinPool pool) {
+            pool.execute(new Tiles(renderer, 0, tileCount));
+        } else {
+            for (int tile = 0; tile < tileCount; ++tile) {
+                int current = tile;
+                try {
+                    executor.execute(() -> runTile(renderer, current));
+                } catch (RejectedExecutionException e) {
+                    cancel();
+                    tilesFinished(tileCount - tile);
+                    throw e;
+                }
+            }
+        }
+        return completion;
+    }
+
+    /**
+     * Cancels the rendering - the tiles that have not started are skipped, and the running ones stop before
+     * their next row.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Renders a tile unless the rendering is cancelled, records a failure of its pixels and completes the
+     * rendering after the last tile.
+     *
+     * @param renderer the renderer of the pixels
+     * @param tile     the index of the tile
+     */
+    private void runTile(PixelRenderer renderer, int tile) {
+        try {
+            if (!cancelled) renderTile(renderer, tile);
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+            cancel();
+        } finally {
+            tilesFinished(1);
+        }
+    }
+
+    /**
+     * Counts finished tiles, and completes the rendering when they are the last ones.
+     *
+     * @param count the number of the finished tiles
+     */
+    private void tilesFinished(int count) {
+        if (remaining.addAndGet(-count) != 0) return;
+        Throwable e = failure.get();
+        if (e != null)
+            completion.completeExceptionally(e);
+        else if (cancelled)
+            completion.cancel(false);
+        else
+            completion.complete(null);
+    }
+
+    /**
+     * Renders the pixels of a tile row by row, until the rendering is cancelled.
+     *
+     * @param renderer the renderer of the pixels
+     * @param tile     the index of the tile
+     */
+    private void renderTile(PixelRenderer renderer, int tile) {
+        int firstRow = tile / tilesPerRow * tileSize, lastRow = Math.min(firstRow + tileSize, rows);
+        int firstCol = tile % tilesPerRow * tileSize, lastCol = Math.min(firstCol + tileSize, cols);
+        int row = firstRow;
+        for (; row < lastRow && !cancelled; ++row)
+            for (int col = firstCol; col < lastCol; ++col)
+                renderer.render(row, col);
+        pixelsDone.add((row - firstRow) * (lastCol - firstCol));
+    }
+}
@@ -0,0 +1,62 @@
+package renderer;
+
+/**
+ * A tone mapping - the conversion of the linear colors of a high dynamic range frame buffer, in the range 0..255
+ * for a printed white and more for lights, into displayable 8 bit RGB.
+ */
+@FunctionalInterface
+public interface ToneMapper {
+    /**
+     * The hard clamp of {@link primitives.Color#getColor()} - any component bigger than 255 is set to 255
+     */
+    ToneMapper CLAMP = (r, g, b) -> pack((int) r, (int) g, (int) b);
+
+    /**
+     * Maps a linear color to a displayable one.
+     *
+     * @param r the red component
+     * @param g the green component
+     * @param b the blue component
+     * @return the packed alpha (opaque) and RGB components, as {@link java.awt.Color#getRGB()}
+     */
+    int map(float r, float g, float b);
+
+    /**
+     * Creates the extended Reinhard tone mapping - bright components are compressed smoothly instead of being
+     * clamped, so that the colors of bright lights keep their hue. A component at the white point is mapped to
+     * 255, and the mapping of dark components is nearly linear.
+     *
+     * @param white the white point - the smallest component that is mapped to 255, at least 255
+     * @return the tone mapping
+     * @throws IllegalArgumentException if the white point is lower than 255
+     */
+    static ToneMapper reinhard(double white) {
+        if (white < 255)
+            throw new IllegalArgumentException("The white point must be at least 255");
+        double w2 = white / 255 * (white / 255);
+        return (r, g, b) -> pack(reinhard(r / 255d, w2), reinhard(g / 255d, w2), reinhard(b / 255d, w2));
+    }
+
+    /**
+     * Maps a component of the extended Reinhard tone mapping.
+     *
+     * @param x  the component, 1 for a printed white
+     * @param w2 the square of the white point, 1 for a printed white
+     * @return the mapped component in the range 0..255
+     */
+    private static int reinhard(double x, double w2) {
+        return (int) (255 * x * (1 + x / w2) / (1 + x) + 0.5);
+    }
+
+    /**
+     * Packs RGB components, setting any component bigger than 255 to 255.
+     *
+     * @param r the red component
+     * @param g the green component
+     * @param b the blue component
+     * @return the packed alpha (opaque) and RGB components
+     */
+    static int pack(int r, int g, int b) {
+        return 0xFF000000 | Math.min(r, 255) << 16 | Math.min(g, 255) << 8 | Math.min(b, 255);
+    }
+}
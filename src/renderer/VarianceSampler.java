@@ -0,0 +1,97 @@
+package renderer;
+
+import primitives.Color;
+
+/**
+ * Variance driven adaptive sampling - each pixel is sampled until the estimated error of its mean is below a
+ * perceptual threshold, so the rays are spent where the pixel is noisy (edges, soft shadows, depth of field) and
+ * converged pixels stop early.<br/>
+ * The mean and the variance of the luminance of the samples are tracked online (Welford's algorithm), on the
+ * displayable range of the colors - differences above the white point are clamped away on the image anyway. A
+ * pixel has converged when the half width of the 95% confidence interval of its mean is below the threshold, in
+ * display levels (1 of 255).<br/>
+ * The sampler counts the samples of each pixel. Each pixel is sampled by a single thread.
+ */
+class VarianceSampler {
+    /** The least number of samples of a pixel - the variance of fewer samples is not reliable */
+    static final int MIN_SAMPLES = 4;
+    /** The factor of the standard error of the mean for a 95% confidence interval */
+    private static final double CONFIDENCE = 1.96;
+
+    /**
+     * The tracer of a sample of a pixel
+     */
+    @FunctionalInterface
+    interface SampleTracer {
+        /**
+         * Traces a sample of a pixel.
+         *
+         * @param x      the X index of the pixel
+         * @param y      the Y index of the pixel
+         * @param sample the index of the sample - the samples of a pixel are spread over its area by their index
+         * @return the color of the sample
+         */
+        Color trace(int x, int y, int sample);
+    }
+
+    private final SampleTracer tracer;
+    private final int nX;
+    private final int maxSamples;
+    private final double threshold;
+    private final int[] counts;
+
+    /**
+     * Constructs a sampler.
+     *
+     * @param tracer     the tracer of the samples
+     * @param nX         amount of pixels by width
+     * @param nY         amount of pixels by height
+     * @param maxSamples the maximal number of samples of a pixel
+     * @param threshold  the maximal error of a converged pixel, in display levels
+     */
+    VarianceSampler(SampleTracer tracer, int nX, int nY, int maxSamples, double threshold) {
+        this.tracer = tracer;
+        this.nX = nX;
+        this.maxSamples = maxSamples;
+        this.threshold = threshold;
+        this.counts = new int[nX * nY];
+    }
+
+    /**
+     * Samples a pixel until it has converged or has the maximal number of samples.
+     *
+     * @param x the X index of the pixel
+     * @param y the Y index of the pixel
+     * @return the mean color of the samples
+     */
+    Color sample(int x, int y) {
+        double r = 0, g = 0, b = 0, mean = 0, m2 = 0;
+        int n = 0;
+        while (n < maxSamples) {
+            Color color = tracer.trace(x, y, n);
+            double red = color.getRed(), green = color.getGreen(), blue = color.getBlue();
+            r += red;
+            g += green;
+            b += blue;
+            ++n;
+            double luminance = 0.2126 * Math.min(red, 255) + 0.7152 * Math.min(green, 255)
+                    + 0.0722 * Math.min(blue, 255);
+            double delta = luminance - mean;
+            mean += delta / n;
+            m2 += delta * (luminance - mean);
+            if (n >= MIN_SAMPLES && CONFIDENCE * Math.sqrt(m2 / (n - 1) / n) <= threshold)
+                break;
+        }
+        counts[y * nX + x] = n;
+        return new Color(r / n, g / n, b / n);
+    }
+
+    /**
+     * Returns the numbers of the samples of the pixels.
+     *
+     * @return the number of samples of each pixel, row after row
+     */
+    int[] getSampleCounts() {
+        return counts;
+    }
+}
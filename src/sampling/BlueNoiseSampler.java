@@ -0,0 +1,71 @@
+package sampling;
+
+/**
+ * A blue noise sampler - the samples are spread evenly, with no two close to each other, and without the
+ * regularity of a grid, so the remaining noise is of high frequency, the least visible.<br/>
+ * The points are a best candidate sequence (Mitchell's algorithm) of the unit torus, computed once: each point is
+ * the farthest of a set of random candidates from the points before it, so every prefix of the sequence is blue
+ * noise as well. The sequence of a pixel is rotated on the torus by a random shift of the pixel and the
+ * dimension, which keeps the distances between the points.
+ */
+public class BlueNoiseSampler implements Sampler {
+    /** The length of the sequence - the samples after it repeat it with other shifts */
+    static final int LENGTH = 256;
+    /** The number of the candidates per point before it */
+    private static final int CANDIDATES = 8;
+    private static final double[] POINTS = new double[2 * LENGTH];
+
+    static {
+        for (int i = 0; i < LENGTH; ++i) {
+            double best = -1;
+            for (int c = 0; c < Math.max(1, CANDIDATES * i); ++c) {
+                long bits = CounterRandom.bits(i, c, -1, -1);
+                double cx = CounterRandom.high(bits), cy = CounterRandom.low(bits);
+                double nearest = Double.MAX_VALUE;
+                for (int j = 0; j < i; ++j)
+                    nearest = Math.min(nearest, torusDistance2(cx, cy, POINTS[2 * j], POINTS[2 * j + 1]));
+                if (nearest > best) {
+                    best = nearest;
+                    POINTS[2 * i] = cx;
+                    POINTS[2 * i + 1] = cy;
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculates the squared distance of two points on the unit torus.
+     *
+     * @param ax the X coordinate of the first point
+     * @param ay the Y coordinate of the first point
+     * @param bx the X coordinate of the second point
+     * @param by the Y coordinate of the second point
+     * @return the squared distance
+     */
+    static double torusDistance2(double ax, double ay, double bx, double by) {
+        double dx = Math.abs(ax - bx), dy = Math.abs(ay - by);
+        dx = Math.min(dx, 1 - dx);
+        dy = Math.min(dy, 1 - dy);
+        return dx * dx + dy * dy;
+    }
+
+    @Override
+    public void samples(int x, int y, int dimension, int first, int count, double[] points) {
+        int block = -1;
+        double shiftX = 0, shiftY = 0;
+        for (int i = 0; i < count; ++i) {
+            int index = first + i;
+            if (index / LENGTH != block) {
+                block = index / LENGTH;
+                // the shifts of the pixel are keyed by negative sample indexes, one per block
+                long bits = CounterRandom.bits(x, y, -1 - block, dimension);
+                shiftX = CounterRandom.high(bits);
+                shiftY = CounterRandom.low(bits);
+            }
+            int point = index % LENGTH;
+            double px = POINTS[2 * point] + shiftX, py = POINTS[2 * point + 1] + shiftY;
+            points[2 * i] = px >= 1 ? px - 1 : px;
+            points[2 * i + 1] = py >= 1 ? py - 1 : py;
+        }
+    }
+}
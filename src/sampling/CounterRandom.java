@@ -0,0 +1,91 @@
+package sampling;
+
+/**
+ * A counter based random generator - a random number is a hash of its key (pixel, sample index, dimension), not
+ * the next state of a shared generator. Every thread computes the numbers of its samples on its own, without any
+ * contention, and a sample has the same numbers whatever the number of threads, the tile order or the order of
+ * the samples, so identical inputs render identical images.<br/>
+ * The hash is the finalizer of SplitMix64, a bijection of 64 bit numbers - the keys of a pixel never collide.
+ */
+public final class CounterRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private CounterRandom() {}
+
+    /**
+     * Mixes the bits of a 64 bit number (the finalizer of SplitMix64).
+     *
+     * @param z the number
+     * @return the mixed number
+     */
+    static long mix(long z) {
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+
+    /**
+     * Returns the random bits of a key.
+     *
+     * @param x         the X index of the pixel
+     * @param y         the Y index of the pixel
+     * @param sample    the index of the sample, or a negative index for the numbers of the pixel itself
+     * @param dimension the dimension
+     * @return 64 random bits
+     */
+    public static long bits(int x, int y, int sample, int dimension) {
+        long pixel = mix(((long) x << 32 | y & 0xFFFFFFFFL) + GOLDEN_GAMMA);
+        return mix(pixel ^ ((long) sample << 32 | dimension & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Returns a random number of a key.
+     *
+     * @param x         the X index of the pixel
+     * @param y         the Y index of the pixel
+     * @param sample    the index of the sample, or -1 for the numbers of the pixel itself
+     * @param dimension the dimension
+     * @return the number, uniform in the range [0, 1)
+     */
+    public static double uniform(int x, int y, int sample, int dimension) {
+        return (bits(x, y, sample, dimension) >>> 11) * 0x1p-53;
+    }
+
+    /**
+     * Returns a random number of a key in a range.
+     *
+     * @param min       the minimal value (included)
+     * @param max       the maximal value (excluded)
+     * @param x         the X index of the pixel
+     * @param y         the Y index of the pixel
+     * @param sample    the index of the sample, or -1 for the numbers of the pixel itself
+     * @param dimension the dimension
+     * @return the number, uniform in the range
+     */
+    public static double uniform(double min, double max, int x, int y, int sample, int dimension) {
+        return uniform(x, y, sample, dimension) * (max - min) + min;
+    }
+
+    /**
+     * Returns the high half of random bits as a number in the unit range.
+     *
+     * @param bits the random bits
+     * @return the number, in the range [0, 1)
+     */
+    static double high(long bits) {
+        return (bits >>> 40) * 0x1p-24;
+    }
+
+    /**
+     * Returns the low half of random bits as a number in the unit range.
+     *
+     * @param bits the random bits
+     * @return the number, in the range [0, 1)
+     */
+    static double low(long bits) {
+        return ((int) bits >>> 8) * 0x1p-24;
+    }
+}
@@ -0,0 +1,49 @@
+package sampling;
+
+/**
+ * A Halton sampler - the low discrepancy Halton sequence, with a pair of prime bases for each dimension. The
+ * sequence of a pixel is rotated (a Cranley-Patterson rotation, modulo 1) by a random shift of the pixel, so
+ * neighbouring pixels don't share the pattern of the sequence.
+ */
+public class HaltonSampler implements Sampler {
+    private static final int[] PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59, 61, 67, 71,
+            73, 79, 83, 89, 97, 101, 103, 107, 109, 113, 127, 131};
+
+    /**
+     * The radical inverse of an index - the element of the Halton sequence of a base.
+     *
+     * @param base  the base
+     * @param index the index
+     * @return the element, in the range [0, 1)
+     */
+    static double radicalInverse(int base, int index) {
+        double result = 0, digit = 1d / base;
+        for (; index > 0; index /= base, digit /= base)
+            result += (index % base) * digit;
+        return result;
+    }
+
+    /**
+     * Rotates a coordinate modulo 1.
+     *
+     * @param value the coordinate, in the range [0, 1)
+     * @param shift the shift, in the range [0, 1)
+     * @return the rotated coordinate, in the range [0, 1)
+     */
+    private static double rotate(double value, double shift) {
+        value += shift;
+        return value >= 1 ? value - 1 : value;
+    }
+
+    @Override
+    public void samples(int x, int y, int dimension, int first, int count, double[] points) {
+        // the dimensions beyond the primes reuse them with other shifts
+        int pair = 2 * dimension % PRIMES.length;
+        long bits = CounterRandom.bits(x, y, -1, dimension);
+        double shiftX = CounterRandom.high(bits), shiftY = CounterRandom.low(bits);
+        for (int i = 0; i < count; ++i) {
+            points[2 * i] = rotate(radicalInverse(PRIMES[pair], first + i), shiftX);
+            points[2 * i + 1] = rotate(radicalInverse(PRIMES[pair + 1], first + i), shiftY);
+        }
+    }
+}
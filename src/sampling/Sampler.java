@@ -0,0 +1,57 @@
+package sampling;
+
+/**
+ * A sampler - the generator of the sample points of the integrals of the renderer: the area of a pixel for
+ * anti-aliasing, the aperture for the depth of field, the area of a light for soft shadows and so on.<br/>
+ * The samples of a pixel are a sequence of points in the unit square, a sequence for each dimension - a
+ * dimension is a pair of coordinates of one integral, so that the samples of different integrals are not
+ * correlated. The sequences of neighbouring pixels are decorrelated too, so that patterns of the sequence don't
+ * show as aliasing. A sample is determined by its pixel, dimension and index only, whatever thread takes it and
+ * in whatever order.<br/>
+ * The points are written into primitive arrays, without any object per sample.
+ */
+public interface Sampler {
+    /** The dimension of the area of a pixel */
+    int PIXEL = 0;
+    /** The dimension of the aperture of the camera */
+    int APERTURE = 1;
+    /** The first dimension of the area lights - a dimension for each light */
+    int LIGHT = 2;
+
+    /**
+     * Generates sample points of a pixel.
+     *
+     * @param x         the X index of the pixel
+     * @param y         the Y index of the pixel
+     * @param dimension the dimension of the samples
+     * @param first     the index of the first sample in the sequence of the pixel
+     * @param count     the number of the samples
+     * @param points    the points, written as pairs of coordinates in the range [0, 1) from the start of the
+     *                  array - at least 2*count long
+     */
+    void samples(int x, int y, int dimension, int first, int count, double[] points);
+
+    /**
+     * Maps a point of the unit square onto the unit disk, keeping the distribution of the points (the concentric
+     * mapping of Shirley and Chiu).
+     *
+     * @param points the points, as pairs of coordinates - mapped in place
+     * @param index  the index of the point
+     */
+    static void toDisk(double[] points, int index) {
+        double a = 2 * points[2 * index] - 1, b = 2 * points[2 * index + 1] - 1;
+        double r, phi;
+        if (a == 0 && b == 0) {
+            r = 0;
+            phi = 0;
+        } else if (a * a > b * b) {
+            r = a;
+            phi = Math.PI / 4 * (b / a);
+        } else {
+            r = b;
+            phi = Math.PI / 2 - Math.PI / 4 * (a / b);
+        }
+        points[2 * index] = r * Math.cos(phi);
+        points[2 * index + 1] = r * Math.sin(phi);
+    }
+}
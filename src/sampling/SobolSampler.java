@@ -0,0 +1,52 @@
+package sampling;
+
+/**
+ * A Sobol sampler - the first two dimensions of the Sobol sequence, a (0,2)-sequence: every run of 2^k samples
+ * from a multiple of 2^k has a single sample in every elementary interval of area 2^-k, so it is stratified in
+ * any grid and in any aspect at once. The bits of the sequence of a pixel are flipped (a random digital shift)
+ * by a random mask of the pixel and the dimension, which keeps that stratification.
+ */
+public class SobolSampler implements Sampler {
+    /** The generator matrix of the second dimension, as 32 column vectors */
+    private static final int[] DIRECTIONS = new int[32];
+
+    static {
+        DIRECTIONS[0] = 1 << 31;
+        for (int k = 1; k < 32; ++k)
+            DIRECTIONS[k] = DIRECTIONS[k - 1] ^ DIRECTIONS[k - 1] >>> 1;
+    }
+
+    /**
+     * Returns the second dimension of an element of the Sobol sequence, as a binary fraction.
+     *
+     * @param index the index of the element
+     * @return the bits of the element
+     */
+    static int sobol(int index) {
+        int result = 0;
+        for (int k = 0; index != 0; index >>>= 1, ++k)
+            if ((index & 1) != 0) result ^= DIRECTIONS[k];
+        return result;
+    }
+
+    /**
+     * Converts a binary fraction into a number in the unit range.
+     *
+     * @param bits the bits of the fraction
+     * @return the number, in the range [0, 1)
+     */
+    private static double fraction(int bits) {
+        return (bits & 0xFFFFFFFFL) * 0x1p-32;
+    }
+
+    @Override
+    public void samples(int x, int y, int dimension, int first, int count, double[] points) {
+        long bits = CounterRandom.bits(x, y, -1, dimension);
+        int maskX = (int) (bits >>> 32), maskY = (int) bits;
+        for (int i = 0; i < count; ++i) {
+            int index = first + i;
+            points[2 * i] = fraction(Integer.reverse(index) ^ maskX); // the first dimension is van der Corput
+            points[2 * i + 1] = fraction(sobol(index) ^ maskY);
+        }
+    }
+}
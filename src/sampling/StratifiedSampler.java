@@ -0,0 +1,37 @@
+package sampling;
+
+/**
+ * A stratified jittered sampler - the unit square is divided into a grid of strata, and each sample is a random
+ * point in its stratum. The strata are taken in turn, in an order rotated by pixel, so every run of as many
+ * samples as strata covers the square evenly. Unlike a regular grid the samples don't alias, and unlike uniform
+ * random samples they don't clump.
+ */
+public class StratifiedSampler implements Sampler {
+    private final int side;
+    private final int strata;
+
+    /**
+     * Constructs a stratified sampler.
+     *
+     * @param side the number of strata per side of the unit square
+     * @throws IllegalArgumentException if the number of strata is not positive
+     */
+    public StratifiedSampler(int side) {
+        if (side <= 0)
+            throw new IllegalArgumentException("The number of strata must be positive");
+        this.side = side;
+        this.strata = side * side;
+    }
+
+    @Override
+    public void samples(int x, int y, int dimension, int first, int count, double[] points) {
+        int offset = (int) Long.remainderUnsigned(CounterRandom.bits(x, y, -1, dimension), strata);
+        for (int i = 0; i < count; ++i) {
+            int index = first + i;
+            int stratum = (index + offset) % strata;
+            long bits = CounterRandom.bits(x, y, index, dimension);
+            points[2 * i] = (stratum % side + CounterRandom.high(bits)) / side;
+            points[2 * i + 1] = (stratum / side + CounterRandom.low(bits)) / side;
+        }
+    }
+}
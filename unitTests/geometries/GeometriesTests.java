@@ -1,15 +1,25 @@
 package geometries;
 
 import geometries.Geometries;
+import geometries.Intersectable.GeoPoint;
+import geometries.Intersectable.Intersection;
 import geometries.Plane;
+import geometries.RayPacket;
 import geometries.Sphere;
 import geometries.Triangle;
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
 public class GeometriesTests {
     @Test
     void testFindIntersections() {
@@ -43,4 +53,223 @@ public class GeometriesTests {
         ray = new Ray(new Point(2,1.2,0),new Vector(-2,-2,1));
         assertEquals(3,geo.findIntersections(ray).size(),"Only a few shapes need to be intersection ");
     }
+
+    /**
+     * Test method for {@link geometries.Geometries#setBVH(boolean)}.
+     */
+    @Test
+    void testFindIntersectionsBVH() {
+        Random random = new Random(1749);
+        Geometries linear = new Geometries();
+        Geometries bvh = new Geometries().setBVH(true);
+
+        // ============ Boundary Values Tests ==============
+
+        // TC01: An empty body collection
+        Ray ray = new Ray(new Point(3, 3, 0.5), new Vector(-2, -2, 0));
+        assertNull(bvh.findIntersections(ray), "Must not be an intersection");
+
+        for (int i = 0; i < 300; ++i) {
+            Point p = new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            Triangle triangle = new Triangle(p,
+                    p.add(new Vector(random.nextDouble() * 10 + 1, random.nextDouble(), 0)),
+                    p.add(new Vector(0, random.nextDouble() * 10 + 1, random.nextDouble())));
+            linear.add(triangle);
+            bvh.add(triangle);
+        }
+        for (int i = 0; i < 20; ++i) {
+            Sphere sphere = new Sphere(random.nextDouble() * 5 + 1,
+                    new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100));
+            linear.add(sphere);
+            bvh.add(sphere);
+        }
+        Plane plane = new Plane(new Point(0, 0, -10), new Vector(0, 0, 1));
+        linear.add(plane);
+        bvh.add(plane);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC10: The hierarchy finds exactly the intersections of the linear scan
+        for (int i = 0; i < 500; ++i) {
+            ray = new Ray(new Point(random.nextDouble() * 200 - 50, random.nextDouble() * 200 - 50, 150),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            List<Point> expected = linear.findIntersections(ray);
+            List<Point> result = bvh.findIntersections(ray);
+            if (expected == null) {
+                assertNull(result, "BVH found intersections the linear scan didn't");
+            } else {
+                assertNotNull(result, "BVH missed intersections");
+                assertEquals(expected.size(), result.size(), "Wrong number of intersections");
+                assertEquals(new HashSet<>(expected), new HashSet<>(result), "Wrong intersections");
+            }
+        }
+
+        // TC11: Adding a geometry rebuilds the hierarchy
+        ray = new Ray(new Point(500, 500, 150), new Vector(0, 0, -1));
+        assertEquals(1, bvh.findIntersections(ray).size(), "Only the plane should be intersected");
+        bvh.add(new Sphere(5, new Point(500, 500, 50)));
+        assertEquals(3, bvh.findIntersections(ray).size(), "The added sphere must be intersected");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findTransparency(primitives.Ray, double, primitives.Double3, double)}.
+     */
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray)}
+     * of a linear collection and of a bounding volume hierarchy.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Random random = new Random(3301);
+        Geometries linear = new Geometries();
+        Geometries bvh = new Geometries().setBVH(true);
+
+        // ============ Boundary Values Tests ==============
+
+        // TC01: An empty body collection
+        Ray ray = new Ray(new Point(3, 3, 0.5), new Vector(-2, -2, 0));
+        assertNull(linear.findClosestGeoIntersection(ray), "Must not be an intersection");
+        assertNull(bvh.findClosestGeoIntersection(ray), "Must not be an intersection");
+
+        for (int i = 0; i < 300; ++i) {
+            Point p = new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            Triangle triangle = new Triangle(p,
+                    p.add(new Vector(random.nextDouble() * 10 + 1, random.nextDouble(), 0)),
+                    p.add(new Vector(0, random.nextDouble() * 10 + 1, random.nextDouble())));
+            linear.add(triangle);
+            bvh.add(triangle);
+        }
+        for (int i = 0; i < 20; ++i) {
+            Sphere sphere = new Sphere(random.nextDouble() * 5 + 1,
+                    new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100));
+            linear.add(sphere);
+            bvh.add(sphere);
+        }
+        Plane plane = new Plane(new Point(0, 0, -10), new Vector(0, 0, 1));
+        linear.add(plane);
+        bvh.add(plane);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC10: The closest intersection is the closest of all the intersections, with the same geometry
+        for (int i = 0; i < 500; ++i) {
+            ray = new Ray(new Point(random.nextDouble() * 200 - 50, random.nextDouble() * 200 - 50, 150),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            List<GeoPoint> all = linear.findGeoIntersections(ray);
+            if (all == null) {
+                assertNull(linear.findClosestGeoIntersection(ray), "Found an intersection that doesn't exist");
+                assertNull(bvh.findClosestGeoIntersection(ray), "BVH found an intersection that doesn't exist");
+            } else {
+                GeoPoint expected = ray.findClosestGeoPoint(all);
+                assertEquals(expected, linear.findClosestGeoIntersection(ray), "Wrong closest intersection");
+                assertEquals(expected, bvh.findClosestGeoIntersection(ray), "Wrong closest intersection in BVH");
+            }
+        }
+
+        // TC11: A ray that starts between the geometries
+        ray = new Ray(new Point(50, 50, 50), new Vector(0.1, 0.2, -1));
+        GeoPoint expected = ray.findClosestGeoPoint(linear.findGeoIntersections(ray));
+        assertEquals(expected, linear.findClosestGeoIntersection(ray), "Wrong closest intersection");
+        assertEquals(expected, bvh.findClosestGeoIntersection(ray), "Wrong closest intersection in BVH");
+
+        // TC12: The hit record holds the distance of the closest intersection and its geometry
+        Intersection intersection = bvh.findClosestIntersection(ray);
+        assertEquals(expected.geometry, intersection.geometry, "Wrong geometry in the hit record");
+        assertEquals(expected.point.distance(ray.getP0()), intersection.t, 1e-10, "Wrong distance in the hit record");
+        assertEquals(expected.point, intersection.getPoint(), "Wrong point in the hit record");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestIntersections(geometries.RayPacket)}
+     * of a linear collection and of a bounding volume hierarchy.
+     */
+    @Test
+    void testFindClosestIntersectionsPacket() {
+        Random random = new Random(5821);
+        Geometries linear = new Geometries();
+        Geometries bvh = new Geometries().setBVH(true);
+        for (int i = 0; i < 300; ++i) {
+            Point p = new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            Triangle triangle = new Triangle(p,
+                    p.add(new Vector(random.nextDouble() * 10 + 1, random.nextDouble(), 0)),
+                    p.add(new Vector(0, random.nextDouble() * 10 + 1, random.nextDouble())));
+            linear.add(triangle);
+            bvh.add(triangle);
+        }
+        for (int i = 0; i < 20; ++i) {
+            Sphere sphere = new Sphere(random.nextDouble() * 5 + 1,
+                    new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100));
+            linear.add(sphere);
+            bvh.add(sphere);
+        }
+        Plane plane = new Plane(new Point(0, 0, -10), new Vector(0, 0, 1));
+        linear.add(plane);
+        bvh.add(plane);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A packet of coherent rays from a common head finds the closest intersections of the single rays
+        // TC02: A packet of rays in all the directions (diverging) finds them as well
+        for (boolean coherent : new boolean[]{true, false}) {
+            for (int i = 0; i < 50; ++i) {
+                Point head = new Point(random.nextDouble() * 100, random.nextDouble() * 100, 150);
+                Vector center = new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1);
+                List<Ray> rays = new ArrayList<>();
+                for (int lane = 0; lane < 8; ++lane)
+                    rays.add(new Ray(head, coherent
+                            ? center.add(new Vector(random.nextDouble() * 0.05, random.nextDouble() * 0.05, 0))
+                            : new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5)));
+                RayPacket linearPacket = new RayPacket(rays);
+                RayPacket bvhPacket = new RayPacket(rays);
+                linear.findClosestIntersections(linearPacket);
+                bvh.findClosestIntersections(bvhPacket);
+                for (int lane = 0; lane < 8; ++lane) {
+                    GeoPoint expected = linear.findClosestGeoIntersection(rays.get(lane));
+                    Intersection result = linearPacket.getIntersection(lane);
+                    assertEquals(expected, result == null ? null : result.toGeoPoint(), "Wrong closest intersection");
+                    result = bvhPacket.getIntersection(lane);
+                    assertEquals(expected, result == null ? null : result.toGeoPoint(),
+                            "Wrong closest intersection in BVH");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFindTransparency() {
+        Geometries geo = new Geometries(
+                new Sphere(1, new Point(0, 0, -5)).setMaterial(new Material().setKT(0.5)),
+                new Triangle(new Point(-2, -2, -10), new Point(2, -2, -10), new Point(0, 2, -10)),
+                new Plane(new Point(0, 0, -20), new Vector(0, 0, 1)).setMaterial(new Material().setKT(0.8)));
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The ray passes twice through the transparent sphere only
+        assertEquals(new Double3(0.25), geo.findTransparency(ray, 8, Double3.ONE, 0.001),
+                "Wrong transparency through the sphere");
+
+        // TC02: The opaque triangle blocks the ray
+        assertEquals(Double3.ZERO, geo.findTransparency(ray, 30, Double3.ONE, 0.001),
+                "The opaque triangle must block the ray");
+
+        // TC03: The ray misses the sphere and the triangle and passes through the plane
+        ray = new Ray(new Point(5, 5, 0), new Vector(0, 0, -1));
+        assertEquals(new Double3(0.8), geo.findTransparency(ray, 30, Double3.ONE, 0.001),
+                "Wrong transparency through the plane");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: The plane is beyond the maximal distance
+        assertEquals(Double3.ONE, geo.findTransparency(ray, 15, Double3.ONE, 0.001),
+                "The plane is beyond the light");
+
+        // TC12: The same results in BVH mode
+        geo.setBVH(true);
+        assertEquals(new Double3(0.8), geo.findTransparency(ray, 30, Double3.ONE, 0.001),
+                "Wrong transparency through the plane in BVH mode");
+        ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+        assertEquals(Double3.ZERO, geo.findTransparency(ray, 30, Double3.ONE, 0.001),
+                "The opaque triangle must block the ray in BVH mode");
+    }
 }
@@ -0,0 +1,79 @@
+package geometries;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class SahHierarchyTests {
+    /**
+     * Checks the sub-tree of a node - its leaves cover the given range of the order, and the box of every node is
+     * the union of the boxes of its items.
+     *
+     * @return the position after the last item of the node
+     */
+    private static int check(SahHierarchy hierarchy, int node, int from, int[] order, double[] boxes) {
+        int[] nodes = hierarchy.nodes;
+        int to;
+        if (nodes[2 * node + 1] > 0) {
+            assertEquals(from, nodes[2 * node], "A leaf out of order");
+            to = from + nodes[2 * node + 1];
+        } else {
+            to = check(hierarchy, nodes[2 * node], check(hierarchy, node + 1, from, order, boxes), order, boxes);
+        }
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; ++i) {
+                min = Math.min(min, boxes[6 * order[i] + axis]);
+                max = Math.max(max, boxes[6 * order[i] + 3 + axis]);
+            }
+            assertEquals(min, hierarchy.bounds[6 * node + axis], "Wrong box of a node");
+            assertEquals(max, hierarchy.bounds[6 * node + 3 + axis], "Wrong box of a node");
+        }
+        return to;
+    }
+
+    /**
+     * Test method for {@link geometries.SahHierarchy#SahHierarchy(double[], int[], int)}.
+     */
+    @Test
+    void testConstructor() {
+        Random random = new Random(8);
+        double[] boxes = new double[6 * 500];
+        for (int i = 0; i < 500; ++i)
+            for (int axis = 0; axis < 3; ++axis) {
+                boxes[6 * i + axis] = 100 + random.nextDouble() * 50;
+                boxes[6 * i + 3 + axis] = boxes[6 * i + axis] + random.nextDouble();
+            }
+        int[] order = new int[500];
+        for (int i = 0; i < 500; ++i) order[i] = i;
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The leaves hold a permutation of the items, and the boxes of the nodes are tight - away from
+        // the origin
+        SahHierarchy hierarchy = new SahHierarchy(boxes, order, 4);
+        assertEquals(500, check(hierarchy, 0, 0, order, boxes), "Not all the items are in the leaves");
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < 500; ++i) assertEquals(i, sorted[i], "The order isn't a permutation");
+        assertTrue(hierarchy.depth < 40, "The hierarchy isn't balanced");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: Items with the same box can't be split
+        double[] same = new double[6 * 9];
+        Arrays.fill(same, 0, same.length, 1);
+        hierarchy = new SahHierarchy(same, new int[9], 4);
+        assertEquals(1, hierarchy.size(), "Split items that coincide");
+        // TC11: A single item is a leaf
+        hierarchy = new SahHierarchy(boxes, new int[]{7}, 4);
+        assertEquals(1, hierarchy.size(), "Wrong number of nodes");
+        assertEquals(1, hierarchy.depth, "Wrong depth");
+        // TC12: No items
+        hierarchy = new SahHierarchy(new double[0], new int[0], 4);
+        assertEquals(0, hierarchy.size(), "Nodes without items");
+    }
+}
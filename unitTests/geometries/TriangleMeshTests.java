@@ -0,0 +1,239 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TriangleMeshTests {
+    /** Size of the height field grid */
+    private static final int SIZE = 20;
+
+    /**
+     * Builds a bumpy height field as a mesh and as a collection of triangles with the same vertices.
+     *
+     * @param triangles the collection to add the triangles to
+     * @return the mesh
+     */
+    private static TriangleMesh heightField(Geometries triangles) {
+        Random random = new Random(4127);
+        Point[] points = new Point[(SIZE + 1) * (SIZE + 1)];
+        for (int i = 0; i <= SIZE; ++i)
+            for (int j = 0; j <= SIZE; ++j)
+                points[i * (SIZE + 1) + j] = new Point(i * 5, j * 5, random.nextDouble() * 4);
+        int[] faces = new int[SIZE * SIZE * 6];
+        int f = 0;
+        for (int i = 0; i < SIZE; ++i)
+            for (int j = 0; j < SIZE; ++j) {
+                int a = i * (SIZE + 1) + j, b = a + 1, c = a + SIZE + 1, d = c + 1;
+                faces[f++] = a;
+                faces[f++] = c;
+                faces[f++] = d;
+                faces[f++] = a;
+                faces[f++] = d;
+                faces[f++] = b;
+                triangles.add(new Triangle(points[a], points[c], points[d]), new Triangle(points[a], points[d], points[b]));
+            }
+        return new TriangleMesh(points, faces);
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int...)}.
+     */
+    @Test
+    void testConstructor() {
+        double[] vertices = {0, 0, 0, 1, 0, 0, 0, 1, 0, 2, 0, 0};
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A correct mesh of two faces
+        assertEquals(2, new TriangleMesh(vertices, 0, 1, 2, 1, 3, 2).getFaceCount(), "Wrong number of faces");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A face that refers to a vertex that doesn't exist
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, 0, 1, 4),
+                "Constructed a mesh with a wrong vertex index");
+        // TC11: A face with vertices on the same line
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, 0, 1, 3),
+                "Constructed a mesh with a degenerate face");
+        // TC12: Faces that are not triples
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, 0, 1),
+                "Constructed a mesh with a face of two vertices");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findGeoIntersections(primitives.Ray)}
+     * and {@link geometries.TriangleMesh#findClosestGeoIntersection(primitives.Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        Random random = new Random(7351);
+        Geometries triangles = new Geometries();
+        TriangleMesh mesh = heightField(triangles);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The mesh finds the intersections of its triangles
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 140 - 20, random.nextDouble() * 140 - 20, 30),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -random.nextDouble() - 0.1));
+            List<Point> expected = triangles.findIntersections(ray);
+            List<Point> result = mesh.findIntersections(ray);
+            if (expected == null) {
+                assertNull(result, "The mesh found intersections the triangles don't have");
+                assertNull(mesh.findClosestGeoIntersection(ray), "The mesh found an intersection the triangles don't have");
+            } else {
+                assertNotNull(result, "The mesh missed intersections");
+                assertEquals(new HashSet<>(expected), new HashSet<>(result), "Wrong intersections");
+                // TC02: The closest intersection and its normal are the ones of the closest triangle
+                GeoPoint closest = triangles.findClosestGeoIntersection(ray);
+                GeoPoint meshClosest = mesh.findClosestGeoIntersection(ray);
+                assertEquals(closest.point, meshClosest.point, "Wrong closest intersection");
+                assertEquals(closest.geometry.getNormal(closest.point), meshClosest.geometry.getNormal(meshClosest.point),
+                        "Wrong normal of the closest intersection");
+            }
+        }
+
+        // TC03: A ray along the mesh bumps from below, with several intersections
+        Ray ray = new Ray(new Point(-10, 52, 1), new Vector(1, 0, 0.01));
+        assertEquals(new HashSet<>(triangles.findIntersections(ray)), new HashSet<>(mesh.findIntersections(ray)),
+                "Wrong intersections of a grazing ray");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: The faces share the emission and the material of the mesh
+        Material material = new Material().setKT(0.5);
+        mesh.setMaterial(material);
+        assertSame(material, mesh.findClosestGeoIntersection(ray).geometry.getMaterial(), "The face has a wrong material");
+    }
+
+    /**
+     * Asserts the corners of a bounding box.
+     */
+    private static void assertBox(BoundingBox box, double minX, double minY, double minZ, double maxX, double maxY,
+                                  double maxZ) {
+        double[] expected = {minX, minY, minZ, maxX, maxY, maxZ};
+        for (int axis = 0; axis < 3; ++axis) {
+            assertEquals(expected[axis], box.min(axis), 1E-12, "Wrong box " + box);
+            assertEquals(expected[3 + axis], box.max(axis), 1E-12, "Wrong box " + box);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The box of a mesh away from the origin doesn't include the origin
+        double[] vertices = {10, 10, 10, 21, 10, 12, 10, 21, 15, 21, 21, 20};
+        assertBox(new TriangleMesh(vertices, 0, 1, 2, 1, 3, 2).getBoundingBox(), 10, 10, 10, 21, 21, 20);
+        // TC02: The box of a mesh of many faces (with inner nodes in the hierarchy) is the box of its vertices
+        double[] grid = new double[3 * 121];
+        int[] faces = new int[6 * 100];
+        for (int i = 0; i <= 10; ++i)
+            for (int j = 0; j <= 10; ++j) {
+                int v = 3 * (i * 11 + j);
+                grid[v] = 100 + i;
+                grid[v + 1] = -50 - j;
+                grid[v + 2] = 30 + (i + j) % 3;
+            }
+        for (int i = 0, f = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j) {
+                int a = i * 11 + j, b = a + 1, c = a + 11, d = c + 1;
+                faces[f++] = a;
+                faces[f++] = c;
+                faces[f++] = d;
+                faces[f++] = a;
+                faces[f++] = d;
+                faces[f++] = b;
+            }
+        assertBox(new TriangleMesh(grid, faces).getBoundingBox(), 100, -60, 30, 110, -50, 32);
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A mesh of a single face
+        assertBox(new TriangleMesh(vertices, 1, 3, 2).getBoundingBox(), 10, 10, 12, 21, 21, 20);
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(primitives.Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        Random random = new Random(2311);
+        TriangleMesh mesh = heightField(new Geometries());
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The normal of the mesh at an intersection point is the normal of the intersected face
+        for (int i = 0; i < 100; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 90 + 5, random.nextDouble() * 90 + 5, 30),
+                    new Vector(0, 0, -1));
+            GeoPoint hit = mesh.findClosestGeoIntersection(ray);
+            assertEquals(hit.geometry.getNormal(hit.point), mesh.getNormal(hit.point), "Wrong normal of the mesh");
+        }
+        // TC02: The normal at a point off the mesh is the one of the closest face
+        TriangleMesh pyramid = new TriangleMesh(new double[]{0, 0, 0, 2, 0, 0, 0, 2, 0, 0, 0, 2}, 0, 2, 1, 0, 1, 3);
+        assertEquals(new Vector(0, 0, -1), pyramid.getNormal(new Point(0.5, 0.5, -1)), "Wrong normal below");
+        assertEquals(new Vector(0, -1, 0), pyramid.getNormal(new Point(0.5, -1, 0.5)), "Wrong normal in front");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A face reads the appearance of its mesh, and setting its own doesn't change the whole mesh
+        GeoPoint hit = mesh.findClosestGeoIntersection(new Ray(new Point(51.3, 48.7, 30), new Vector(0, 0, -1)));
+        Material meshMaterial = new Material().setKd(0.3);
+        mesh.setMaterial(meshMaterial);
+        assertSame(meshMaterial, hit.geometry.getMaterial(), "The face doesn't read the material of its mesh");
+        Material faceMaterial = new Material();
+        primitives.Color faceEmission = new primitives.Color(10, 20, 30);
+        assertSame(hit.geometry, hit.geometry.setMaterial(faceMaterial).setEmission(faceEmission),
+                "The setters of a face must be fluent");
+        assertSame(faceMaterial, hit.geometry.getMaterial(), "The face didn't take its material");
+        assertSame(faceEmission, hit.geometry.getEmission(), "The face didn't take its emission");
+        assertSame(meshMaterial, mesh.getMaterial(), "The face changed the material of its mesh");
+        assertNotSame(faceEmission, mesh.getEmission(), "The face changed the emission of its mesh");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findTransparency(Ray, double, Double3, double)}.
+     */
+    @Test
+    void testFindTransparency() {
+        Geometries triangles = new Geometries();
+        TriangleMesh mesh = heightField(triangles);
+        Ray ray = new Ray(new Point(-10, 52, 1), new Vector(1, 0, 0.01));
+        int count = triangles.findIntersections(ray).size();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: An opaque mesh blocks the ray
+        assertEquals(Double3.ZERO, mesh.findTransparency(ray, 1000, Double3.ONE, 0.001), "The ray must be blocked");
+        // TC02: The blocker of the ray is a face, which blocks the ray alone
+        Geometry[] blocker = new Geometry[1];
+        mesh.findTransparency(ray, 1000, Double3.ONE, 0.001, blocker);
+        assertInstanceOf(TriangleMesh.Face.class, blocker[0], "The blocker must be a face");
+        assertEquals(Double3.ZERO, blocker[0].findTransparency(ray, 1000, Double3.ONE, 0.001), "The face must block");
+
+        // TC03: A transparent mesh applies its transparency once per intersection
+        mesh.setMaterial(new Material().setKT(0.9));
+        assertEquals(new Double3(Math.pow(0.9, count)), mesh.findTransparency(ray, 1000, Double3.ONE, 0.001),
+                "Wrong transparency");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: The shadow ray ends before the mesh
+        assertEquals(Double3.ONE, mesh.findTransparency(ray, 5, Double3.ONE, 0.001), "The mesh is beyond the light");
+    }
+}
@@ -1,9 +1,14 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Vector;
 import primitives.Ray;
+
+import java.util.List;
+import java.util.Random;
 import static org.junit.jupiter.api.Assertions.*;
 
 class TubeTests {
@@ -37,4 +42,40 @@ class TubeTests {
     @Test
     void testFindIntersections() {
     }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestIntersection(primitives.Ray)} and
+     * {@link geometries.Intersectable#findTransparency(primitives.Ray, double, primitives.Double3, double)} -
+     * they must agree with the list of all the intersections.
+     */
+    @Test
+    void testFindClosestIntersection() {
+        Random random = new Random(17);
+        Ray axis = new Ray(new Point(0, 0, 0), new Vector(1, 0, 0));
+        Material material = new Material().setKT(0.5);
+        Geometry[] tubes = {new Tube(1, axis).setMaterial(material), new Cylinder(axis, 1, 2).setMaterial(material)};
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Rays from outside and from inside, towards the tube and away from it
+        for (Geometry tube : tubes)
+            for (int i = 0; i < 2000; ++i) {
+                Ray ray = new Ray(new Point(random.nextDouble() * 4 - 1, random.nextDouble() * 4 - 2,
+                        random.nextDouble() * 4 - 2), new Vector(random.nextDouble() - 0.5,
+                        random.nextDouble() - 0.5, random.nextDouble() - 0.5));
+                double maxDistance = random.nextDouble() * 4;
+                List<Point> points = tube.findIntersections(ray);
+                Intersectable.Intersection closest = tube.findClosestIntersection(ray);
+                if (points == null) {
+                    assertNull(closest, "Found a closest intersection without intersections");
+                } else {
+                    double min = points.stream().mapToDouble(p -> p.distance(ray.getP0())).min().orElseThrow();
+                    assertEquals(min, closest.t, 1E-9, "Wrong closest intersection");
+                }
+                List<Intersectable.GeoPoint> near = tube.findGeoIntersections(ray, maxDistance);
+                int count = near == null ? 0 : near.size();
+                assertEquals(new Double3(Math.pow(0.5, count)),
+                        tube.findTransparency(ray, maxDistance, Double3.ONE, 0.001), "Wrong number of intersections");
+            }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UniformGridTests {
+    /**
+     * Test method for {@link geometries.UniformGrid#findIntersections(primitives.Ray)}
+     * and {@link geometries.UniformGrid#findClosestGeoIntersection(primitives.Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        Random random = new Random(9255);
+        Geometries linear = new Geometries();
+        UniformGrid grid = new UniformGrid();
+
+        // ============ Boundary Values Tests ==============
+
+        // TC01: An empty grid
+        Ray ray = new Ray(new Point(3, 3, 0.5), new Vector(-2, -2, 0));
+        assertNull(grid.findIntersections(ray), "Must not be an intersection");
+        assertNull(grid.findClosestGeoIntersection(ray), "Must not be an intersection");
+
+        // A tessellated floor of 20x20 squares and some spheres above it
+        for (int i = 0; i < 20; ++i)
+            for (int j = 0; j < 20; ++j) {
+                Point p = new Point(i * 5, j * 5, 0);
+                Triangle t1 = new Triangle(p, new Point(i * 5 + 5, j * 5, 0), new Point(i * 5 + 5, j * 5 + 5, 0));
+                Triangle t2 = new Triangle(p, new Point(i * 5 + 5, j * 5 + 5, 0), new Point(i * 5, j * 5 + 5, 0));
+                linear.add(t1, t2);
+                grid.add(t1, t2);
+            }
+        for (int i = 0; i < 30; ++i) {
+            Sphere sphere = new Sphere(random.nextDouble() * 3 + 1,
+                    new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 20 + 5));
+            linear.add(sphere);
+            grid.add(sphere);
+        }
+        Plane plane = new Plane(new Point(0, 0, -10), new Vector(0, 0, 1));
+        linear.add(plane);
+        grid.add(plane);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC10: The grid finds exactly the intersections of the linear scan
+        for (int i = 0; i < 500; ++i) {
+            ray = new Ray(new Point(random.nextDouble() * 140 - 20, random.nextDouble() * 140 - 20, 50),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -random.nextDouble() - 0.1));
+            List<Point> expected = linear.findIntersections(ray);
+            List<Point> result = grid.findIntersections(ray);
+            if (expected == null) {
+                assertNull(result, "The grid found intersections the linear scan didn't");
+                assertNull(grid.findClosestGeoIntersection(ray), "The grid found an intersection the linear scan didn't");
+            } else {
+                assertNotNull(result, "The grid missed intersections");
+                assertEquals(expected.size(), result.size(), "Wrong number of intersections");
+                assertEquals(new HashSet<>(expected), new HashSet<>(result), "Wrong intersections");
+                // TC11: The closest intersection is the one of the linear scan
+                assertEquals(ray.findClosestPoint(expected), grid.findClosestGeoIntersection(ray).point,
+                        "Wrong closest intersection");
+            }
+        }
+
+        // TC12: A ray inside the grid parallel to an axis
+        ray = new Ray(new Point(52, 52, 1), new Vector(1, 0, 0));
+        assertEquals(linear.findIntersections(ray) == null, grid.findIntersections(ray) == null,
+                "Wrong intersections for an axis parallel ray");
+    }
+}
@@ -0,0 +1,81 @@
+package lighting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+
+public class AreaLightTests {
+    private static final Color INTENSITY = new Color(100, 100, 100);
+
+    /**
+     * Test method for {@link lighting.RectangleLight#getSamplePoint(double[], int, primitives.Vec3)}.
+     */
+    @Test
+    void testRectangleSamplePoint() {
+        RectangleLight light = new RectangleLight(INTENSITY, new Point(1, 2, 3), new Vector(4, 0, 0),
+                new Vector(0, 0, 2));
+        double[] points = {0.25, 0.75, 0.5, 0.5, 0, 0};
+        Vec3 point = new Vec3();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A sample inside the unit square is mapped into the rectangle
+        light.getSamplePoint(points, 0, point);
+        assertEquals(0, point.x, 1E-12, "Wrong sample point");
+        assertEquals(2, point.y, 1E-12, "Wrong sample point");
+        assertEquals(3.5, point.z, 1E-12, "Wrong sample point");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: The center of the square is the center of the rectangle
+        light.getSamplePoint(points, 1, point);
+        assertEquals(1, point.x, 1E-12, "Wrong center of the rectangle");
+        assertEquals(3, point.z, 1E-12, "Wrong center of the rectangle");
+        // TC11: The corner of the square is a corner of the rectangle
+        light.getSamplePoint(points, 2, point);
+        assertEquals(-1, point.x, 1E-12, "Wrong corner of the rectangle");
+        assertEquals(2, point.z, 1E-12, "Wrong corner of the rectangle");
+        // TC12: Edges that aren't orthogonal
+        assertThrows(IllegalArgumentException.class, () -> new RectangleLight(INTENSITY, new Point(0, 0, 0),
+                new Vector(1, 0, 0), new Vector(1, 1, 0)), "Constructed a parallelogram");
+    }
+
+    /**
+     * Test method for {@link lighting.DiskLight#getSamplePoint(double[], int, primitives.Vec3)}.
+     */
+    @Test
+    void testDiskSamplePoint() {
+        Point center = new Point(1, 2, 3);
+        DiskLight light = new DiskLight(INTENSITY, center, new Vector(0, 1, 1), 2);
+        Vec3 point = new Vec3();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The samples are mapped into the disk, in its plane
+        double[] points = new double[2];
+        for (int i = 0; i < 100; ++i) {
+            points[0] = (i % 10 + 0.5) / 10;
+            points[1] = (i / 10 + 0.5) / 10;
+            light.getSamplePoint(points, 0, point);
+            double dx = point.x - 1, dy = point.y - 2, dz = point.z - 3;
+            assertEquals(0, dy + dz, 1E-12, "A sample point out of the plane of the disk");
+            assertTrue(dx * dx + dy * dy + dz * dz < 4, "A sample point out of the disk");
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: The center of the square is the center of the disk
+        points[0] = points[1] = 0.5;
+        light.getSamplePoint(points, 0, point);
+        assertEquals(0, new Point(point.x, point.y, point.z).distance(center), 1E-12, "Wrong center of the disk");
+        // TC11: A normal along the X axis
+        points[0] = 1;
+        new DiskLight(INTENSITY, center, new Vector(1, 0, 0), 2).getSamplePoint(points, 0, point);
+        assertEquals(1, point.x, 1E-12, "A sample point out of the plane of the disk");
+        // TC12: A disk without a radius
+        assertThrows(IllegalArgumentException.class, () -> new DiskLight(INTENSITY, center, new Vector(0, 1, 0), 0),
+                "Constructed a disk without a radius");
+    }
+}
@@ -0,0 +1,44 @@
+package lighting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+
+public class PointLightTests {
+    /**
+     * Test method for {@link lighting.PointLight#getInfluenceRadius(double)}.
+     */
+    @Test
+    void testInfluenceRadius() {
+        Point position = new Point(1, 2, 3);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A quadratically attenuated light falls below the cutoff at its radius, in its brightest channel
+        PointLight light = new PointLight(new Color(400, 100, 0), position).setKq(0.01);
+        double radius = light.getInfluenceRadius(1);
+        assertEquals(Math.sqrt(39900), radius, 1E-6, "Wrong radius of a quadratic attenuation");
+        assertTrue(light.getIntensity(new Point(1 + radius * 1.001, 2, 3)).getRed() < 1, "Visible beyond the radius");
+        assertTrue(light.getIntensity(new Point(1, 2, 3 + radius * 0.999)).getRed() > 1, "Invisible within the radius");
+        // TC02: A linearly attenuated light
+        assertEquals(99, new PointLight(new Color(100, 100, 100), position).setKl(1).getInfluenceRadius(1), 1E-6,
+                "Wrong radius of a linear attenuation");
+        // TC03: A spot light has the radius of its point light
+        assertEquals(radius, new SpotLight(new Color(400, 100, 0), position, new Vector(0, 0, 1)).setKq(0.01)
+                .getInfluenceRadius(1), 1E-6, "Wrong radius of a spot light");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A light without attenuation is visible at any distance
+        assertEquals(Double.POSITIVE_INFINITY, new PointLight(new Color(100, 100, 100), position)
+                .getInfluenceRadius(1), "A light without attenuation has a radius");
+        // TC11: A light below the cutoff is invisible everywhere
+        assertEquals(0, new PointLight(new Color(1, 1, 1), position).setKc(2).getInfluenceRadius(1),
+                "An invisible light has a radius");
+        // TC12: A directional light is visible at any distance
+        assertEquals(Double.POSITIVE_INFINITY, new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, 1))
+                .getInfluenceRadius(1), "A directional light has a radius");
+    }
+}
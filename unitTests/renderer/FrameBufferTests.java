@@ -0,0 +1,74 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.Color;
+
+import java.awt.image.BufferedImage;
+
+public class FrameBufferTests {
+    /**
+     * Test method for {@link renderer.FrameBuffer#setPixel(int, int, primitives.Color)}.
+     */
+    @Test
+    void testSetPixel() {
+        FrameBuffer buffer = new FrameBuffer(4, 3, true);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A displayable color is packed as java.awt.Color packs it
+        Color color = new Color(10, 120, 250);
+        buffer.setPixel(3, 2, color);
+        assertEquals(color.getColor().getRGB(), buffer.getRGB(3, 2), "Wrong packed color");
+        // TC02: A bright color is clamped, and kept linear in a high dynamic range buffer
+        Color bright = new Color(600, 20, 300);
+        buffer.setPixel(1, 0, bright);
+        assertEquals(bright.getColor().getRGB(), buffer.getRGB(1, 0), "Wrong clamped color");
+        assertEquals(600, buffer.getLinear(1, 0, 0), "Wrong linear red");
+        assertEquals(300, buffer.getLinear(1, 0, 2), "Wrong linear blue");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A pixel outside the image
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.setPixel(4, 0, color), "Wrote outside the image");
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.setPixel(0, -1, color),
+                "Wrote outside the image");
+        // TC11: A buffer without the linear colors
+        assertThrows(IllegalStateException.class, () -> new FrameBuffer(4, 3, false).getLinear(0, 0, 0),
+                "Read a linear color that isn't kept");
+    }
+
+    /**
+     * Test method for {@link renderer.FrameBuffer#toImage(renderer.ToneMapper)}.
+     */
+    @Test
+    void testToImage() {
+        FrameBuffer buffer = new FrameBuffer(2, 2, true);
+        buffer.setPixel(0, 0, new Color(100, 0, 0));
+        buffer.setPixel(1, 1, new Color(1020, 510, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The clamped image has the packed colors
+        BufferedImage image = buffer.toImage();
+        assertEquals(buffer.getRGB(1, 1), image.getRGB(1, 1), "Wrong pixel of the image");
+        assertEquals(ToneMapper.CLAMP.map(1020, 510, 0), image.getRGB(1, 1), "Wrong clamp");
+        // TC02: The Reinhard mapping compresses bright colors and keeps their hue
+        int mapped = buffer.toImage(ToneMapper.reinhard(1020)).getRGB(1, 1);
+        assertEquals(255, mapped >> 16 & 0xFF, "The white point isn't mapped to white");
+        int green = mapped >> 8 & 0xFF;
+        assertTrue(green > 0 && green < 255, "The hue of a bright color was lost");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: Black stays black
+        assertEquals(0xFF000000, buffer.toImage(ToneMapper.reinhard(1020)).getRGB(1, 0), "Black was mapped");
+        // TC11: A white point below the printed white
+        assertThrows(IllegalArgumentException.class, () -> ToneMapper.reinhard(100), "Constructed a low white point");
+        // TC12: Tone mapping of a buffer without the linear colors
+        assertThrows(IllegalStateException.class, () -> new FrameBuffer(2, 2, false).toImage(ToneMapper.CLAMP),
+                "Mapped linear colors that aren't kept");
+    }
+}
@@ -0,0 +1,53 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.Color;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class LatticeSamplerTests {
+    private static final Color RED = new Color(255, 0, 0);
+    private static final Color BLUE = new Color(0, 0, 255);
+
+    /**
+     * Test method for {@link renderer.LatticeSampler#sample(int, int)}.
+     */
+    @Test
+    void testSample() {
+        // a vertical edge at x = 2.3 - between the corners of pixel 2
+        Map<String, Integer> traces = new HashMap<>();
+        LatticeSampler sampler = new LatticeSampler((x, y) -> {
+            traces.merge(x + "," + y, 1, Integer::sum);
+            return x < 2.3 ? RED : BLUE;
+        }, 3, 4);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A flat pixel is the color of its corners, for about a ray
+        assertEquals(RED.getRGB(), sampler.sample(0, 0).getRGB(), "Wrong color of a flat pixel");
+        assertEquals(4, sampler.getTracedSamples(), "Wrong number of rays of a flat pixel");
+        assertEquals(RED.getRGB(), sampler.sample(0, 1).getRGB(), "Wrong color of a flat pixel");
+        assertEquals(6, sampler.getTracedSamples(), "The shared corners were traced again");
+        // TC02: A pixel on the edge is subdivided, and mixes the colors by their areas
+        Color edge = sampler.sample(2, 0);
+        assertEquals(255 * 0.8, edge.getRed(), 255 * 0.07, "Wrong red of the edge pixel");
+        assertEquals(255 * 0.2, edge.getBlue(), 255 * 0.07, "Wrong blue of the edge pixel");
+        // TC03: Each lattice sample of a tile is traced once
+        for (int x = 0; x < 4; ++x)
+            for (int y = 0; y < 4; ++y)
+                sampler.sample(x, y);
+        for (Map.Entry<String, Integer> trace : traces.entrySet())
+            assertEquals(1, trace.getValue(), "The sample " + trace.getKey() + " was traced again");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A pixel of another tile has another cache
+        long traced = sampler.getTracedSamples();
+        sampler.sample(4, 0);
+        assertEquals(traced + 4, sampler.getTracedSamples(), "Wrong number of rays of a pixel of a new tile");
+    }
+}
@@ -0,0 +1,58 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import lighting.*;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class LightIndexTests {
+    /**
+     * Test method for {@link renderer.LightIndex#find(double, double, double, int[], int[])}.
+     */
+    @Test
+    void testFind() {
+        Random random = new Random(3);
+        List<LightSource> lights = new ArrayList<>();
+        for (int i = 0; i < 200; ++i)
+            lights.add(new PointLight(new Color(100, 50, 50), new Point(random.nextDouble() * 1000,
+                    random.nextDouble() * 1000, random.nextDouble() * 100)).setKq(0.01 + random.nextDouble() * 0.1));
+        lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1)));
+        lights.add(new PointLight(new Color(10, 10, 10), new Point(0, 0, 0)).setKc(20));
+        LightIndex index = new LightIndex(lights, 1);
+        int[] found = new int[lights.size()], stack = new int[index.getStackSize()];
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The lights found are the ones within their radius, and the unbounded ones, in ascending order
+        for (int i = 0; i < 500; ++i) {
+            double x = random.nextDouble() * 1000, y = random.nextDouble() * 1000, z = random.nextDouble() * 100;
+            int count = index.find(x, y, z, found, stack);
+            int[] expected = new int[lights.size()];
+            int expectedCount = 0;
+            for (int light = 0; light < lights.size(); ++light) {
+                double radius = lights.get(light).getInfluenceRadius(1);
+                if (radius == Double.POSITIVE_INFINITY || lights.get(light) instanceof PointLight point
+                        && point.getPosition().distance(new Point(x, y, z)) <= radius)
+                    expected[expectedCount++] = light;
+            }
+            assertArrayEquals(Arrays.copyOf(expected, expectedCount), Arrays.copyOf(found, count),
+                    "Wrong lights found");
+            assertTrue(count < 20, "Found lights that don't contribute");
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A point far from all the bounded lights finds the unbounded ones only
+        assertEquals(1, index.find(1E6, 1E6, 1E6, found, stack), "Found a light too far");
+        assertEquals(200, found[0], "Didn't find the directional light");
+        // TC11: An index without lights
+        assertEquals(0, new LightIndex(List.of(), 1).find(0, 0, 0, found, stack), "Found a light in an empty index");
+    }
+}
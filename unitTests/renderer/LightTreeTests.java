@@ -0,0 +1,70 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import lighting.*;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class LightTreeTests {
+    /**
+     * Test method for {@link renderer.LightTree#select(double, double, double, double, int[])}.
+     */
+    @Test
+    void testSelect() {
+        Random random = new Random(5);
+        List<LightSource> lights = new ArrayList<>();
+        lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1)));
+        for (int i = 0; i < 100; ++i)
+            lights.add(new PointLight(new Color(random.nextDouble() * 100, 50, 50), new Point(
+                    random.nextDouble() * 1000, random.nextDouble() * 1000, random.nextDouble() * 100)));
+        LightTree tree = new LightTree(lights);
+        int[] light = new int[1];
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The lights are selected as often as their probabilities, which sum to 1
+        Map<Integer, Double> probabilities = new HashMap<>();
+        Map<Integer, Integer> counts = new HashMap<>();
+        int n = 100000;
+        for (int i = 0; i < n; ++i) {
+            double probability = tree.select(300, 600, 50, (i + 0.5) / n, light);
+            assertTrue(light[0] > 0 && light[0] <= 100, "Selected a light out of the tree");
+            Double previous = probabilities.put(light[0], probability);
+            assertTrue(previous == null || previous == probability, "A light was selected with two probabilities");
+            counts.merge(light[0], 1, Integer::sum);
+        }
+        double sum = 0;
+        for (Map.Entry<Integer, Double> entry : probabilities.entrySet()) {
+            assertEquals(entry.getValue(), counts.get(entry.getKey()) / (double) n, 1E-3, "Wrong selection rate");
+            sum += entry.getValue();
+        }
+        assertEquals(1, sum, 1E-3, "The probabilities don't sum to 1");
+        // TC02: A light next to the point is more probable than a far one
+        PointLight near = (PointLight) lights.get(1);
+        Point position = near.getPosition();
+        int nearCount = 0;
+        for (int i = 0; i < 1000; ++i) {
+            tree.select(position.getX() + 1, position.getY(), position.getZ(), (i + 0.5) / 1000, light);
+            if (light[0] == 1) ++nearCount;
+        }
+        assertTrue(nearCount > 100, "The nearest light was selected " + nearCount + " of 1000 times");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: The directional light isn't in the tree
+        assertArrayEquals(new int[]{0}, tree.getUnpositioned(), "Wrong unpositioned lights");
+        // TC11: A tree of a single light selects it
+        assertEquals(1, new LightTree(lights.subList(1, 2)).select(0, 0, 0, 0.7, light), "Wrong single light");
+        assertEquals(0, light[0], "Wrong single light");
+        // TC12: A tree without positioned lights selects none
+        assertEquals(0, new LightTree(lights.subList(0, 1)).select(0, 0, 0, 0.7, light), "Selected from no lights");
+    }
+}
@@ -0,0 +1,86 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class PackedHierarchyTests {
+    /**
+     * Checks the sub-tree of a node - its leaves cover the given range of the order with at most the maximal
+     * number of spheres, the box of the node bounds the spheres, and the left child has no center beyond the
+     * centers of the right child along some axis.
+     *
+     * @return the position after the last sphere of the node
+     */
+    private static int check(PackedHierarchy hierarchy, int node, int from, int[] order, double[] spheres,
+                             int maxLeafSize) {
+        int[] nodes = hierarchy.nodes;
+        int to;
+        if (nodes[2 * node + 1] > 0) {
+            assertEquals(from, nodes[2 * node], "A leaf out of order");
+            assertTrue(nodes[2 * node + 1] <= maxLeafSize, "A leaf too large");
+            to = from + nodes[2 * node + 1];
+        } else {
+            int middle = check(hierarchy, node + 1, from, order, spheres, maxLeafSize);
+            to = check(hierarchy, nodes[2 * node], middle, order, spheres, maxLeafSize);
+            boolean split = false;
+            for (int axis = 0; axis < 3 && !split; ++axis) {
+                double leftMax = Double.NEGATIVE_INFINITY, rightMin = Double.POSITIVE_INFINITY;
+                for (int i = from; i < middle; ++i) leftMax = Math.max(leftMax, spheres[4 * order[i] + axis]);
+                for (int i = middle; i < to; ++i) rightMin = Math.min(rightMin, spheres[4 * order[i] + axis]);
+                split = leftMax <= rightMin;
+            }
+            assertTrue(split, "The children aren't split along an axis");
+        }
+        for (int i = from; i < to; ++i)
+            for (int axis = 0; axis < 3; ++axis) {
+                double center = spheres[4 * order[i] + axis], radius = spheres[4 * order[i] + 3];
+                assertTrue(hierarchy.bounds[6 * node + axis] <= center - radius
+                        && center + radius <= hierarchy.bounds[6 * node + 3 + axis], "A sphere out of its box");
+            }
+        return to;
+    }
+
+    /**
+     * Test method for {@link renderer.PackedHierarchy#PackedHierarchy(int[], int, double[], int)}.
+     */
+    @Test
+    void testConstructor() {
+        Random random = new Random(5);
+        double[] spheres = new double[4 * 300];
+        for (int i = 0; i < 300; ++i) {
+            spheres[4 * i] = random.nextDouble() * 100;
+            spheres[4 * i + 1] = random.nextInt(5);
+            spheres[4 * i + 2] = random.nextDouble();
+            spheres[4 * i + 3] = random.nextDouble() * 3;
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The spheres of the leaves are a permutation of the spheres, split at the median
+        int[] order = new int[300];
+        for (int i = 0; i < 300; ++i) order[i] = 299 - i;
+        PackedHierarchy hierarchy = new PackedHierarchy(order, 250, spheres, 4);
+        assertEquals(250, check(hierarchy, 0, 0, order, spheres, 4), "Not all the spheres are in the leaves");
+        int[] sorted = Arrays.copyOf(order, 250);
+        Arrays.sort(sorted);
+        for (int i = 0; i < 250; ++i) assertEquals(50 + i, sorted[i], "The order isn't a permutation");
+        assertTrue(hierarchy.depth <= 8, "The hierarchy isn't balanced");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: Spheres at the same center are split into leaves of a single sphere
+        double[] same = new double[4 * 9];
+        int[] sameOrder = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+        hierarchy = new PackedHierarchy(sameOrder, 9, same, 1);
+        assertEquals(17, hierarchy.size(), "Wrong number of nodes");
+        assertEquals(9, check(hierarchy, 0, 0, sameOrder, same, 1), "Not all the spheres are in the leaves");
+        // TC11: No spheres
+        hierarchy = new PackedHierarchy(new int[0], 0, same, 4);
+        assertEquals(0, hierarchy.size(), "Nodes without spheres");
+        assertEquals(0, hierarchy.depth, "A depth without spheres");
+    }
+}
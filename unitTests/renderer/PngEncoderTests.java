@@ -0,0 +1,103 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.Color;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+public class PngEncoderTests {
+    /**
+     * Creates an image writer with a gradient and a grid of pixels.
+     *
+     * @param name the name of the image
+     * @param nX   the amount of pixels by width
+     * @param nY   the amount of pixels by height
+     * @return the image writer
+     */
+    private static ImageWriter gradient(String name, int nX, int nY) {
+        ImageWriter writer = new ImageWriter(name, nX, nY);
+        for (int y = 0; y < nY; ++y)
+            for (int x = 0; x < nX; ++x)
+                writer.writePixel(x, y, x % 50 == 0 || y % 50 == 0 ? new Color(255, 0, 0)
+                        : new Color(x % 256, y % 256, (x * y) % 256));
+        return writer;
+    }
+
+    /**
+     * Decodes the PNG file of an image writer and checks that it has the pixels of the writer.
+     *
+     * @param writer  the image writer
+     * @param message the message of a failure
+     * @return the size of the file
+     */
+    private static long assertDecoded(ImageWriter writer, String message) {
+        File file = writer.getImageFile("png");
+        BufferedImage image;
+        try {
+            image = ImageIO.read(file);
+        } catch (IOException e) {
+            return fail(message, e);
+        }
+        assertNotNull(image, message);
+        assertEquals(writer.getNx(), image.getWidth(), message);
+        assertEquals(writer.getNy(), image.getHeight(), message);
+        for (int y = 0; y < writer.getNy(); ++y)
+            for (int x = 0; x < writer.getNx(); ++x)
+                assertEquals(writer.getFrameBuffer().getRGB(x, y), image.getRGB(x, y), message);
+        return file.length();
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.PngEncoder#encode(int[], int, int, java.io.File, java.util.concurrent.Executor)}.
+     */
+    @Test
+    void testEncode() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: An image of several stripes is decoded as it was written
+        ImageWriter writer = gradient("png encoder", 300, 1000);
+        writer.writeToImage();
+        assertDecoded(writer, "Wrong image of the default compression");
+
+        // TC02: The compression levels trade size against speed, and encode the same pixels
+        ExecutorService fixed = Executors.newFixedThreadPool(2);
+        try {
+            writer.setCompressionLevel(0).writeToImageAsync(fixed).join();
+            long stored = assertDecoded(writer, "Wrong image without compression");
+            writer.setCompressionLevel(9).writeToImageAsync(fixed).join();
+            long best = assertDecoded(writer, "Wrong image of the best compression");
+            assertTrue(best < stored / 2, "The best compression didn't compress");
+
+            // TC03: The pixels written after the encoding started don't change the file
+            ImageWriter next = gradient("png encoder next", 300, 1000);
+            var completion = next.writeToImageAsync(fixed);
+            int expected = next.getFrameBuffer().getRGB(10, 10);
+            next.writePixel(10, 10, new Color(1, 2, 3));
+            completion.join();
+            next.writePixel(10, 10, new Color(expected >> 16 & 0xFF, expected >> 8 & 0xFF, expected & 0xFF));
+            assertDecoded(next, "A pixel written after the start of the encoding changed the file");
+        } finally {
+            fixed.shutdown();
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: An image of a single pixel
+        ImageWriter single = gradient("png encoder single", 1, 1);
+        single.writeToImage();
+        assertDecoded(single, "Wrong image of a single pixel");
+        // TC11: A compression level out of range
+        assertThrows(IllegalArgumentException.class, () -> writer.setCompressionLevel(10),
+                "Set a wrong compression level");
+    }
+}
@@ -0,0 +1,287 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import scene.Scene;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+public class RayTracerBasicTests {
+    /**
+     * Test method for {@link renderer.RayTracerBasic#traceMultipleRays(java.util.List)} in packet tracing mode.
+     */
+    @Test
+    void testTraceMultipleRaysPacket() {
+        Scene scene = TestScenes.scene("Packet scene", new Color(80, 0, 0));
+        scene.geometries.add(new Triangle(new Point(-80, -40, -150), new Point(80, -40, -150), new Point(0, 60, -150))
+                .setEmission(new Color(0, 60, 0)).setMaterial(TestScenes.material()));
+        scene.geometries.setBVH(true);
+        RayTracerBasic single = new RayTracerBasic(scene);
+        RayTracerBasic packets = new RayTracerBasic(scene).setPacketTracing(true);
+
+        Point camera = new Point(0, 0, 50);
+        List<Point> aperture = Point.pointsInTheTargetArea(camera, new Vector(0, 1, 0), new Vector(1, 0, 0), 9, 5);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A beam focused on the sphere, the triangle, the plane and the background gives the same color
+        for (Point focus : new Point[]{new Point(0, 0, -100), new Point(-30, 20, -150), new Point(0, -50, -60),
+                new Point(300, 300, -100)}) {
+            List<Ray> beam = Ray.createBeamOfRaysFromTargetArea(aperture, focus);
+            assertEquals(single.traceMultipleRays(beam).getColor(), packets.traceMultipleRays(beam).getColor(),
+                    "Packet tracing changed the color of the beam");
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A beam of a single ray
+        List<Ray> beam = List.of(new Ray(camera, new Vector(0, 0, -1)));
+        assertEquals(single.traceMultipleRays(beam).getColor(), packets.traceMultipleRays(beam).getColor(),
+                "Packet tracing changed the color of a single ray");
+    }
+
+    /**
+     * Allocation benchmark of {@link renderer.RayTracerBasic#traceRay(primitives.Ray)} - the shading works on
+     * scratch triads and accumulates colors in place, so the bytes allocated per ray in steady state stay within
+     * a budget.
+     */
+    @Test
+    void testTraceRayAllocation() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "The virtual machine doesn't measure allocations");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "The virtual machine doesn't measure allocations");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Scene scene = TestScenes.scene("Allocation scene", new Color(80, 0, 0));
+        scene.lights.add(new SpotLight(new Color(400, 300, 300), new Point(-50, 80, 0), new Vector(0, -1, -1)));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(1, -1, -1)));
+        RayTracerBasic tracer = new RayTracerBasic(scene);
+        Camera camera = TestScenes.camera();
+
+        long bytes = 0;
+        for (int pass = 0; pass < 3; ++pass) { // the first passes warm up
+            long start = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (int i = 0; i < 100; ++i)
+                for (int j = 0; j < 100; ++j)
+                    tracer.traceRay(camera.constructRay(100, 100, j, i));
+            bytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A ray that hits lit surfaces allocates little more than its hit record and shadow rays
+        assertTrue(bytes / 10000 < 1000, "Tracing allocated " + bytes / 10000 + " bytes per ray");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerBasic#traceRay(primitives.Ray)} with an area light - the soft
+     * shadow is sampled with the whole budget of shadow rays only in the penumbra.
+     */
+    @Test
+    void testAreaLightShadows() {
+        int[] shadowRays = {0};
+        Geometry occluder = new Sphere(8d, new Point(0, 20, 0)) {
+            @Override
+            public Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK,
+                                            Geometry[] blocker) {
+                ++shadowRays[0];
+                return super.findTransparency(ray, maxDistance, ktr, minK, blocker);
+            }
+        };
+        Geometry floor = new Plane(new Point(0, 0, 0), new Vector(0, 1, 0)).setMaterial(new Material().setKd(1));
+        AreaLight light = new RectangleLight(new Color(300, 300, 300), new Point(0, 40, 0), new Vector(20, 0, 0),
+                new Vector(0, 0, 20)).setShadowRays(16).setProbeRays(4);
+        Scene scene = new Scene("Area light scene");
+        scene.geometries.add(occluder, floor);
+        scene.lights.add(light);
+        // the shadow rays are counted on the occluder, so it isn't tested again from the cache
+        RayTracerBasic tracer = new RayTracerBasic(scene).setOccluderCache(false);
+        Scene unshadowed = new Scene("Point light scene");
+        unshadowed.geometries.add(floor);
+        unshadowed.lights.add(new PointLight(new Color(300, 300, 300), new Point(0, 40, 0)));
+        RayTracerBasic reference = new RayTracerBasic(unshadowed);
+        Vector down = new Vector(0, -1, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A point in the umbra is dark and costs the probes only
+        Color umbra = tracer.traceRay(new Ray(new Point(0, 1, 0), down));
+        assertEquals(java.awt.Color.BLACK, umbra.getColor(), "The umbra is lit");
+        assertEquals(4, shadowRays[0], "The umbra cast more than the probes");
+        // TC02: A fully lit point is lit as by a point light and costs the probes only
+        shadowRays[0] = 0;
+        Ray litRay = new Ray(new Point(40, 1, 0), down);
+        assertEquals(reference.traceRay(litRay).getColor(), tracer.traceRay(litRay).getColor(),
+                "The lit point is shadowed");
+        assertEquals(4, shadowRays[0], "The lit point cast more than the probes");
+        // TC03: A point in the penumbra is partly lit and costs the whole budget
+        shadowRays[0] = 0;
+        Ray penumbraRay = new Ray(new Point(12, 1, 0), down);
+        int red = tracer.traceRay(penumbraRay).getColor().getRed();
+        assertTrue(red > 0 && red < reference.traceRay(penumbraRay).getColor().getRed(),
+                "The penumbra isn't partly lit");
+        assertEquals(16, shadowRays[0], "The penumbra didn't cast the whole budget");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A budget of no more rays than the probes
+        shadowRays[0] = 0;
+        light.setShadowRays(3);
+        tracer.traceRay(penumbraRay);
+        assertEquals(3, shadowRays[0], "Cast more rays than the budget");
+        // TC11: A budget without rays
+        assertThrows(IllegalArgumentException.class, () -> light.setShadowRays(0), "Set no shadow rays");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerBasic#setOccluderCache(boolean)}.
+     */
+    @Test
+    void testOccluderCache() {
+        Scene scene = TestScenes.scene("Occluder scene", new Color(80, 0, 0));
+        scene.geometries.add(new Sphere(20d, new Point(80, 0, -100)).setEmission(new Color(0, 0, 80))
+                .setMaterial(new Material().setKd(0.5).setKT(0.5)));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, -1, 0)));
+        RayTracerBasic cached = new RayTracerBasic(scene);
+        RayTracerBasic uncached = new RayTracerBasic(scene).setOccluderCache(false);
+        Camera camera = TestScenes.camera();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The cache doesn't change the shadows, and most shadow rays of the opaque shadow hit it
+        for (int i = 0; i < 50; ++i)
+            for (int j = 0; j < 50; ++j) {
+                Ray ray = camera.constructRay(50, 50, j, i);
+                assertEquals(uncached.traceRay(ray).getColor(), cached.traceRay(ray).getColor(),
+                        "The cache changed the color");
+            }
+        assertTrue(cached.getOccluderHits() > 0, "No shadow ray hit the cache");
+        assertEquals(0, uncached.getOccluderHits() + uncached.getOccluderMisses(), "Counted without a cache");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A point in the umbra of the opaque sphere hits the cache of both lights the second time
+        cached.resetOccluderStatistics();
+        assertEquals(0, cached.getOccluderHits() + cached.getOccluderMisses(), "The statistics weren't reset");
+        Ray umbra = new Ray(new Point(-10, -40, -120), new Vector(0, -1, 0));
+        assertEquals(uncached.traceRay(umbra).getColor(), cached.traceRay(umbra).getColor(), "Wrong umbra");
+        long hits = cached.getOccluderHits(), misses = cached.getOccluderMisses();
+        cached.traceRay(umbra);
+        assertEquals(hits + 2, cached.getOccluderHits(), "The umbra missed the cache");
+        assertEquals(misses, cached.getOccluderMisses(), "The umbra missed the cache");
+        // TC11: A lit point isn't blocked by the cached occluder, and searches the scene
+        Ray lit = new Ray(new Point(-80, -40, -100), new Vector(0, -1, 0));
+        assertEquals(uncached.traceRay(lit).getColor(), cached.traceRay(lit).getColor(), "Wrong lit point");
+        assertEquals(misses + 2, cached.getOccluderMisses(), "The lit point didn't search the scene");
+        // TC12: An opaque occluder behind a transparent geometry is cached
+        Scene layers = new Scene("Layered occluder scene");
+        layers.geometries.add(new Sphere(10d, new Point(0, 20, 0)).setMaterial(new Material().setKT(0.5)),
+                new Sphere(10d, new Point(0, 60, 0)).setMaterial(TestScenes.material()),
+                new Plane(new Point(0, 0, 0), new Vector(0, 1, 0)).setMaterial(new Material().setKd(0.5)));
+        layers.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, -1, 0)));
+        RayTracerBasic layered = new RayTracerBasic(layers);
+        Ray floor = new Ray(new Point(0, 5, 0), new Vector(0, -1, 0));
+        assertEquals(new RayTracerBasic(layers).setOccluderCache(false).traceRay(floor).getColor(),
+                layered.traceRay(floor).getColor(), "Wrong layered shadow");
+        layered.traceRay(floor);
+        assertEquals(1, layered.getOccluderHits(), "The occluder behind the transparent geometry wasn't cached");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerBasic#setLightCutoff(double)}.
+     */
+    @Test
+    void testLightCutoff() {
+        Scene scene = TestScenes.scene("Many lights scene", new Color(40, 0, 0));
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                scene.lights.add(new PointLight(new Color(300, 200, 200), new Point(i * 40 - 180, -30, j * 40 - 300))
+                        .setKq(0.5));
+        scene.lights.add(new DirectionalLight(new Color(50, 50, 50), new Vector(1, -1, -1)));
+        RayTracerBasic all = new RayTracerBasic(scene);
+        RayTracerBasic culled = new RayTracerBasic(scene).setLightCutoff(0.5);
+        Camera camera = TestScenes.camera();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The culled lights are invisible, and most shadow rays are saved
+        int maxDifference = 0;
+        for (int i = 0; i < 40; ++i)
+            for (int j = 0; j < 40; ++j) {
+                Ray ray = camera.constructRay(40, 40, j, i);
+                java.awt.Color a = all.traceRay(ray).getColor(), b = culled.traceRay(ray).getColor();
+                maxDifference = Math.max(maxDifference, Math.max(Math.abs(a.getRed() - b.getRed()),
+                        Math.max(Math.abs(a.getGreen() - b.getGreen()), Math.abs(a.getBlue() - b.getBlue()))));
+            }
+        assertTrue(maxDifference <= 2, "The culled lights changed the image by " + maxDifference);
+        long allRays = all.getOccluderHits() + all.getOccluderMisses();
+        long culledRays = culled.getOccluderHits() + culled.getOccluderMisses();
+        assertTrue(culledRays * 5 < allRays, "Cast " + culledRays + " of " + allRays + " shadow rays");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A light added after the index was built is found
+        Ray ray = new Ray(new Point(0, 0, 50), new Vector(0, 0, -1));
+        Color before = culled.traceRay(ray);
+        scene.lights.add(new PointLight(new Color(300, 300, 300), new Point(0, 40, -50)).setKq(0.001));
+        assertNotEquals(before.getColor(), culled.traceRay(ray).getColor(), "The added light wasn't found");
+        assertEquals(all.traceRay(ray).getColor().getRed(), culled.traceRay(ray).getColor().getRed(), 2,
+                "Wrong added light");
+        // TC11: A negative cutoff
+        assertThrows(IllegalArgumentException.class, () -> all.setLightCutoff(-1), "Set a negative cutoff");
+    }
+
+    /**
+     * Test method for {@link renderer.RayTracerBasic#setLightSampling(int)}.
+     */
+    @Test
+    void testLightSampling() {
+        Scene scene = new Scene("Many lights scene");
+        scene.geometries.add(new Plane(new Point(0, -50, 0), new Vector(0, 1, 0)).setEmission(new Color(10, 10, 10))
+                .setMaterial(new Material().setKd(0.5)));
+        for (int i = 0; i < 20; ++i)
+            for (int j = 0; j < 20; ++j)
+                scene.lights.add(new PointLight(new Color(30, 20, 20), new Point(i * 20 - 200, -20, j * 20 - 400))
+                        .setKq(0.001));
+        scene.lights.add(new DirectionalLight(new Color(20, 20, 20), new Vector(1, -1, -1)));
+        RayTracerBasic all = new RayTracerBasic(scene);
+        RayTracerBasic sampled = new RayTracerBasic(scene).setLightSampling(4);
+        Camera camera = TestScenes.camera();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The sampled shading is unbiased - it is noisy, but its mean is the shading by all the lights
+        double allSum = 0, sampledSum = 0;
+        int hits = 0;
+        for (int i = 20; i < 40; ++i)
+            for (int j = 0; j < 40; ++j) {
+                Ray ray = camera.constructRay(40, 40, j, i);
+                Color a = all.traceRay(ray), b = sampled.traceRay(ray);
+                allSum += a.getRed() + a.getGreen() + a.getBlue();
+                sampledSum += b.getRed() + b.getGreen() + b.getBlue();
+                ++hits;
+            }
+        assertEquals(1, sampledSum / allSum, 0.05, "The sampled shading is biased");
+        // TC02: Every point casts a shadow ray to the sampled lights and the directional light only
+        long shadowRays = sampled.getOccluderHits() + sampled.getOccluderMisses();
+        assertTrue(shadowRays <= 5L * hits, "Cast " + shadowRays + " shadow rays for " + hits + " points");
+        assertTrue(all.getOccluderHits() + all.getOccluderMisses() > 100L * hits, "All the lights weren't shaded");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A point is shaded the same every time
+        Ray ray = camera.constructRay(40, 40, 20, 30);
+        assertEquals(sampled.traceRay(ray).getColor(), sampled.traceRay(ray).getColor(),
+                "The sampling isn't repeatable");
+        // TC11: A negative number of samples
+        assertThrows(IllegalArgumentException.class, () -> all.setLightSampling(-1), "Set negative samples");
+    }
+}
@@ -0,0 +1,332 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+import sampling.SobolSampler;
+import sampling.StratifiedSampler;
+import scene.Scene;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+public class RenderJobTests {
+    /**
+     * An image writer that keeps the pixels in memory instead of writing them to a file
+     */
+    private static class RecordingWriter extends ImageWriter {
+        final int[] pixels;
+        int snapshots = 0;
+
+        RecordingWriter(int nX, int nY) {
+            super("recording", nX, nY);
+            pixels = new int[nX * nY];
+        }
+
+        @Override
+        public void writePixel(int xIndex, int yIndex, Color color) {
+            pixels[yIndex * getNx() + xIndex] = color.getColor().getRGB();
+        }
+
+        @Override
+        public CompletableFuture<Void> writeToImageAsync(Executor executor) {
+            ++snapshots;
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Creates a camera that looks at a lit sphere over a plane.
+     *
+     * @param emission the emission of the sphere
+     * @return the camera
+     */
+    private static Camera camera(Color emission) {
+        return TestScenes.camera()
+                .setRayTracer(new RayTracerBasic(TestScenes.scene("Job scene", emission)))
+                .setMultiThreading(2).setTileSize(8).setPrintInterval(0);
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#startRender()}.
+     */
+    @Test
+    void testStartRender() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A camera renders the same image twice
+        Camera camera = camera(new Color(80, 0, 0));
+        RecordingWriter first = new RecordingWriter(60, 60), second = new RecordingWriter(60, 60);
+        camera.setImageWriter(first).renderImage();
+        camera.setImageWriter(second).renderImage();
+        assertArrayEquals(first.pixels, second.pixels, "The second render of a camera differs");
+
+        // TC02: Two cameras render at the same time on a shared pool as they do alone
+        Camera other = camera(new Color(0, 80, 0));
+        RecordingWriter alone = new RecordingWriter(60, 60);
+        other.setImageWriter(alone).renderImage();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            RecordingWriter together = new RecordingWriter(60, 60), otherTogether = new RecordingWriter(60, 60);
+            RenderJob job = camera.setRenderExecutor(pool).setImageWriter(together).startRender();
+            RenderJob otherJob = other.setRenderExecutor(pool).setImageWriter(otherTogether).startRender();
+            job.waitToFinish();
+            otherJob.waitToFinish();
+            assertArrayEquals(first.pixels, together.pixels, "Concurrent renders corrupted an image");
+            assertArrayEquals(alone.pixels, otherTogether.pixels, "Concurrent renders corrupted an image");
+
+            // =============== Boundary Values Tests ==================
+
+            // TC10: A finished job rendered all its pixels
+            assertTrue(job.isDone(), "The job isn't done");
+            assertEquals(3600, job.getPixelsDone(), "Wrong number of rendered pixels");
+            assertEquals(1, job.getProgress(), "Wrong progress of a finished job");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A ray tracer that fails or is slow at some rays
+     */
+    private static class BadTracer extends RayTracerBase {
+        private final boolean slow;
+
+        BadTracer(boolean slow) {
+            super(new Scene("Bad scene"));
+            this.slow = slow;
+        }
+
+        @Override
+        public Color traceRay(Ray ray) {
+            if (slow) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException ignore) {
+                }
+            } else if (ray.getDir().getX() > 0.2)
+                throw new IllegalArgumentException("vector (0,0,0) isn't allowed!");
+            return Color.BLACK;
+        }
+
+        @Override
+        public Color traceMultipleRays(List<Ray> rays) {
+            return traceRay(rays.get(0));
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setRenderExecutor(java.util.concurrent.ExecutorService)} and
+     * {@link renderer.Camera#setVirtualThreads(boolean)}.
+     */
+    @Test
+    void testRenderExecutor() {
+        Camera camera = camera(new Color(80, 0, 0));
+        RecordingWriter expected = new RecordingWriter(60, 60);
+        camera.setImageWriter(expected).renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A fixed pool renders the same image as a work stealing pool
+        ExecutorService fixed = Executors.newFixedThreadPool(3);
+        try {
+            RecordingWriter writer = new RecordingWriter(60, 60);
+            camera.setRenderExecutor(fixed).setImageWriter(writer).renderImage();
+            assertArrayEquals(expected.pixels, writer.pixels, "A fixed pool rendered a different image");
+            assertFalse(fixed.isShutdown(), "A render job shut down the executor of the camera");
+        } finally {
+            fixed.shutdown();
+        }
+
+        // TC02: Virtual threads render the same image, on runtimes that have them
+        camera.setRenderExecutor(null).setVirtualThreads(true);
+        if (Runtime.version().feature() < 21)
+            assertThrows(UnsupportedOperationException.class, camera::startRender,
+                    "Rendered on virtual threads of a runtime without them");
+        else {
+            RecordingWriter writer = new RecordingWriter(60, 60);
+            camera.setImageWriter(writer).renderImage();
+            assertArrayEquals(expected.pixels, writer.pixels, "Virtual threads rendered a different image");
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.RenderJob#waitToFinish()} with failures, cancellation and timeouts.
+     */
+    @Test
+    void testFailures() {
+        Camera camera = TestScenes.camera().setImageWriter(new RecordingWriter(60, 60))
+                .setMultiThreading(2).setTileSize(8).setPrintInterval(0);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The failure of a pixel is rethrown to the waiting thread
+        assertThrows(IllegalArgumentException.class, () -> camera.setRayTracer(new BadTracer(false)).renderImage(),
+                "The failure of a pixel was lost");
+        // TC02: The failure is rethrown on a fixed pool too
+        ExecutorService fixed = Executors.newFixedThreadPool(2);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> camera.setRenderExecutor(fixed).renderImage(),
+                    "The failure of a pixel on a fixed pool was lost");
+        } finally {
+            fixed.shutdown();
+            camera.setRenderExecutor(null);
+        }
+
+        // TC03: A rendering that runs out of time is cancelled
+        camera.setRayTracer(new BadTracer(true));
+        assertThrows(CancellationException.class, () -> camera.renderImage(50, TimeUnit.MILLISECONDS),
+                "The rendering didn't time out");
+
+        // TC04: A cancelled job stops and is done
+        RenderJob job = camera.startRender();
+        assertFalse(job.waitToFinish(20, TimeUnit.MILLISECONDS), "The slow job is already done");
+        job.cancel();
+        assertThrows(CancellationException.class, job::waitToFinish, "The job wasn't cancelled");
+        assertTrue(job.isDone(), "The cancelled job isn't done");
+        assertTrue(job.getProgress() < 1, "The cancelled job rendered all the pixels");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setProgressive(int)}.
+     */
+    @Test
+    void testProgressive() {
+        Camera camera = camera(new Color(80, 0, 0));
+        RecordingWriter expected = new RecordingWriter(60, 60);
+        camera.setImageWriter(expected).renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A refined image is close to the image without super sampling
+        RecordingWriter refined = new RecordingWriter(60, 60);
+        camera.setProgressive(8).setImageWriter(refined).renderImage();
+        long difference = 0, changed = 0;
+        for (int i = 0; i < expected.pixels.length; ++i) {
+            int a = expected.pixels[i], b = refined.pixels[i];
+            if (a != b) ++changed;
+            for (int shift = 0; shift < 24; shift += 8)
+                difference += Math.abs((a >> shift & 0xFF) - (b >> shift & 0xFF));
+        }
+        assertTrue(changed > 0, "The passes didn't refine the image");
+        assertTrue(difference < 3 * expected.pixels.length, "The refined image is far from the image");
+        // TC02: Intermediate images are written between the passes
+        RecordingWriter snapshots = new RecordingWriter(60, 60);
+        camera.setProgressive(4).setSnapshotInterval(1E-9).setImageWriter(snapshots).renderImage();
+        assertEquals(3, snapshots.snapshots, "Wrong number of intermediate images");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A single pass is the image without super sampling
+        RecordingWriter single = new RecordingWriter(60, 60);
+        camera.setProgressive(1).setSnapshotInterval(0).setImageWriter(single).renderImage();
+        assertArrayEquals(expected.pixels, single.pixels, "A single pass differs from the image");
+        // TC11: The time budget stops the passes, after the first one
+        RecordingWriter slow = new RecordingWriter(20, 20);
+        camera.setRayTracer(new BadTracer(true)).setProgressive(1000).setTimeBudget(0.1).setImageWriter(slow);
+        long start = System.nanoTime();
+        camera.renderImage();
+        assertTrue(System.nanoTime() - start < 3E9, "The time budget didn't stop the passes");
+        for (int pixel : slow.pixels)
+            assertEquals(0xFF000000, pixel, "A pixel wasn't rendered in the first pass");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setVarianceSampling(int, double)}.
+     */
+    @Test
+    void testVarianceSampling() {
+        Camera camera = camera(new Color(80, 0, 0)).setVarianceSampling(16, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The noisy pixels get more samples, the flat ones stop early
+        RenderJob job = camera.setImageWriter(new RecordingWriter(60, 60)).startRender();
+        job.waitToFinish();
+        int[] counts = job.getSampleCounts();
+        assertEquals(3600, counts.length, "Wrong size of the sample count map");
+        assertEquals(VarianceSampler.MIN_SAMPLES, counts[0], "A flat background pixel wasn't stopped");
+        int total = 0, max = 0;
+        for (int count : counts) {
+            assertTrue(count >= VarianceSampler.MIN_SAMPLES && count <= 16, "Wrong number of samples");
+            total += count;
+            max = Math.max(max, count);
+        }
+        assertEquals(16, max, "No pixel was refined");
+        assertTrue(total < 3600 * 8, "The samples were spent uniformly");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: Sampling that isn't variance driven doesn't count samples
+        job = camera.setVarianceSampling(0, 1).startRender();
+        job.waitToFinish();
+        assertNull(job.getSampleCounts(), "Counted samples that aren't variance driven");
+        // TC11: A threshold that isn't positive
+        assertThrows(IllegalArgumentException.class, () -> camera.setVarianceSampling(16, 0),
+                "Set a zero threshold");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setSampler(sampling.Sampler)}.
+     */
+    @Test
+    void testSampler() {
+        Camera camera = camera(new Color(80, 0, 0));
+        RecordingWriter expected = new RecordingWriter(60, 60);
+        camera.setImageWriter(expected).renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Super sampling from a sampler is close to the image without super sampling
+        RecordingWriter sampled = new RecordingWriter(60, 60);
+        camera.setSampler(new SobolSampler()).setSuperSampling(3).setImageWriter(sampled).renderImage();
+        long difference = 0, changed = 0;
+        for (int i = 0; i < expected.pixels.length; ++i) {
+            int a = expected.pixels[i], b = sampled.pixels[i];
+            if (a != b) ++changed;
+            for (int shift = 0; shift < 24; shift += 8)
+                difference += Math.abs((a >> shift & 0xFF) - (b >> shift & 0xFF));
+        }
+        assertTrue(changed > 0, "The samples didn't anti-alias the image");
+        assertTrue(difference < 3 * expected.pixels.length, "The sampled image is far from the image");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: No sampler
+        assertThrows(IllegalArgumentException.class, () -> camera.setSampler(null), "Set no sampler");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderImage()} - the random samples don't depend on the threads.
+     */
+    @Test
+    void testDeterminism() {
+        Camera camera = camera(new Color(80, 0, 0)).setSampler(new StratifiedSampler(4))
+                .setDepthOfField(4, 150).setVarianceSampling(16, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A single thread with large tiles and threads with small tiles render the same image
+        RecordingWriter single = new RecordingWriter(60, 60);
+        camera.setMultiThreading(1).setTileSize(16).setImageWriter(single).renderImage();
+        RecordingWriter multiple = new RecordingWriter(60, 60);
+        camera.setMultiThreading(3).setTileSize(4).setImageWriter(multiple).renderImage();
+        assertArrayEquals(single.pixels, multiple.pixels, "The threads changed the image");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: Progressive passes render the same image as well
+        camera.setVarianceSampling(0, 1).setProgressive(6);
+        camera.setMultiThreading(1).setTileSize(16).setImageWriter(single).renderImage();
+        camera.setMultiThreading(3).setTileSize(4).setImageWriter(multiple).renderImage();
+        assertArrayEquals(single.pixels, multiple.pixels, "The threads changed the progressive image");
+    }
+}
@@ -103,4 +103,33 @@ public class ShadowTests {
          .writeToImage();
    }
 
+   /** Produce a picture of two triangles lighted by a rectangle and a disk area light with a Sphere
+    * producing soft shadows */
+   @Test
+   public void trianglesSphereSoftShadows() {
+      scene.setAmbientLight(new AmbientLight(new Color(WHITE), 0.15));
+
+      scene.geometries.add( //
+                           new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135),
+                                        new Point(75, 75, -150)) //
+                              .setMaterial(new Material().setKd(0.5).setKs(0.3).setShininess(60)), //
+                           new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150)) //
+                              .setMaterial(new Material().setKd(0.5).setKs(0.3).setShininess(60)), //
+                           new Sphere(30d,new Point(0, 0, -11)) //
+                              .setEmission(new Color(BLUE)) //
+                              .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)) //
+      );
+      scene.lights.add( //
+                       new RectangleLight(new Color(300, 180, 180), new Point(40, 40, 115), new Vector(30, -30, 0),
+                                          new Vector(0, 0, 30)) //
+                          .setShadowRays(64));
+      scene.lights.add( //
+                       new DiskLight(new Color(120, 120, 240), new Point(-60, 40, 100), new Vector(1, -1, -2), 15) //
+                          .setShadowRays(64));
+
+      camera.setImageWriter(new ImageWriter("shadowTrianglesSphereSoft", 600, 600)) //
+         .renderImage() //
+         .writeToImage();
+   }
+
 }
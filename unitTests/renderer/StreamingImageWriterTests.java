@@ -0,0 +1,106 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.Color;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.stream.IntStream;
+
+public class StreamingImageWriterTests {
+    /**
+     * The color of a test pixel
+     *
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the color
+     */
+    private static Color color(int x, int y) {
+        return new Color(x * 7, y * 11, 300);
+    }
+
+    /**
+     * Reads the file of a streamed image.
+     *
+     * @param writer    the writer of the image
+     * @param extension the extension of the file name
+     * @return the content of the file
+     */
+    private static byte[] read(ImageWriter writer, String extension) {
+        try {
+            return Files.readAllBytes(writer.getImageFile(extension).toPath());
+        } catch (IOException e) {
+            return fail("Can't read the image file", e);
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.StreamingImageWriter#writePixel(int, int, primitives.Color)}.
+     */
+    @Test
+    void testWritePixel() {
+        int nX = 30, nY = 20;
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A PPM image has the pixels of an image in memory, written from several threads
+        ImageWriter memory = new ImageWriter("streamed memory", nX, nY);
+        StreamingImageWriter ppm = new StreamingImageWriter("streamed", nX, nY, StreamingImageWriter.Format.PPM);
+        IntStream.range(0, nX * nY).parallel().forEach(i -> {
+            memory.writePixel(i % nX, i / nX, color(i % nX, i / nX));
+            ppm.writePixel(i % nX, i / nX, color(i % nX, i / nX));
+        });
+        ppm.writeToImage();
+        byte[] file = read(ppm, "ppm");
+        byte[] header = ("P6\n" + nX + " " + nY + "\n255\n").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(header.length + 3 * nX * nY, file.length, "Wrong size of the PPM file");
+        for (int y = 0; y < nY; ++y)
+            for (int x = 0; x < nX; ++x) {
+                int offset = header.length + 3 * (y * nX + x);
+                int rgb = 0xFF000000 | (file[offset] & 0xFF) << 16 | (file[offset + 1] & 0xFF) << 8
+                        | (file[offset + 2] & 0xFF);
+                assertEquals(memory.getFrameBuffer().getRGB(x, y), rgb, "Wrong pixel of the PPM image");
+            }
+
+        // TC02: A PFM image has the linear colors, from the bottom row up
+        StreamingImageWriter pfm = new StreamingImageWriter("streamed", nX, nY, StreamingImageWriter.Format.PFM);
+        for (int y = 0; y < nY; ++y)
+            for (int x = 0; x < nX; ++x)
+                pfm.writePixel(x, y, color(x, y));
+        pfm.writeToImage();
+        file = read(pfm, "pfm");
+        header = ("PF\n" + nX + " " + nY + "\n-1.0\n").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(header.length + 12 * nX * nY, file.length, "Wrong size of the PFM file");
+        ByteBuffer floats = ByteBuffer.wrap(file).order(ByteOrder.LITTLE_ENDIAN);
+        int bottomLeft = header.length, topRight = header.length + 12 * ((nY - 1) * nX + nX - 1);
+        assertEquals(0, floats.getFloat(bottomLeft), "Wrong red of the bottom left pixel");
+        assertEquals(11 * (nY - 1), floats.getFloat(bottomLeft + 4), "Wrong green of the bottom left pixel");
+        assertEquals(7 * (nX - 1), floats.getFloat(topRight), "Wrong red of the top right pixel");
+        assertEquals(300, floats.getFloat(topRight + 8), "Wrong linear blue of the top right pixel");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: An image without any written pixel is black
+        StreamingImageWriter empty = new StreamingImageWriter("streamed empty", 4, 3,
+                StreamingImageWriter.Format.PPM);
+        empty.writeToImage();
+        file = read(empty, "ppm");
+        for (int i = file.length - 36; i < file.length; ++i)
+            assertEquals(0, file[i], "An unwritten pixel isn't black");
+        // TC11: A pixel outside the image
+        assertThrows(IndexOutOfBoundsException.class, () -> empty.writePixel(4, 0, Color.BLACK),
+                "Wrote outside the image");
+        // TC12: A pixel written after the image is finished updates it
+        empty.writePixel(0, 0, new Color(255, 0, 0));
+        empty.writeToImage();
+        file = read(empty, "ppm");
+        assertEquals((byte) 255, file[file.length - 36], "The reopened image wasn't updated");
+        assertEquals(47, file.length, "The reopened image was truncated");
+    }
+}
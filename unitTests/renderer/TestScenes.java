@@ -0,0 +1,47 @@
+package renderer;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import scene.Scene;
+
+/**
+ * The scene shared by the ray tracer tests - a shiny sphere over a shiny plane, lit by a point light above them,
+ * and the camera that looks at them
+ */
+final class TestScenes {
+    private TestScenes() {
+    }
+
+    /**
+     * @return the shiny material of the geometries of the scene
+     */
+    static Material material() {
+        return new Material().setKd(0.5).setKs(0.5).setShininess(30);
+    }
+
+    /**
+     * Creates the scene - a sphere over a plane, lit by a point light. Tests add their own geometries and lights.
+     *
+     * @param name     the name of the scene
+     * @param emission the emission of the sphere
+     * @return the scene
+     */
+    static Scene scene(String name, Color emission) {
+        Scene scene = new Scene(name).setBackground(new Color(20, 40, 60));
+        Material material = material();
+        scene.geometries.add(new Sphere(30d, new Point(0, 0, -100)).setEmission(emission).setMaterial(material),
+                new Plane(new Point(0, -50, 0), new Vector(0, 1, 0)).setEmission(new Color(30, 30, 30))
+                        .setMaterial(material));
+        scene.lights.add(new PointLight(new Color(400, 300, 300), new Point(50, 80, 0)).setKl(1E-5).setKq(1E-6));
+        return scene;
+    }
+
+    /**
+     * @return a camera in front of the sphere, looking at it
+     */
+    static Camera camera() {
+        return new Camera(new Point(0, 0, 50), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(200, 200).setVPDistance(100);
+    }
+}
@@ -136,4 +136,26 @@ public class TestsForMe {
                 .renderImage()
                 .writeToImage();
     }
+
+    /**
+     * Renders spheres at different depths with depth of field, tracing the beam of every pixel as a packet.
+     */
+    @Test
+    public void dofPacketTracing() {
+        Scene scene = new Scene("DoF packets");
+        scene.setAmbientLight(new AmbientLight(new Color(30, 30, 30), 0.1));
+        scene.geometries.add(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)).setEmission(new Color(0, 20, 20))
+                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60).setKR(0.02)));
+        for (int i = 0; i < 3; ++i)
+            scene.geometries.add(new Sphere(70, new Point(100 - 100 * i, 0, 300 + 600 * i)).setEmission(new Color(60, 0, 20 * i))
+                    .setMaterial(new Material().setKd(0.6).setKs(0.4).setShininess(100).setKR(0.3)));
+        scene.geometries.setBVH(true);
+        scene.lights.add(new DirectionalLight(new Color(70, 172, 21), new Vector(-1, 0, 0)));
+        Camera camera = new Camera(new Point(0, 0, 2500), new Vector(0, 0, -1), new Vector(0, 1, 0)).setVPSize(200, 200)
+                .setVPDistance(850).setSuperSampling(9).setDepthOfField(20, 1600);
+        camera.setImageWriter(new ImageWriter("DoF packets", 400, 400)).setMultiThreading(4).setAdaptive(false)
+                .setRayTracer(new RayTracerBasic(scene).setPacketTracing(true))
+                .renderImage()
+                .writeToImage();
+    }
 }
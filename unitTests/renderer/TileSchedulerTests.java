@@ -0,0 +1,110 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class TileSchedulerTests {
+    /**
+     * Renders an image with a scheduler and checks that every pixel was rendered exactly once.
+     *
+     * @param executor the executor to render on
+     * @param rows     the amount of pixel rows
+     * @param cols     the amount of pixel columns
+     * @param tileSize the size of the side of a tile
+     * @param message  the message of a failure
+     */
+    private static void assertEachPixelOnce(ExecutorService executor, int rows, int cols, int tileSize,
+                                            String message) {
+        AtomicIntegerArray counts = new AtomicIntegerArray(rows * cols);
+        TileScheduler scheduler = new TileScheduler(rows, cols, tileSize);
+        scheduler.submit(executor, (row, col) -> counts.incrementAndGet(row * cols + col)).join();
+        assertEquals(rows * cols, scheduler.getPixelsDone(), message);
+        for (int i = 0; i < counts.length(); ++i)
+            assertEquals(1, counts.get(i), message);
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.TileScheduler#submit(java.util.concurrent.ExecutorService, renderer.TileScheduler.PixelRenderer)}.
+     */
+    @Test
+    void testSubmit() {
+        ExecutorService pool = new ForkJoinPool(4), fixed = Executors.newFixedThreadPool(3);
+        try {
+            // ============ Equivalence Partitions Tests ==============
+
+            // TC01: Tiles that divide the image
+            assertEachPixelOnce(pool, 64, 32, 16, "Wrong rendering of tiles that divide the image");
+            // TC02: Partial tiles at the right and the bottom of the image
+            assertEachPixelOnce(pool, 37, 23, 8, "Wrong rendering of partial tiles");
+            // TC03: Tiles as tasks of an executor that is not work stealing
+            assertEachPixelOnce(fixed, 37, 23, 8, "Wrong rendering on a fixed pool");
+
+            // =============== Boundary Values Tests ==================
+
+            // TC10: Tiles of a single pixel
+            assertEachPixelOnce(pool, 9, 7, 1, "Wrong rendering of single pixel tiles");
+            // TC11: A single tile bigger than the image
+            assertEachPixelOnce(pool, 5, 6, 100, "Wrong rendering of a tile bigger than the image");
+            assertEquals(1, new TileScheduler(5, 6, 100).getTileCount(), "Wrong number of tiles");
+            // TC12: A tile size that is not positive
+            assertThrows(IllegalArgumentException.class, () -> new TileScheduler(5, 6, 0),
+                    "Constructed a zero tile size");
+            // TC13: An empty image
+            assertTrue(new TileScheduler(0, 0, 8).submit(pool, (row, col) -> fail("Rendered a pixel")).isDone(),
+                    "The rendering of an empty image isn't done");
+        } finally {
+            pool.shutdown();
+            fixed.shutdown();
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.TileScheduler#cancel()} and for failures of pixels.
+     */
+    @Test
+    void testCancel() {
+        ExecutorService pool = new ForkJoinPool(2);
+        try {
+            // ============ Equivalence Partitions Tests ==============
+
+            // TC01: A failing pixel fails the rendering after the running tiles have stopped
+            TileScheduler failing = new TileScheduler(40, 40, 4);
+            CompletionException failure = assertThrows(CompletionException.class,
+                    () -> failing.submit(pool, (row, col) -> {
+                        if (row == 20 && col == 20) throw new IllegalArgumentException("bad pixel");
+                    }).join(), "The failure of a pixel was lost");
+            assertInstanceOf(IllegalArgumentException.class, failure.getCause(), "Wrong failure");
+            assertTrue(failing.getPixelsDone() < 1600, "The tiles were rendered after the failure");
+
+            // TC02: A cancelled rendering skips the tiles that have not started
+            TileScheduler cancelled = new TileScheduler(40, 40, 4);
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<Void> completion = cancelled.submit(pool, (row, col) -> {
+                started.countDown();
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException ignore) {
+                }
+            });
+            started.await();
+            cancelled.cancel();
+            assertThrows(CancellationException.class, completion::join, "The rendering wasn't cancelled");
+            assertTrue(cancelled.getPixelsDone() < 1600, "The tiles were rendered after the cancellation");
+        } catch (InterruptedException e) {
+            fail("Interrupted");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
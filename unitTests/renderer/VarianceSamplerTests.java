@@ -0,0 +1,47 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.Color;
+
+public class VarianceSamplerTests {
+    /**
+     * Test method for {@link renderer.VarianceSampler#sample(int, int)}.
+     */
+    @Test
+    void testSample() {
+        // pixel (0,0) is flat, pixel (1,0) alternates black and white, pixel (0,1) is slightly noisy, and pixel
+        // (1,1) is white with noise above the white point
+        VarianceSampler sampler = new VarianceSampler((x, y, sample) -> {
+            if (x == 0 && y == 0) return new Color(100, 50, 25);
+            if (y == 0) return sample % 2 == 0 ? Color.BLACK : new Color(255, 255, 255);
+            if (x == 0) return new Color(100 + sample % 2 * 0.5, 100, 100);
+            return new Color(300 + sample % 2 * 500, 300, 300);
+        }, 2, 2, 64, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A flat pixel stops at the least number of samples
+        assertEquals(new Color(100, 50, 25).getRGB(), sampler.sample(0, 0).getRGB(), "Wrong color of a flat pixel");
+        assertEquals(VarianceSampler.MIN_SAMPLES, sampler.getSampleCounts()[0], "A flat pixel wasn't stopped");
+        // TC02: A noisy pixel is sampled up to the maximal number of samples
+        Color noisy = sampler.sample(1, 0);
+        assertEquals(64, sampler.getSampleCounts()[1], "A noisy pixel was stopped");
+        assertEquals(127.5, noisy.getGreen(), 1E-9, "Wrong mean of a noisy pixel");
+        // TC03: Noise below the threshold converges
+        sampler.sample(0, 1);
+        assertEquals(VarianceSampler.MIN_SAMPLES, sampler.getSampleCounts()[2], "Invisible noise wasn't stopped");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: Noise above the white point is invisible
+        sampler.sample(1, 1);
+        assertEquals(VarianceSampler.MIN_SAMPLES, sampler.getSampleCounts()[3], "Noise above white wasn't stopped");
+        // TC11: A single sample
+        VarianceSampler single = new VarianceSampler((x, y, sample) -> Color.BLACK, 1, 1, 1, 1);
+        single.sample(0, 0);
+        assertEquals(1, single.getSampleCounts()[0], "Wrong number of single samples");
+    }
+}
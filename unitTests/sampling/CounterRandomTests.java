@@ -0,0 +1,61 @@
+package sampling;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class CounterRandomTests {
+    /**
+     * Test method for {@link sampling.CounterRandom#bits(int, int, int, int)}.
+     */
+    @Test
+    void testBits() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A key has the same bits every time
+        assertEquals(CounterRandom.bits(3, 7, 11, 2), CounterRandom.bits(3, 7, 11, 2), "The bits of a key changed");
+        // TC02: The keys of a pixel and of neighbouring pixels don't collide
+        Set<Long> bits = new HashSet<>();
+        for (int x = 0; x < 4; ++x)
+            for (int y = 0; y < 4; ++y)
+                for (int sample = -1; sample < 64; ++sample)
+                    for (int dimension = 0; dimension < 4; ++dimension)
+                        assertTrue(bits.add(CounterRandom.bits(x, y, sample, dimension)), "The keys collided");
+        // TC03: A change of a single coordinate flips about half of the bits
+        long flipped = 0;
+        for (int sample = 0; sample < 1000; ++sample)
+            flipped += Long.bitCount(CounterRandom.bits(5, 5, sample, 0) ^ CounterRandom.bits(5, 5, sample + 1, 0));
+        assertEquals(32, flipped / 1000d, 1, "The bits aren't mixed");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: Swapped coordinates have other bits
+        assertNotEquals(CounterRandom.bits(1, 2, 0, 0), CounterRandom.bits(2, 1, 0, 0), "Swapped pixel collided");
+        assertNotEquals(CounterRandom.bits(0, 0, 1, 2), CounterRandom.bits(0, 0, 2, 1), "Swapped sample collided");
+    }
+
+    /**
+     * Test method for {@link sampling.CounterRandom#uniform(double, double, int, int, int, int)}.
+     */
+    @Test
+    void testUniform() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The numbers are in the range and their mean is the middle of the range
+        double sum = 0;
+        for (int sample = 0; sample < 10000; ++sample) {
+            double value = CounterRandom.uniform(-2, 6, 1, 1, sample, 0);
+            assertTrue(value >= -2 && value < 6, "A number out of the range");
+            sum += value;
+        }
+        assertEquals(2, sum / 10000, 0.1, "The numbers aren't uniform");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: An empty range
+        assertEquals(3, CounterRandom.uniform(3, 3, 1, 1, 0, 0), "A number out of an empty range");
+    }
+}
@@ -0,0 +1,118 @@
+package sampling;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class SamplerTests {
+    private static final Sampler[] SAMPLERS = {new StratifiedSampler(8), new HaltonSampler(), new SobolSampler(),
+            new BlueNoiseSampler()};
+
+    /**
+     * Estimates the area of the quarter unit disk with samples of pixels, and returns the mean error.
+     *
+     * @param sampler the sampler, or null for uniform random samples
+     * @param count   the number of samples per pixel
+     * @return the mean absolute error of the pixels
+     */
+    private static double quarterDiskError(Sampler sampler, int count) {
+        Random random = new Random(1);
+        double[] points = new double[2 * count];
+        double error = 0;
+        for (int pixel = 0; pixel < 100; ++pixel) {
+            if (sampler != null)
+                sampler.samples(pixel % 10, pixel / 10, Sampler.PIXEL, 0, count, points);
+            else
+                for (int i = 0; i < points.length; ++i)
+                    points[i] = random.nextDouble();
+            int inside = 0;
+            for (int i = 0; i < count; ++i)
+                if (points[2 * i] * points[2 * i] + points[2 * i + 1] * points[2 * i + 1] < 1) ++inside;
+            error += Math.abs((double) inside / count - Math.PI / 4);
+        }
+        return error / 100;
+    }
+
+    /**
+     * Test method for {@link sampling.Sampler#samples(int, int, int, int, int, double[])}.
+     */
+    @Test
+    void testSamples() {
+        double randomError = quarterDiskError(null, 64);
+        for (Sampler sampler : SAMPLERS) {
+            String name = sampler.getClass().getSimpleName();
+            double[] all = new double[128], first = new double[64], second = new double[64];
+
+            // ============ Equivalence Partitions Tests ==============
+
+            // TC01: The samples are in the unit square
+            sampler.samples(3, 7, Sampler.PIXEL, 0, 64, all);
+            for (double coordinate : all)
+                assertTrue(coordinate >= 0 && coordinate < 1, name + " sampled out of the unit square");
+            // TC02: A sample depends on its pixel, dimension and index only
+            sampler.samples(3, 7, Sampler.PIXEL, 0, 32, first);
+            sampler.samples(3, 7, Sampler.PIXEL, 32, 32, second);
+            for (int i = 0; i < 64; ++i) {
+                assertEquals(all[i], first[i], name + " sampled differently by the count");
+                assertEquals(all[64 + i], second[i], name + " sampled differently by the first index");
+            }
+            // TC03: Neighbouring pixels and other dimensions have other samples
+            sampler.samples(4, 7, Sampler.PIXEL, 0, 32, second);
+            assertNotEquals(first[0], second[0], name + " sampled a neighbouring pixel the same");
+            sampler.samples(3, 7, Sampler.APERTURE, 0, 32, second);
+            assertNotEquals(first[0], second[0], name + " sampled another dimension the same");
+            // TC04: The samples converge faster than uniform random samples
+            assertTrue(quarterDiskError(sampler, 64) < randomError * 2 / 3, name + " doesn't converge faster");
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: A stratified run and a Sobol run of 64 samples have a single sample in each cell of an 8x8 grid
+        for (Sampler sampler : new Sampler[]{SAMPLERS[0], SAMPLERS[2]}) {
+            double[] points = new double[128];
+            sampler.samples(5, 5, Sampler.PIXEL, 64, 64, points);
+            boolean[] cells = new boolean[64];
+            for (int i = 0; i < 64; ++i) {
+                int cell = (int) (points[2 * i] * 8) * 8 + (int) (points[2 * i + 1] * 8);
+                assertFalse(cells[cell], sampler.getClass().getSimpleName() + " isn't stratified");
+                cells[cell] = true;
+            }
+        }
+        // TC11: Blue noise samples are not close to each other
+        double[] points = new double[128];
+        SAMPLERS[3].samples(5, 5, Sampler.PIXEL, 0, 64, points);
+        for (int i = 0; i < 64; ++i)
+            for (int j = 0; j < i; ++j)
+                assertTrue(BlueNoiseSampler.torusDistance2(points[2 * i], points[2 * i + 1], points[2 * j],
+                        points[2 * j + 1]) > 0.05 * 0.05, "Blue noise samples are too close");
+        // TC12: A stratified sampler without strata
+        assertThrows(IllegalArgumentException.class, () -> new StratifiedSampler(0), "Constructed no strata");
+    }
+
+    /**
+     * Test method for {@link sampling.Sampler#toDisk(double[], int)}.
+     */
+    @Test
+    void testToDisk() {
+        double[] points = {0.5, 0.5, 1, 0.5, 0.75, 0.999};
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: A point inside the square is mapped into the disk
+        Sampler.toDisk(points, 2);
+        assertTrue(points[4] * points[4] + points[5] * points[5] < 1, "Mapped out of the disk");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC10: The center of the square is the center of the disk
+        Sampler.toDisk(points, 0);
+        assertEquals(0, points[0], 1E-12, "Wrong center of the disk");
+        assertEquals(0, points[1], 1E-12, "Wrong center of the disk");
+        // TC11: The middle of a side of the square is on the circle
+        Sampler.toDisk(points, 1);
+        assertEquals(1, points[2], 1E-12, "Wrong point on the circle");
+        assertEquals(0, points[3], 1E-12, "Wrong point on the circle");
+    }
+}